@@ -0,0 +1,210 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.event.BatchSigningListener;
+import be.fedict.commons.eid.client.impl.BeIDDigest;
+
+/**
+ * Asynchronous facade on a BeIDCard. All operations are executed one after the
+ * other on a dedicated thread per card, and their results are delivered via
+ * CompletableFutures. Operations can hence be submitted from many threads at
+ * once, without running into the exclusive access checks of BeIDCard.
+ * <p>
+ * Do not call the wrapped BeIDCard directly while it is in use by an
+ * AsyncBeIDCard.
+ */
+public class AsyncBeIDCard {
+
+	/**
+	 * An operation on a BeIDCard, executed on the card's dedicated thread.
+	 *
+	 * @param <T> the type of the result of the operation.
+	 */
+	public interface Operation<T> {
+		T execute(BeIDCard beIDCard) throws Exception;
+	}
+
+	private final BeIDCard beIDCard;
+
+	private final ExecutorService executorService;
+
+	public AsyncBeIDCard(final BeIDCard beIDCard) {
+		this.beIDCard = beIDCard;
+		final CardTerminal cardTerminal = beIDCard.getCardTerminal();
+		final String threadName = "BeIDCard" + (null != cardTerminal ? " " + cardTerminal.getName() : "");
+		this.executorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return the wrapped BeIDCard.
+	 */
+	public BeIDCard getBeIDCard() {
+		return this.beIDCard;
+	}
+
+	/**
+	 * Queues an operation on the card. Operations are executed in the order in
+	 * which they were submitted.
+	 *
+	 * @param operation the operation to execute.
+	 * @return the future result of the operation. Exceptions thrown by the
+	 *         operation complete the future exceptionally.
+	 */
+	public <T> CompletableFuture<T> submit(final Operation<T> operation) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			this.executorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (future.isDone()) {
+						// cancelled while queued
+						return;
+					}
+					try {
+						future.complete(operation.execute(AsyncBeIDCard.this.beIDCard));
+					} catch (final Throwable e) {
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			future.completeExceptionally(new IllegalStateException("AsyncBeIDCard closed", e));
+		}
+		return future;
+	}
+
+	public CompletableFuture<byte[]> readFile(final FileType fileType) {
+		return submit(new Operation<byte[]>() {
+			@Override
+			public byte[] execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.readFile(fileType);
+			}
+		});
+	}
+
+	public CompletableFuture<Map<FileType, byte[]>> readFiles(final Set<FileType> fileTypes) {
+		return submit(new Operation<Map<FileType, byte[]>>() {
+			@Override
+			public Map<FileType, byte[]> execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.readFiles(fileTypes);
+			}
+		});
+	}
+
+	public CompletableFuture<X509Certificate> getCertificate(final FileType fileType) {
+		return submit(new Operation<X509Certificate>() {
+			@Override
+			public X509Certificate execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.getCertificate(fileType);
+			}
+		});
+	}
+
+	public CompletableFuture<List<X509Certificate>> getCertificateChain(final FileType fileType) {
+		return submit(new Operation<List<X509Certificate>>() {
+			@Override
+			public List<X509Certificate> execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.getCertificateChain(fileType);
+			}
+		});
+	}
+
+	public CompletableFuture<byte[]> sign(final byte[] digestValue, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader) {
+		return sign(digestValue, digestAlgo, fileType, requireSecureReader, null);
+	}
+
+	public CompletableFuture<byte[]> sign(final byte[] digestValue, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader, final String applicationName) {
+		return submit(new Operation<byte[]>() {
+			@Override
+			public byte[] execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.sign(digestValue, digestAlgo, fileType, requireSecureReader, applicationName);
+			}
+		});
+	}
+
+	public CompletableFuture<List<byte[]>> signAll(final List<byte[]> digestValues, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader, final String applicationName,
+			final BatchSigningListener listener) {
+		return submit(new Operation<List<byte[]>>() {
+			@Override
+			public List<byte[]> execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.signAll(digestValues, digestAlgo, fileType, requireSecureReader, applicationName,
+						listener);
+			}
+		});
+	}
+
+	public CompletableFuture<byte[]> getChallenge(final int size) {
+		return submit(new Operation<byte[]>() {
+			@Override
+			public byte[] execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.getChallenge(size);
+			}
+		});
+	}
+
+	public CompletableFuture<byte[]> internalAuthenticate(final byte[] challenge) {
+		return submit(new Operation<byte[]>() {
+			@Override
+			public byte[] execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.internalAuthenticate(challenge);
+			}
+		});
+	}
+
+	/**
+	 * Closes the wrapped BeIDCard once all queued operations have been executed,
+	 * and stops the card's thread. Operations submitted afterwards fail with an
+	 * IllegalStateException.
+	 *
+	 * @return a future that completes when the card has been closed.
+	 */
+	public CompletableFuture<BeIDCard> close() {
+		final CompletableFuture<BeIDCard> future = submit(new Operation<BeIDCard>() {
+			@Override
+			public BeIDCard execute(final BeIDCard beIDCard) throws Exception {
+				return beIDCard.close();
+			}
+		});
+		this.executorService.shutdown();
+		return future;
+	}
+}
@@ -36,10 +36,23 @@ import java.security.interfaces.ECPublicKey;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.smartcardio.ATR;
 import javax.smartcardio.Card;
@@ -49,12 +62,16 @@ import javax.smartcardio.CardTerminal;
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
 
+import be.fedict.commons.eid.client.event.BatchSigningListener;
 import be.fedict.commons.eid.client.event.BeIDCardListener;
 import be.fedict.commons.eid.client.impl.BeIDDigest;
 import be.fedict.commons.eid.client.impl.CCID;
 import be.fedict.commons.eid.client.impl.LocaleManager;
+import be.fedict.commons.eid.client.impl.ReadBinaryStrategy;
+import be.fedict.commons.eid.client.impl.ReaderQuirks;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.BeIDCardUI;
+import be.fedict.commons.eid.client.spi.BeIDFileCache;
 import be.fedict.commons.eid.client.spi.Logger;
 import be.fedict.commons.eid.client.spi.UserCancelledException;
 
@@ -98,6 +115,14 @@ import be.fedict.commons.eid.client.spi.UserCancelledException;
  * VoidLogger discards all logging and debug messages). You are advised to
  * provide some form of logging facility, for all but the most trivial
  * applications.
+ * <p>
+ * Repeated reads of files that cannot change, such as the certificates, the
+ * identity file and the photo, can be served from a {@link BeIDFileCache} set
+ * via setFileCache(). Cached files are keyed by the ATR and chip serial number
+ * of the card.
+ * <p>
+ * Files can be read ahead of time from a background thread via prefetchFiles().
+ * Prefetching gives way to any other use of the card.
  * 
  * @author Frank Cornelis
  * @author Frank Marien
@@ -114,7 +139,37 @@ public class BeIDCard {
 			0x2D, 0x31, 0x35, };
 	private static final byte[] APPLET_AID = new byte[] { (byte) 0xA0, 0x00, 0x00, 0x00, 0x30, 0x29, 0x05, 0x70, 0x00,
 			(byte) 0xAD, 0x13, 0x10, 0x01, 0x01, (byte) 0xFF, };
-	private static final int BLOCK_SIZE = 0xff;
+	private static final int CHIP_SERIAL_NUMBER_SIZE = 16;
+	private static final int NO_SECURITY_ENVIRONMENT = -1;
+	/*
+	 * Block size for reading fields from TLV files. The card number and national
+	 * number sit within the first 64 bytes of the identity file.
+	 */
+	private static final int TLV_BLOCK_SIZE = 0x40;
+	/*
+	 * READ BINARY takes a 15-bit offset: with bit 8 of P1 set, P1 would address a
+	 * short EF identifier instead.
+	 */
+	static final int MAX_FILE_SIZE = 0x8000;
+
+	/*
+	 * Orders files by their path on the card, so that files within the same
+	 * dedicated file are read one after the other.
+	 */
+	private static final Comparator<FileType> FILE_LOCATION_ORDER = new Comparator<FileType>() {
+		@Override
+		public int compare(final FileType fileType1, final FileType fileType2) {
+			final byte[] fileId1 = fileType1.getFileId();
+			final byte[] fileId2 = fileType2.getFileId();
+			for (int idx = 0; idx < Math.min(fileId1.length, fileId2.length); idx++) {
+				final int diff = (fileId1[idx] & 0xff) - (fileId2[idx] & 0xff);
+				if (0 != diff) {
+					return diff;
+				}
+			}
+			return fileId1.length - fileId2.length;
+		}
+	};
 
 	private final CardChannel cardChannel;
 	private final List<BeIDCardListener> cardListeners;
@@ -125,10 +180,31 @@ public class BeIDCard {
 	private final Logger logger;
 
 	private CCID ccid;
+	private ReadBinaryStrategy readBinaryStrategy;
+	private ReaderQuirks readerQuirks;
 	private BeIDCardUI ui;
 	private CardTerminal cardTerminal;
 	private Locale locale;
+	/*
+	 * Guards exclusiveAccessThread and the nesting depth of its exclusive
+	 * transactions. Threads that want exclusive access while another thread has it
+	 * wait on this lock.
+	 */
+	private final Object exclusiveLock = new Object();
 	private Thread exclusiveAccessThread;
+	private int exclusiveDepth;
+	/*
+	 * The algorithm reference and key ID last selected via MSE SET within the
+	 * current exclusive transaction, or NO_SECURITY_ENVIRONMENT if unknown. Other
+	 * applications can run their own MSE SET between our transactions.
+	 */
+	private int securityEnvironment = NO_SECURITY_ENVIRONMENT;
+	private BeIDFileCache fileCache;
+	private String cardId;
+	private final Object prefetchLock;
+	private final Map<FileType, byte[]> prefetchedFiles;
+	private Thread prefetchThread;
+	private int foregroundSessions;
 
 	/**
 	 * Instantiate a BeIDCard from an already connected javax.smartcardio.Card, with
@@ -150,6 +226,8 @@ public class BeIDCard {
 		}
 		this.logger = logger;
 		this.cardListeners = new LinkedList<>();
+		this.prefetchLock = new Object();
+		this.prefetchedFiles = new EnumMap<>(FileType.class);
 		try {
 			this.certificateFactory = CertificateFactory.getInstance("X.509");
 			this.keyFactory = KeyFactory.getInstance("EC");
@@ -213,6 +291,7 @@ public class BeIDCard {
 	public BeIDCard close() {
 		this.logger.debug("closing eID card");
 		setCardTerminal(null);
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
 
 		try {
 			this.card.disconnect(true);
@@ -241,6 +320,54 @@ public class BeIDCard {
 		return this;
 	}
 
+	/**
+	 * Set the cache used for subsequent reads of immutable files. Pass
+	 * <code>null</code> to disable caching.
+	 * 
+	 * @param fileCache an instance of BeIDFileCache
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public final BeIDCard setFileCache(final BeIDFileCache fileCache) {
+		this.fileCache = fileCache;
+		return this;
+	}
+
+	/**
+	 * @return the file cache used by this BeIDCard, or <code>null</code> if none.
+	 */
+	public BeIDFileCache getFileCache() {
+		return this.fileCache;
+	}
+
+	/**
+	 * Removes all files of this card from the file cache, and forgets any
+	 * prefetched files.
+	 * 
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public BeIDCard invalidateFileCache() {
+		synchronized (this.prefetchLock) {
+			this.prefetchedFiles.clear();
+		}
+		if (null != this.fileCache && null != this.cardId) {
+			this.fileCache.invalidate(this.cardId);
+		}
+		return this;
+	}
+
+	/*
+	 * Forgets any prefetched files, and lets the file cache decide what to keep
+	 * of this card. Called when the card is removed from its card terminal.
+	 */
+	void cardRemoved() {
+		synchronized (this.prefetchLock) {
+			this.prefetchedFiles.clear();
+		}
+		if (null != this.fileCache && null != this.cardId) {
+			this.fileCache.cardRemoved(this.cardId);
+		}
+	}
+
 	/**
 	 * Register a BeIDCardListener to receive updates on any consequent file
 	 * reading/signature operations executed by this BeIDCard.
@@ -381,25 +508,26 @@ public class BeIDCard {
 	public List<X509Certificate> getCertificateChain(final FileType fileType)
 			throws CertificateException, CardException, IOException, InterruptedException {
 		final List<X509Certificate> chain = new LinkedList<>();
-		chain.add((X509Certificate) this.certificateFactory
-				.generateCertificate(new ByteArrayInputStream(readFile(fileType))));
-		if (fileType.chainIncludesCitizenCA()) {
+		for (byte[] certificate : getRawCertificateChain(fileType)) {
 			chain.add((X509Certificate) this.certificateFactory
-					.generateCertificate(new ByteArrayInputStream(readFile(FileType.CACertificate))));
+					.generateCertificate(new ByteArrayInputStream(certificate)));
 		}
-		chain.add((X509Certificate) this.certificateFactory
-				.generateCertificate(new ByteArrayInputStream(readFile(FileType.RootCertificate))));
 		return chain;
 	}
 
 	public List<byte[]> getRawCertificateChain(final FileType fileType)
 			throws CardException, IOException, InterruptedException {
+		final Set<FileType> fileTypes = EnumSet.of(fileType, FileType.RootCertificate);
+		if (fileType.chainIncludesCitizenCA()) {
+			fileTypes.add(FileType.CACertificate);
+		}
+		final Map<FileType, byte[]> files = readFiles(fileTypes);
 		List<byte[]> certificateChain = new LinkedList<>();
-		certificateChain.add(readFile(fileType));
+		certificateChain.add(files.get(fileType));
 		if (fileType.chainIncludesCitizenCA()) {
-			certificateChain.add(readFile(FileType.CACertificate));
+			certificateChain.add(files.get(FileType.CACertificate));
 		}
-		certificateChain.add(readFile(FileType.RootCertificate));
+		certificateChain.add(files.get(FileType.RootCertificate));
 		return certificateChain;
 	}
 
@@ -536,99 +664,322 @@ public class BeIDCard {
 	public byte[] sign(final byte[] digestValue, final BeIDDigest digestAlgo, final FileType fileType,
 			final boolean requireSecureReader, final String applicationName)
 			throws CardException, IOException, InterruptedException, UserCancelledException {
-		if (!fileType.isCertificateUserCanSignWith()) {
-			throw new IllegalArgumentException("Not a certificate that can be used for signing: " + fileType.name());
+		checkSigningParameters(digestAlgo, fileType, requireSecureReader);
+
+		this.beginExclusive();
+		notifySigningBegin(fileType);
+
+		try {
+			return signExclusive(digestValue, digestAlgo, fileType, applicationName, false);
+		} finally {
+			this.endExclusive();
+			notifySigningEnd(fileType);
 		}
+	}
 
-		if (this.isEC()) {
-			if (!digestAlgo.isEc()) {
-				throw new IllegalArgumentException("unsupported algorithm: " + digestAlgo);
+	/**
+	 * Signs a digest value that is still being computed, e.g. while the data to be
+	 * signed is being hashed. Meant to run on a background thread, so that the PIN
+	 * dialog and the hashing overlap.
+	 * <p>
+	 * No exclusive transaction is held while waiting for the digest value. For the
+	 * non-repudiation key on a reader without PIN pad, the PIN is obtained from the
+	 * UI up front. Once the digest value is available, a single exclusive
+	 * transaction selects the algorithm and key, verifies the PIN and computes the
+	 * signature. On a PIN pad reader the PIN is entered within that transaction.
+	 * Cancel the digest value to abandon the signature.
+	 * 
+	 * @param digestValue         the digest value to be signed, once available.
+	 * @param timeout             the maximum time to wait for the digest value.
+	 * @param unit                the unit of the timeout.
+	 * @param digestAlgo          the algorithm used to calculate the digest value.
+	 * @param fileType            the certificate's file type.
+	 * @param requireSecureReader <code>true</code> if a secure pinpad reader is
+	 *                            required.
+	 * @param applicationName     the optional application name.
+	 * @return the signature value.
+	 * @throws CardException
+	 * @throws IOException           also if computing the digest value failed.
+	 * @throws InterruptedException
+	 * @throws UserCancelledException
+	 * @throws TimeoutException      if the digest value was not available in time.
+	 * @throws java.util.concurrent.CancellationException if the digest value was
+	 *                                                    cancelled.
+	 */
+	public byte[] sign(final Future<byte[]> digestValue, final long timeout, final TimeUnit unit,
+			final BeIDDigest digestAlgo, final FileType fileType, final boolean requireSecureReader,
+			final String applicationName)
+			throws CardException, IOException, InterruptedException, UserCancelledException, TimeoutException {
+		checkSigningParameters(digestAlgo, fileType, requireSecureReader);
+
+		final byte keyId = fileType.getKeyId();
+		char[] pin = null;
+		try {
+			if (FileType.NonRepudiationCertificate.getKeyId() == keyId
+					&& !getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_DIRECT)
+					&& !getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_START)) {
+				this.logger.debug("non-repudiation key detected, obtaining PIN ahead of signing");
+				pin = getUI().obtainPIN(-1, PINPurpose.NonRepudiationSignature, applicationName);
 			}
-		} else {
+			final byte[] value;
+			try {
+				value = digestValue.get(timeout, unit);
+			} catch (final ExecutionException e) {
+				throw new IOException("computing the digest value failed: " + e.getCause().getMessage(),
+						e.getCause());
+			}
+
+			this.beginExclusive();
+			notifySigningBegin(fileType);
+			try {
+				if (null != pin) {
+					selectAlgorithmAndPrivateKey(digestAlgo.getAlgorithmReference(), keyId);
+					verifyPin(PINPurpose.NonRepudiationSignature, applicationName, pin);
+				}
+				return signExclusive(value, digestAlgo, fileType, applicationName, null != pin);
+			} finally {
+				this.endExclusive();
+				notifySigningEnd(fileType);
+			}
+		} finally {
+			if (null != pin) {
+				Arrays.fill(pin, (char) 0); // minimize exposure
+			}
+		}
+	}
+
+	private byte[] signExclusive(final byte[] digestValue, final BeIDDigest digestAlgo, final FileType fileType,
+			final String applicationName, final boolean pinVerified)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		final byte algorithmReference = digestAlgo.getAlgorithmReference();
+		final byte keyId = fileType.getKeyId();
+		if (FileType.NonRepudiationCertificate.getKeyId() == keyId && !pinVerified) {
+			selectAlgorithmAndPrivateKey(algorithmReference, keyId);
+			this.logger.debug("non-repudiation key detected, immediate PIN verify");
+			verifyPin(PINPurpose.NonRepudiationSignature, applicationName);
+		}
+
+		final ByteArrayOutputStream digestInfo = new ByteArrayOutputStream();
+		digestInfo.write(digestAlgo.getPrefix(digestValue.length));
+		digestInfo.write(digestValue);
+
+		this.logger.debug("computing digital signature...");
+		ResponseAPDU responseApdu = transmitInSecurityEnvironment(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE,
+				digestInfo.toByteArray(), algorithmReference, keyId);
+		if (0x9000 == responseApdu.getSW()) {
+			/*
+			 * OK, we could use the card PIN caching feature.
+			 * 
+			 * Notice that the card PIN caching also works when first doing an
+			 * authentication after a non-repudiation signature.
+			 */
 			if (digestAlgo.isEc()) {
-				throw new IllegalArgumentException("unsupported algorithm: " + digestAlgo);
+				return formatSignature(digestAlgo, responseApdu.getData());
 			}
+			return responseApdu.getData();
 		}
+		if (0x6982 != responseApdu.getSW()) {
+			this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
+			throw new ResponseAPDUException("compute digital signature error", responseApdu);
+		}
+		/*
+		 * 0x6982 = Security status not satisfied, so we do a PIN verification before
+		 * retrying.
+		 */
+		this.logger.debug("PIN verification required...");
+		verifyPin(PINPurpose.fromFileType(fileType), applicationName);
 
-		if (getCCID().hasFeature(CCID.FEATURE.EID_PIN_PAD_READER)) {
-			this.logger.debug("eID-aware secure PIN pad reader detected");
+		this.logger.debug("computing digital signature (attempt #2 after PIN verification)...");
+		responseApdu = transmitInSecurityEnvironment(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE,
+				digestInfo.toByteArray(), algorithmReference, keyId);
+		if (0x9000 != responseApdu.getSW()) {
+			throw new ResponseAPDUException("compute digital signature error", responseApdu);
 		}
 
-		if (requireSecureReader && (!getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_DIRECT))
-				&& (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_START))) {
-			throw new SecurityException("not a secure reader");
+		if (digestAlgo.isEc()) {
+			return formatSignature(digestAlgo, responseApdu.getData());
 		}
+		return responseApdu.getData();
+	}
+
+	/**
+	 * Sign several digest values with the same key.
+	 * 
+	 * @see #signAll(List, BeIDDigest, FileType, boolean, String,
+	 *      BatchSigningListener)
+	 */
+	public List<byte[]> signAll(final List<byte[]> digestValues, final BeIDDigest digestAlgo, final FileType fileType,
+			final boolean requireSecureReader)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		return signAll(digestValues, digestAlgo, fileType, requireSecureReader, null, null);
+	}
+
+	/**
+	 * Sign several digest values with the same key, within a single exclusive
+	 * transaction. The key is selected at most once, and the PIN is verified once, when
+	 * the card first asks for it. The card requires a PIN verification for every
+	 * signature with the non-repudiation key, so for that key the PIN is verified
+	 * per digest value.
+	 * <p>
+	 * A digest value that the card refuses to sign does not end the batch. Its
+	 * signature is <code>null</code>, and the failure is reported to the
+	 * listener. PIN verification failures and communication errors do end the
+	 * batch.
+	 * 
+	 * @param digestValues        the digest values to be signed.
+	 * @param digestAlgo          the algorithm used to calculate the given digest
+	 *                            values.
+	 * @param fileType            the certificate's file type.
+	 * @param requireSecureReader <code>true</code> if a secure pinpad reader is
+	 *                            required.
+	 * @param applicationName     the optional application name.
+	 * @param listener            the optional listener to report progress to.
+	 * @return the signatures, in the order of the digest values.
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws UserCancelledException
+	 */
+	public List<byte[]> signAll(final List<byte[]> digestValues, final BeIDDigest digestAlgo, final FileType fileType,
+			final boolean requireSecureReader, final String applicationName, final BatchSigningListener listener)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		checkSigningParameters(digestAlgo, fileType, requireSecureReader);
+		final byte algorithmReference = digestAlgo.getAlgorithmReference();
+		final byte keyId = fileType.getKeyId();
+		final boolean nonRepudiation = FileType.NonRepudiationCertificate.getKeyId() == keyId;
+		final int count = digestValues.size();
+		final List<byte[]> signatures = new ArrayList<>(count);
 
 		this.beginExclusive();
 		notifySigningBegin(fileType);
 
 		try {
-			// select the key
-			this.logger.debug("selecting key...");
-
-			ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
-					new byte[] { (byte) 0x04, // length
-							// of
-							// following
-							// data
-							(byte) 0x80, digestAlgo.getAlgorithmReference(), // algorithm
-							// reference
-							(byte) 0x84, fileType.getKeyId(), }); // private key
-			// reference
-			if (0x9000 != responseApdu.getSW()) {
-				throw new ResponseAPDUException("SET (select algorithm and private key) error", responseApdu);
-			}
-
-			if (FileType.NonRepudiationCertificate.getKeyId() == fileType.getKeyId()) {
-				this.logger.debug("non-repudiation key detected, immediate PIN verify");
-				verifyPin(PINPurpose.NonRepudiationSignature, applicationName);
-			}
+			for (int index = 0; index < count; index++) {
+				if (Thread.currentThread().isInterrupted()) {
+					this.logger.debug("interrupted in signAll");
+					throw new InterruptedException();
+				}
+				if (nonRepudiation) {
+					selectAlgorithmAndPrivateKey(algorithmReference, keyId);
+					verifyPin(PINPurpose.NonRepudiationSignature, applicationName);
+				}
 
-			final ByteArrayOutputStream digestInfo = new ByteArrayOutputStream();
-			digestInfo.write(digestAlgo.getPrefix(digestValue.length));
-			digestInfo.write(digestValue);
+				final byte[] digestValue = digestValues.get(index);
+				final ByteArrayOutputStream digestInfo = new ByteArrayOutputStream();
+				digestInfo.write(digestAlgo.getPrefix(digestValue.length));
+				digestInfo.write(digestValue);
+
+				this.logger.debug("computing digital signature " + (index + 1) + "/" + count + "...");
+				ResponseAPDU responseApdu = transmitInSecurityEnvironment(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE,
+						digestInfo.toByteArray(), algorithmReference, keyId);
+				if (0x6982 == responseApdu.getSW()) {
+					this.logger.debug("PIN verification required...");
+					verifyPin(PINPurpose.fromFileType(fileType), applicationName);
+					responseApdu = transmitInSecurityEnvironment(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE,
+							digestInfo.toByteArray(), algorithmReference, keyId);
+				}
+				if (0x9000 != responseApdu.getSW()) {
+					this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
+					signatures.add(null);
+					if (null != listener) {
+						listener.signatureFailed(index, count,
+								new ResponseAPDUException("compute digital signature error", responseApdu));
+					}
+					continue;
+				}
 
-			this.logger.debug("computing digital signature...");
-			responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE, digestInfo.toByteArray());
-			if (0x9000 == responseApdu.getSW()) {
-				/*
-				 * OK, we could use the card PIN caching feature.
-				 * 
-				 * Notice that the card PIN caching also works when first doing an
-				 * authentication after a non-repudiation signature.
-				 */
 				if (digestAlgo.isEc()) {
-					return formatSignature(digestAlgo, responseApdu.getData());
+					signatures.add(formatSignature(digestAlgo, responseApdu.getData()));
+				} else {
+					signatures.add(responseApdu.getData());
+				}
+				if (null != listener) {
+					listener.signatureCreated(index, count);
 				}
-				return responseApdu.getData();
-			}
-			if (0x6982 != responseApdu.getSW()) {
-				this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
-				throw new ResponseAPDUException("compute digital signature error", responseApdu);
 			}
-			/*
-			 * 0x6982 = Security status not satisfied, so we do a PIN verification before
-			 * retrying.
-			 */
-			this.logger.debug("PIN verification required...");
-			verifyPin(PINPurpose.fromFileType(fileType), applicationName);
+			return signatures;
+		} finally {
+			this.endExclusive();
+			notifySigningEnd(fileType);
+		}
+	}
 
-			this.logger.debug("computing digital signature (attempt #2 after PIN verification)...");
-			responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE, digestInfo.toByteArray());
-			if (0x9000 != responseApdu.getSW()) {
-				throw new ResponseAPDUException("compute digital signature error", responseApdu);
-			}
+	private void checkSigningParameters(final BeIDDigest digestAlgo, final FileType fileType,
+			final boolean requireSecureReader) throws CardException {
+		if (!fileType.isCertificateUserCanSignWith()) {
+			throw new IllegalArgumentException("Not a certificate that can be used for signing: " + fileType.name());
+		}
 
+		if (this.isEC()) {
+			if (!digestAlgo.isEc()) {
+				throw new IllegalArgumentException("unsupported algorithm: " + digestAlgo);
+			}
+		} else {
 			if (digestAlgo.isEc()) {
-				return formatSignature(digestAlgo, responseApdu.getData());
+				throw new IllegalArgumentException("unsupported algorithm: " + digestAlgo);
 			}
-			return responseApdu.getData();
-		} finally {
-			this.endExclusive();
-			notifySigningEnd(fileType);
+		}
+
+		if (getCCID().hasFeature(CCID.FEATURE.EID_PIN_PAD_READER)) {
+			this.logger.debug("eID-aware secure PIN pad reader detected");
+		}
+
+		if (requireSecureReader && (!getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_DIRECT))
+				&& (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_START))) {
+			throw new SecurityException("not a secure reader");
 		}
 	}
 
+	/*
+	 * MSE SET: selects the algorithm and the private key for the next COMPUTE
+	 * DIGITAL SIGNATURE or INTERNAL AUTHENTICATE command. Skipped if the card
+	 * still has this algorithm and key selected from an earlier operation within
+	 * the same exclusive transaction. Gives back whether the MSE SET command was
+	 * sent.
+	 */
+	private boolean selectAlgorithmAndPrivateKey(final byte algorithmReference, final byte keyId)
+			throws CardException {
+		final int securityEnvironment = (algorithmReference & 0xff) << 8 | (keyId & 0xff);
+		if (securityEnvironment == this.securityEnvironment) {
+			this.logger.debug("key already selected");
+			return false;
+		}
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
+		this.logger.debug("selecting key...");
+		final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
+				new byte[] { (byte) 0x04, // length of following data
+						(byte) 0x80, algorithmReference, // algorithm reference
+						(byte) 0x84, keyId, }); // private key reference
+		if (0x9000 != responseApdu.getSW()) {
+			throw new ResponseAPDUException("SET (select algorithm and private key) error", responseApdu);
+		}
+		this.securityEnvironment = securityEnvironment;
+		return true;
+	}
+
+	/*
+	 * Transmits a command that uses the given algorithm and key, selecting them
+	 * first if needed. If the card rejects a command for which the MSE SET was
+	 * skipped, the key is selected again and the command is retried once. A 0x6982 response (PIN verification required) is left to the
+	 * caller.
+	 */
+	private ResponseAPDU transmitInSecurityEnvironment(final BeIDCommandAPDU apdu, final byte[] data,
+			final byte algorithmReference, final byte keyId) throws CardException {
+		final boolean selected = selectAlgorithmAndPrivateKey(algorithmReference, keyId);
+		final ResponseAPDU responseApdu = transmitCommand(apdu, data);
+		final int sw = responseApdu.getSW();
+		if (0x9000 == sw || 0x6982 == sw) {
+			return responseApdu;
+		}
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
+		if (selected) {
+			return responseApdu;
+		}
+		this.logger.debug("command rejected with remembered key selection, selecting key again");
+		selectAlgorithmAndPrivateKey(algorithmReference, keyId);
+		return transmitCommand(apdu, data);
+	}
+
 	/**
 	 * Create an authentication signature.
 	 * 
@@ -692,25 +1043,13 @@ public class BeIDCard {
 
 		this.beginExclusive();
 		try {
-			ResponseAPDU setResponseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
-					new byte[] { (byte) 0x04, // length
-							// of
-							// following
-							// data
-							(byte) 0x80, 0x02, // algorithm
-							// reference
-							(byte) 0x84, FileType.BasicPublic.getKeyId(), }); // private key
-			// reference
-			if (0x9000 != setResponseApdu.getSW()) {
-				throw new ResponseAPDUException("SET (select algorithm and private key) error", setResponseApdu);
-			}
-
 			byte[] data = new byte[challenge.length + 2];
 			data[0] = (byte) 0x94;
 			data[1] = (byte) challenge.length;
 			System.arraycopy(challenge, 0, data, 2, challenge.length);
 
-			ResponseAPDU intAuthnResponseApdu = transmitCommand(BeIDCommandAPDU.INTERNAL_AUTHENTICATE, data);
+			ResponseAPDU intAuthnResponseApdu = transmitInSecurityEnvironment(BeIDCommandAPDU.INTERNAL_AUTHENTICATE,
+					data, (byte) 0x02, FileType.BasicPublic.getKeyId());
 			if (0x9000 != intAuthnResponseApdu.getSW()) {
 				throw new RuntimeException(
 						"INTERNAL AUTHENTICATE failed: " + Integer.toHexString(intAuthnResponseApdu.getSW()));
@@ -883,6 +1222,7 @@ public class BeIDCard {
 	public BeIDCard logoff() throws Exception {
 		final CommandAPDU logoffApdu = new CommandAPDU(0x80, 0xE6, 0x00, 0x00);
 		this.logger.debug("logoff...");
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
 		final ResponseAPDU responseApdu = transmit(logoffApdu);
 		if (0x9000 != responseApdu.getSW()) {
 			throw new RuntimeException("logoff failed");
@@ -987,6 +1327,9 @@ public class BeIDCard {
 	public BeIDCard selectApplet() throws CardException {
 		ResponseAPDU responseApdu;
 
+		// selecting the applet resets the security environment
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
+
 		responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_APPLET, BELPIC_AID);
 		if (0x9000 != responseApdu.getSW()) {
 			this.logger.error("error selecting BELPIC");
@@ -1017,11 +1360,17 @@ public class BeIDCard {
 	/**
 	 * Begin an exclusive transaction with the card. Once this returns, only the
 	 * calling thread will be able to access the card, until it calls
-	 * endExclusive(). Other threads will receive a CardException. Use this when you
-	 * need to make several calls to the card that depend on each other. for
-	 * example, SELECT FILE and READ BINARY, or SELECT ALGORITHM and COMPUTE
-	 * SIGNATURE, to avoid other threads/processes from interleaving commands that
-	 * would break your transactional logic.
+	 * endExclusive(). Other threads using this BeIDCard instance wait until then.
+	 * Use this when you need to make several calls to the card that depend on each
+	 * other. for example, SELECT FILE and READ BINARY, or SELECT ALGORITHM and
+	 * COMPUTE SIGNATURE, to avoid other threads/processes from interleaving
+	 * commands that would break your transactional logic.
+	 * <p>
+	 * The calling thread may nest exclusive transactions, for example around
+	 * several calls of the high-level methods. The transaction with the card ends
+	 * with the outermost endExclusive(). Within one transaction, the key selected
+	 * for a signature is remembered, so that subsequent signatures with the same
+	 * key skip the MSE SET command.
 	 * 
 	 * Called automatically by the higher-level methods in this class. If you end up
 	 * calling this directly, this is either something wrong with your code, or with
@@ -1034,35 +1383,142 @@ public class BeIDCard {
 	 */
 	public BeIDCard beginExclusive() throws CardException {
 		this.logger.debug("---begin exclusive---");
-		if (this.exclusiveAccessThread != null) {
-			throw new IllegalStateException(
-					"Exclusive access already granted to " + this.exclusiveAccessThread.getName());
+		synchronized (this.exclusiveLock) {
+			if (Thread.currentThread() == this.exclusiveAccessThread) {
+				this.exclusiveDepth++;
+				return this;
+			}
+		}
+		final boolean foreground = beginForegroundSession();
+		try {
+			acquireExclusiveAccess();
+		} catch (final CardException | RuntimeException e) {
+			if (foreground) {
+				endForegroundSession();
+			}
+			throw e;
+		}
+		try {
+			this.card.beginExclusive();
+		} catch (final CardException | RuntimeException e) {
+			releaseExclusiveAccess();
+			if (foreground) {
+				endForegroundSession();
+			}
+			throw e;
 		}
-		this.card.beginExclusive();
-		this.exclusiveAccessThread = Thread.currentThread();
 		return this;
 	}
 
+	/*
+	 * Waits until no other thread has exclusive access to this BeIDCard.
+	 */
+	private void acquireExclusiveAccess() throws CardException {
+		final Thread currentThread = Thread.currentThread();
+		synchronized (this.exclusiveLock) {
+			while (null != this.exclusiveAccessThread) {
+				try {
+					this.exclusiveLock.wait();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new CardException("interrupted while waiting for exclusive access", e);
+				}
+			}
+			this.exclusiveAccessThread = currentThread;
+			this.exclusiveDepth = 1;
+		}
+	}
+
+	/*
+	 * Whether some thread has exclusive access to this BeIDCard, meaning that the
+	 * card connection is in use.
+	 */
+	boolean isInExclusiveUse() {
+		synchronized (this.exclusiveLock) {
+			return null != this.exclusiveAccessThread;
+		}
+	}
+
+	private void releaseExclusiveAccess() {
+		synchronized (this.exclusiveLock) {
+			this.exclusiveAccessThread = null;
+			this.exclusiveDepth = 0;
+			this.exclusiveLock.notifyAll();
+		}
+	}
+
 	/**
 	 * Release an exclusive transaction with the card, started by beginExclusive().
+	 * Ends the transaction with the card if this is the outermost one.
 	 * 
 	 * @return this BeIDCard Instance, to allow method chaining.
 	 * @throws CardException
 	 */
 	public BeIDCard endExclusive() throws CardException {
 		this.logger.debug("---end exclusive---");
-		if (Thread.currentThread() != this.exclusiveAccessThread) {
-			return this;
+		final Thread currentThread = Thread.currentThread();
+		synchronized (this.exclusiveLock) {
+			if (currentThread != this.exclusiveAccessThread) {
+				return this;
+			}
+			this.exclusiveDepth--;
+			if (this.exclusiveDepth > 0) {
+				return this;
+			}
 		}
+		this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
 		try {
-			this.exclusiveAccessThread = null;
 			this.card.endExclusive();
-		} catch (CardException e) {
-			this.logger.error("end exclusive failed: " + e.getMessage());
+		} finally {
+			releaseExclusiveAccess();
+			if (!isPrefetchThread(currentThread)) {
+				endForegroundSession();
+			}
 		}
 		return this;
 	}
 
+	/*
+	 * Any exclusive session, except for the ones of the prefetch thread, is a
+	 * foreground session. A foreground session waits for the file being
+	 * prefetched, if any, and holds off further prefetching until it ends.
+	 */
+	private boolean beginForegroundSession() {
+		synchronized (this.prefetchLock) {
+			if (Thread.currentThread() == this.prefetchThread) {
+				return false;
+			}
+			this.foregroundSessions++;
+			boolean interrupted = false;
+			while (null != this.prefetchThread) {
+				try {
+					this.prefetchLock.wait();
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		}
+	}
+
+	private void endForegroundSession() {
+		synchronized (this.prefetchLock) {
+			if (this.foregroundSessions > 0) {
+				this.foregroundSessions--;
+			}
+			this.prefetchLock.notifyAll();
+		}
+	}
+
+	private boolean isPrefetchThread(final Thread thread) {
+		synchronized (this.prefetchLock) {
+			return thread == this.prefetchThread;
+		}
+	}
+
 	// --------------------------------------------------------------------------------------------------------------------------------
 
 	/**
@@ -1070,6 +1526,9 @@ public class BeIDCard {
 	 * by a call to selectFile so the card knows what you want to read. Consider
 	 * using one of the higher-level methods, or readFile().
 	 * 
+	 * For DER encoded files, the length of the file is taken from the DER header
+	 * in the first block, and reading stops exactly at the end of the file.
+	 * 
 	 * @param fileType         the file to read (to allow for notification)
 	 * @param estimatedMaxSize the estimated total size of the file to read (to
 	 *                         allow for notification)
@@ -1080,39 +1539,129 @@ public class BeIDCard {
 	 */
 	public byte[] readBinary(final FileType fileType, final int estimatedMaxSize)
 			throws CardException, IOException, InterruptedException {
+		return readBinary(fileType, estimatedMaxSize, null);
+	}
+
+	/*
+	 * When given a file cache, a shared file is looked up by the content of its
+	 * first block, and only read further from the card on a miss.
+	 */
+	private byte[] readBinary(final FileType fileType, final int estimatedMaxSize,
+			final BeIDFileCache sharedFileCache) throws CardException, IOException, InterruptedException {
 		int offset = 0;
 		this.logger.debug("read binary");
-		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		byte[] data;
-		do {
+		final ReadBinaryStrategy readBinaryStrategy = getReadBinaryStrategy();
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(0, estimatedMaxSize));
+		byte[] file = null;
+		while (true) {
 			if (Thread.currentThread().isInterrupted()) {
 				this.logger.debug("interrupted in readBinary");
 				throw new InterruptedException();
 			}
 
 			notifyReadProgress(fileType, offset, estimatedMaxSize);
-			final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, offset >> 8, offset & 0xFF,
-					BLOCK_SIZE);
-			final int sw = responseApdu.getSW();
-			if (0x6B00 == sw) {
+			int maxLength = readBinaryStrategy.getBlockSize();
+			if (null != file) {
+				maxLength = Math.min(maxLength, file.length - offset);
+			}
+			final byte[] data = readBinaryBlock(readBinaryStrategy, offset, maxLength);
+			if (0 == data.length) {
 				/*
-				 * Wrong parameters (offset outside the EF) End of file reached. Can happen in
-				 * case the file size is a multiple of 0xff bytes.
+				 * End of file reached. Can happen in case the file size is a multiple of the
+				 * block size.
 				 */
 				break;
 			}
+			if (0 == offset && fileType.isDEREncoded()) {
+				final int fileLength = getDERLength(data);
+				if (-1 != fileLength) {
+					this.logger.debug("DER file length: " + fileLength);
+					file = new byte[fileLength];
+				}
+			}
+			if (0 == offset && null != sharedFileCache && null != file && data.length < file.length) {
+				final byte[] cachedFile = sharedFileCache.find(fileType, data);
+				if (null != cachedFile && cachedFile.length == file.length) {
+					this.logger.debug("shared file cache hit: " + fileType);
+					notifyReadProgress(fileType, cachedFile.length, cachedFile.length);
+					return cachedFile;
+				}
+			}
+			if (null != file) {
+				final int length = Math.min(data.length, file.length - offset);
+				System.arraycopy(data, 0, file, offset, length);
+				offset += length;
+				if (file.length == offset) {
+					break;
+				}
+			} else {
+				baos.write(data);
+				offset += data.length;
+			}
+			/*
+			 * Some readers return less than an extended-length Le asks for, so only a short
+			 * response to a short APDU marks the end of the file.
+			 */
+			if (!readBinaryStrategy.isExtendedLength()
+					&& data.length < Math.min(maxLength, readBinaryStrategy.getBlockSize())) {
+				break;
+			}
+		}
+		notifyReadProgress(fileType, offset, offset);
+		if (null != file) {
+			if (file.length != offset) {
+				this.logger.debug("DER file shorter than announced: " + offset);
+				return Arrays.copyOf(file, offset);
+			}
+			return file;
+		}
+		return baos.toByteArray();
+	}
 
+	/*
+	 * Reads at most maxLength bytes at the given offset of the currently selected
+	 * file, falling back to short length READ BINARY commands if the card or the
+	 * reader does not handle extended length. Returns an empty array past the end
+	 * of the file.
+	 */
+	private byte[] readBinaryBlock(final ReadBinaryStrategy readBinaryStrategy, final int offset,
+			final int maxLength) throws CardException, IOException {
+		while (true) {
+			final boolean extendedLength = readBinaryStrategy.isExtendedLength();
+			final int blockSize = Math.min(maxLength, readBinaryStrategy.getBlockSize());
+			final ResponseAPDU responseApdu;
+			try {
+				responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, offset >> 8, offset & 0xFF, blockSize);
+			} catch (final CardException e) {
+				if (!extendedLength) {
+					throw e;
+				}
+				readBinaryStrategy.extendedLengthFailed(e.getMessage());
+				continue;
+			}
+			final int sw = responseApdu.getSW();
+			if (extendedLength && (0x6700 == sw || 0x6D00 == sw || 0x6E00 == sw)) {
+				/*
+				 * Wrong length, or the extended-length encoding was not understood.
+				 */
+				readBinaryStrategy.extendedLengthFailed("SW " + Integer.toHexString(sw));
+				continue;
+			}
+			if (0x6B00 == sw) {
+				/*
+				 * Wrong parameters (offset outside the EF).
+				 */
+				return new byte[0];
+			}
 			if (0x9000 != sw) {
 				throw new IOException("BeIDCommandAPDU response error: " + responseApdu.getSW(),
 						new ResponseAPDUException(responseApdu));
 			}
-
-			data = responseApdu.getData();
-			baos.write(data);
-			offset += data.length;
-		} while (BLOCK_SIZE == data.length);
-		notifyReadProgress(fileType, offset, offset);
-		return baos.toByteArray();
+			if (extendedLength) {
+				readBinaryStrategy.extendedLengthSucceeded();
+			}
+			return responseApdu.getData();
+		}
 	}
 
 	/**
@@ -1133,11 +1682,8 @@ public class BeIDCard {
 			throw fnfEx;
 		}
 
-		try {
-			// SCARD_E_SHARING_VIOLATION fix
-			Thread.sleep(20);
-		} catch (final InterruptedException e) {
-			throw new RuntimeException("sleep error: " + e.getMessage());
+		if (getReaderQuirks().needsSelectFileDelay()) {
+			sleepAfterSelectFile();
 		}
 
 		return this;
@@ -1156,11 +1702,318 @@ public class BeIDCard {
 		this.beginExclusive();
 
 		try {
-			this.selectFile(fileType.getFileId());
-			return this.readBinary(fileType, fileType.getEstimatedMaxSize());
+			return readFileExclusive(fileType);
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	/**
+	 * Reads several files from the card, within a single exclusive transaction.
+	 * The files are read in the order of their location on the card. Listeners
+	 * receive read progress notifications per file.
+	 * 
+	 * @param fileTypes the files to read
+	 * @return an unmodifiable map of the data of the requested files
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public Map<FileType, byte[]> readFiles(final Set<FileType> fileTypes)
+			throws CardException, IOException, InterruptedException {
+		final List<FileType> orderedFileTypes = new ArrayList<>(fileTypes);
+		orderedFileTypes.sort(FILE_LOCATION_ORDER);
+		final Map<FileType, byte[]> files = new EnumMap<>(FileType.class);
+
+		this.beginExclusive();
+
+		try {
+			for (FileType fileType : orderedFileTypes) {
+				files.put(fileType, readFileExclusive(fileType));
+			}
 		} finally {
 			this.endExclusive();
 		}
+		return Collections.unmodifiableMap(files);
+	}
+
+	/**
+	 * Reads the given files ahead of time, so that subsequent readFile() calls on
+	 * this BeIDCard instance return without accessing the card. Immutable files
+	 * also end up in the file cache, if one is set. Meant to be called from a
+	 * background thread.
+	 * <p>
+	 * Prefetching has the lowest priority: it waits while other threads use the
+	 * card, and other threads wait at most for the file currently being
+	 * prefetched. Interrupt the prefetching thread to cancel.
+	 * 
+	 * @param fileTypes the files to read
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException when cancelled
+	 */
+	public void prefetchFiles(final Set<FileType> fileTypes)
+			throws CardException, IOException, InterruptedException {
+		final List<FileType> orderedFileTypes = new ArrayList<>(fileTypes);
+		orderedFileTypes.sort(FILE_LOCATION_ORDER);
+		for (FileType fileType : orderedFileTypes) {
+			synchronized (this.prefetchLock) {
+				while (this.foregroundSessions > 0) {
+					this.prefetchLock.wait();
+				}
+				if (this.prefetchedFiles.containsKey(fileType)) {
+					continue;
+				}
+				this.prefetchThread = Thread.currentThread();
+			}
+			try {
+				final byte[] data = readFile(fileType);
+				synchronized (this.prefetchLock) {
+					this.prefetchedFiles.put(fileType, data);
+				}
+				this.logger.debug("prefetched file: " + fileType);
+			} finally {
+				synchronized (this.prefetchLock) {
+					this.prefetchThread = null;
+					this.prefetchLock.notifyAll();
+				}
+			}
+			if (Thread.interrupted()) {
+				throw new InterruptedException("prefetch cancelled");
+			}
+		}
+	}
+
+	private byte[] readFileExclusive(final FileType fileType)
+			throws CardException, IOException, InterruptedException {
+		byte[] data = getStoredFileExclusive(fileType);
+		if (null != data) {
+			return data;
+		}
+		final BeIDFileCache fileCache = this.fileCache;
+		this.selectFile(fileType.getFileId());
+		data = this.readBinary(fileType, fileType.getEstimatedMaxSize(), fileType.isShared() ? fileCache : null);
+		if (null != fileCache && fileType.isImmutable()) {
+			fileCache.put(getCardId(), fileType, data);
+		}
+		return data;
+	}
+
+	// Gives back the file if it was prefetched or is in the file cache, null
+	// otherwise.
+	private byte[] getStoredFileExclusive(final FileType fileType) throws CardException, FileNotFoundException {
+		final byte[] prefetchedData;
+		synchronized (this.prefetchLock) {
+			prefetchedData = this.prefetchedFiles.get(fileType);
+		}
+		if (null != prefetchedData) {
+			this.logger.debug("prefetched file hit: " + fileType);
+			notifyReadProgress(fileType, prefetchedData.length, prefetchedData.length);
+			return prefetchedData.clone();
+		}
+		final BeIDFileCache fileCache = this.fileCache;
+		if (null == fileCache || !fileType.isImmutable()) {
+			return null;
+		}
+		final byte[] data = fileCache.get(getCardId(), fileType);
+		if (null != data) {
+			this.logger.debug("file cache hit: " + fileType);
+			notifyReadProgress(fileType, data.length, data.length);
+		}
+		return data;
+	}
+
+	/**
+	 * Opens a file on the card for streaming. Blocks are read from the card only
+	 * when the stream needs them, so that the first bytes of a large file are
+	 * available early, and can be passed on to a digest, a decoder or a socket
+	 * while the rest of the file is still being read. Skipping moves the READ
+	 * BINARY offset without reading the skipped bytes. Listeners receive read
+	 * progress notifications per block.
+	 * <p>
+	 * The returned stream holds an exclusive transaction on the card until it is
+	 * closed. As javax.smartcardio binds the transaction to the thread that
+	 * started it, the stream has to be read and closed on the thread that opened
+	 * it; other threads get an IllegalStateException. Files that were
+	 * prefetched or that are in the file cache are streamed from memory, without
+	 * holding the card.
+	 * 
+	 * @param fileType the file to read
+	 * @return the file contents, as an InputStream that is also a
+	 *         ReadableByteChannel.
+	 * @throws CardException
+	 * @throws IOException
+	 */
+	public BeIDFileInputStream openFile(final FileType fileType) throws CardException, IOException {
+		return openFile(fileType, Integer.MAX_VALUE);
+	}
+
+	private BeIDFileInputStream openFile(final FileType fileType, final int maxBlockLength)
+			throws CardException, IOException {
+		this.beginExclusive();
+		try {
+			final byte[] data = getStoredFileExclusive(fileType);
+			if (null != data) {
+				this.endExclusive();
+				return new BeIDFileInputStream(fileType, data);
+			}
+			this.selectFile(fileType.getFileId());
+			return new BeIDFileInputStream(this, fileType, maxBlockLength);
+		} catch (final CardException | IOException | RuntimeException e) {
+			this.endExclusive();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads part of a file from the card. Only the requested range is transferred,
+	 * which makes this cheaper than reading the whole file when only a few fields
+	 * at a known offset are needed.
+	 * 
+	 * @param fileType the file to read
+	 * @param offset   the offset of the first byte to read
+	 * @param length   the number of bytes to read
+	 * @return the requested bytes, fewer if the file ends before offset + length
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws IllegalArgumentException if the range extends beyond offset 0x7FFF,
+	 *                                  the largest offset READ BINARY can address
+	 */
+	public byte[] readFile(final FileType fileType, final int offset, final int length)
+			throws CardException, IOException {
+		if (offset < 0 || length < 0 || length > MAX_FILE_SIZE - offset) {
+			throw new IllegalArgumentException("invalid range: " + offset + ", " + length);
+		}
+		final byte[] data = new byte[length];
+		int count = 0;
+		try (BeIDFileInputStream inputStream = openFile(fileType, Math.max(1, length))) {
+			if (inputStream.skip(offset) == offset) {
+				while (count < length) {
+					final int result = inputStream.read(data, count, length - count);
+					if (-1 == result) {
+						break;
+					}
+					count += result;
+				}
+			}
+		}
+		if (count != length) {
+			return Arrays.copyOf(data, count);
+		}
+		return data;
+	}
+
+	/**
+	 * Reads the values of the given fields from a TLV encoded file, like
+	 * {@link FileType#Identity} or {@link FileType#Address}. Reading stops as
+	 * soon as all requested fields have been decoded, and the file is read in
+	 * small blocks, so that fields at the start of a file are available after
+	 * transferring only a fraction of it. Values of other fields are skipped
+	 * without being read where possible.
+	 * 
+	 * @param fileType the TLV encoded file to read
+	 * @param tags     the tags of the fields to read
+	 * @return the values of the requested fields that were found in the file, by
+	 *         tag
+	 * @throws CardException
+	 * @throws IOException
+	 */
+	public Map<Integer, byte[]> readFileFields(final FileType fileType, final int... tags)
+			throws CardException, IOException {
+		final Set<Integer> remainingTags = new HashSet<>();
+		for (int tag : tags) {
+			remainingTags.add(tag & 0xff);
+		}
+		final Map<Integer, byte[]> fields = new HashMap<>();
+		try (BeIDFileInputStream inputStream = openFile(fileType, TLV_BLOCK_SIZE)) {
+			while (!remainingTags.isEmpty()) {
+				final int tag = inputStream.read();
+				if (-1 == tag) {
+					break;
+				}
+				int lengthByte = inputStream.read();
+				if (-1 == lengthByte) {
+					break;
+				}
+				int length = lengthByte & 0x7f;
+				while ((lengthByte & 0x80) == 0x80) {
+					lengthByte = inputStream.read();
+					if (-1 == lengthByte) {
+						throw new IOException("truncated TLV length in " + fileType);
+					}
+					length = (length << 7) + (lengthByte & 0x7f);
+				}
+				if (!remainingTags.remove(tag)) {
+					if (inputStream.skip(length) != length) {
+						break;
+					}
+					continue;
+				}
+				final byte[] value = new byte[length];
+				int count = 0;
+				while (count < length) {
+					final int result = inputStream.read(value, count, length - count);
+					if (-1 == result) {
+						throw new IOException("truncated TLV value in " + fileType);
+					}
+					count += result;
+				}
+				fields.put(tag, value);
+			}
+		}
+		return fields;
+	}
+
+	/*
+	 * Reads a block of the file opened by openFile().
+	 */
+	byte[] readFileBlock(final FileType fileType, final int offset, final int maxLength,
+			final int estimatedMaxOffset) throws CardException, IOException {
+		notifyReadProgress(fileType, offset, estimatedMaxOffset);
+		return readBinaryBlock(getReadBinaryStrategy(), offset, maxLength);
+	}
+
+	/*
+	 * The maximum number of bytes returned by readFileBlock().
+	 */
+	int getReadBlockSize() {
+		return getReadBinaryStrategy().getBlockSize();
+	}
+
+	/*
+	 * Whether readFileBlock() uses extended-length READ BINARY commands, to which
+	 * readers may return less than asked for before the end of the file.
+	 */
+	boolean isExtendedLengthRead() {
+		return getReadBinaryStrategy().isExtendedLength();
+	}
+
+	/*
+	 * Notifies the end of the streaming of a file opened by openFile().
+	 */
+	void fileStreamEnded(final FileType fileType, final int offset) {
+		notifyReadProgress(fileType, offset, offset);
+	}
+
+	/**
+	 * Gives back an identifier of this card, composed of the ATR and the chip
+	 * serial number. The identifier is retrieved from the card only once per
+	 * BeIDCard instance.
+	 * 
+	 * @return the card identifier
+	 * @throws CardException
+	 * @throws FileNotFoundException
+	 */
+	public String getCardId() throws CardException, FileNotFoundException {
+		if (null == this.cardId) {
+			final byte[] cardData = getCardData();
+			if (cardData.length < CHIP_SERIAL_NUMBER_SIZE) {
+				throw new FileNotFoundException("card data too short: " + cardData.length);
+			}
+			final byte[] atr = this.card.getATR().getBytes();
+			this.cardId = toHex(atr, 0, atr.length) + "-" + toHex(cardData, 0, CHIP_SERIAL_NUMBER_SIZE);
+		}
+		return this.cardId;
 	}
 
 	/**
@@ -1273,17 +2126,35 @@ public class BeIDCard {
 			throw new CardException("Could not obtain response.");
 		}
 
-		ResponseAPDU responseApdu = this.cardChannel.transmit(commandApdu);
-		if (0x6c == responseApdu.getSW1()) {
+		ResponseAPDU responseApdu;
+		try {
+			responseApdu = this.cardChannel.transmit(commandApdu);
+		} catch (final CardException e) {
+			// the card may have been reset
+			this.securityEnvironment = NO_SECURITY_ENVIRONMENT;
+			final ReaderQuirks readerQuirks = getReaderQuirks();
+			if (readerQuirks.needsSelectFileDelay() || !ReaderQuirks.isSharingViolation(e)) {
+				throw e;
+			}
 			/*
-			 * A minimum delay of 10 msec between the answer ?????????6C xx????????? and the
-			 * next BeIDCommandAPDU is mandatory for eID v1.0 and v1.1 cards.
+			 * The card terminal needs the SCARD_E_SHARING_VIOLATION fix after all.
 			 */
-			this.logger.debug("sleeping...");
-			try {
-				Thread.sleep(10);
-			} catch (final InterruptedException e) {
-				throw new RuntimeException("cannot sleep");
+			readerQuirks.sharingViolationDetected();
+			sleepAfterSelectFile();
+			return transmit(commandApdu, attempt + 1);
+		}
+		if (0x6c == responseApdu.getSW1()) {
+			if (!isEC()) {
+				/*
+				 * A minimum delay of 10 msec between the answer ?????????6C xx????????? and the
+				 * next BeIDCommandAPDU is mandatory for eID v1.0 and v1.1 cards.
+				 */
+				this.logger.debug("sleeping...");
+				try {
+					Thread.sleep(10);
+				} catch (final InterruptedException e) {
+					throw new RuntimeException("cannot sleep");
+				}
 			}
 			CommandAPDU newCommandApdu = new CommandAPDU(commandApdu.getCLA(), commandApdu.getINS(),
 					commandApdu.getP1(), commandApdu.getP2(), commandApdu.getData(), responseApdu.getSW2());
@@ -1368,10 +2239,22 @@ public class BeIDCard {
 
 	private void verifyPin(final PINPurpose purpose, final String applicationName)
 			throws IOException, CardException, InterruptedException, UserCancelledException {
+		verifyPin(purpose, applicationName, null);
+	}
+
+	/*
+	 * As above, but first tries the given PIN code, obtained from the UI ahead of
+	 * time.
+	 */
+
+	private void verifyPin(final PINPurpose purpose, final String applicationName, final char[] pin)
+			throws IOException, CardException, InterruptedException, UserCancelledException {
 		ResponseAPDU responseApdu;
 		int retriesLeft = -1;
 		do {
-			if (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_DIRECT)) {
+			if (null != pin && -1 == retriesLeft) {
+				responseApdu = verifyPIN(pin);
+			} else if (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_DIRECT)) {
 				responseApdu = verifyPINViaCCIDDirect(retriesLeft, purpose, applicationName);
 			} else if (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_START)) {
 				responseApdu = verifyPINViaCCIDStartFinish(retriesLeft, purpose, applicationName);
@@ -1462,6 +2345,18 @@ public class BeIDCard {
 		if (windows) {
 			this.beginExclusive();
 		}
+		try {
+			return verifyPIN(pin);
+		} finally {
+			Arrays.fill(pin, (char) 0); // minimize exposure
+		}
+	}
+
+	/*
+	 * Verify the given PIN code using the VERIFY PIN command.
+	 */
+
+	private ResponseAPDU verifyPIN(final char[] pin) throws CardException {
 		final byte[] verifyData = new byte[] { (byte) (0x20 | pin.length), (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
 				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, };
 		for (int idx = 0; idx < pin.length; idx += 2) {
@@ -1475,7 +2370,6 @@ public class BeIDCard {
 			final byte value = (byte) (byte) ((digit1 - '0' << 4) + (digit2 - '0'));
 			verifyData[idx / 2 + 1] = value;
 		}
-		Arrays.fill(pin, (char) 0); // minimize exposure
 
 		this.logger.debug("verifying PIN...");
 		try {
@@ -1664,6 +2558,29 @@ public class BeIDCard {
 		return this.ccid;
 	}
 
+	private ReaderQuirks getReaderQuirks() {
+		if (this.readerQuirks == null) {
+			this.readerQuirks = new ReaderQuirks(this.cardTerminal, this.logger);
+		}
+		return this.readerQuirks;
+	}
+
+	private void sleepAfterSelectFile() {
+		try {
+			// SCARD_E_SHARING_VIOLATION fix
+			Thread.sleep(ReaderQuirks.SELECT_FILE_DELAY);
+		} catch (final InterruptedException e) {
+			throw new RuntimeException("sleep error: " + e.getMessage());
+		}
+	}
+
+	private ReadBinaryStrategy getReadBinaryStrategy() {
+		if (this.readBinaryStrategy == null) {
+			this.readBinaryStrategy = new ReadBinaryStrategy(this.card, this.cardTerminal, this.logger);
+		}
+		return this.readBinaryStrategy;
+	}
+
 	private BeIDCardUI getUI() {
 		if (this.ui == null) {
 			if (GraphicsEnvironment.isHeadless()) {
@@ -1705,6 +2622,36 @@ public class BeIDCard {
 		this.cardTerminal = cardTerminal;
 	}
 
+	/*
+	 * Gives back the total length of the DER SEQUENCE starting at the given data,
+	 * header included, or -1 if the data does not start with a SEQUENCE header.
+	 */
+	static int getDERLength(final byte[] data) {
+		if (data.length < 2 || 0x30 != data[0]) {
+			return -1;
+		}
+		final int length = data[1] & 0xff;
+		if (length < 0x80) {
+			return 2 + length;
+		}
+		if (0x81 == length && data.length >= 3) {
+			return 3 + (data[2] & 0xff);
+		}
+		if (0x82 == length && data.length >= 4) {
+			return 4 + ((data[2] & 0xff) << 8 | (data[3] & 0xff));
+		}
+		return -1;
+	}
+
+	private static String toHex(final byte[] data, final int offset, final int length) {
+		final StringBuilder hex = new StringBuilder(length * 2);
+		for (int idx = offset; idx < offset + length; idx++) {
+			hex.append(Character.forDigit((data[idx] >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(data[idx] & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
 	private byte[] formatSignature(BeIDDigest digest, byte[] rawSign) {
 		if (digest.isP1363()) {
 			return toP1363SignatureFormat(rawSign);
@@ -0,0 +1,363 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.event.BeIDCardEventsAdapter;
+import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
+import be.fedict.commons.eid.client.event.CardTerminalEventsAdapter;
+import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Captures the contents of BeID cards inserted in any number of card
+ * terminals, in parallel. Every card terminal gets its own worker thread, which
+ * reads a fixed set of files from each BeID card inserted in it, and publishes
+ * the result as a {@link CapturedCard} on a bounded output queue. When the
+ * queue is full, workers wait until the consumer catches up.
+ * <p>
+ * A BeIDCardCapture listens to a BeIDCardManager. Call {@link #start()} before
+ * starting the BeIDCardManager, so that cards already present are captured as
+ * well. The worker of a card terminal ends when the card terminal is detached.
+ */
+public class BeIDCardCapture {
+
+	/**
+	 * The files read from a single BeID card.
+	 */
+	public static class CapturedCard {
+
+		private final CardTerminal cardTerminal;
+		private final Map<FileType, byte[]> files;
+		private final long captureTime;
+		private final long captureDurationMillis;
+
+		CapturedCard(final CardTerminal cardTerminal, final Map<FileType, byte[]> files, final long captureTime,
+				final long captureDurationMillis) {
+			this.cardTerminal = cardTerminal;
+			this.files = files;
+			this.captureTime = captureTime;
+			this.captureDurationMillis = captureDurationMillis;
+		}
+
+		public CardTerminal getCardTerminal() {
+			return this.cardTerminal;
+		}
+
+		/**
+		 * @return an unmodifiable map of the captured files.
+		 */
+		public Map<FileType, byte[]> getFiles() {
+			return this.files;
+		}
+
+		public byte[] getFile(final FileType fileType) {
+			return this.files.get(fileType);
+		}
+
+		/**
+		 * @return the time at which the capture completed, in milliseconds since the
+		 *         epoch.
+		 */
+		public long getCaptureTime() {
+			return this.captureTime;
+		}
+
+		public long getCaptureDurationMillis() {
+			return this.captureDurationMillis;
+		}
+	}
+
+	/**
+	 * Throughput figures of a single card terminal. Instances returned by
+	 * {@link BeIDCardCapture#getStatistics()} are snapshots.
+	 */
+	public static class ReaderStatistics {
+
+		private int cardsCaptured;
+		private int captureFailures;
+		private long bytesRead;
+		private long captureNanos;
+
+		ReaderStatistics() {
+		}
+
+		ReaderStatistics(final ReaderStatistics statistics) {
+			this.cardsCaptured = statistics.cardsCaptured;
+			this.captureFailures = statistics.captureFailures;
+			this.bytesRead = statistics.bytesRead;
+			this.captureNanos = statistics.captureNanos;
+		}
+
+		public int getCardsCaptured() {
+			return this.cardsCaptured;
+		}
+
+		public int getCaptureFailures() {
+			return this.captureFailures;
+		}
+
+		public long getBytesRead() {
+			return this.bytesRead;
+		}
+
+		/**
+		 * @return the average time needed to capture a card, 0 if no card was
+		 *         captured yet.
+		 */
+		public long getAverageCaptureMillis() {
+			if (0 == this.cardsCaptured) {
+				return 0;
+			}
+			return TimeUnit.NANOSECONDS.toMillis(this.captureNanos / this.cardsCaptured);
+		}
+
+		/**
+		 * @return the number of bytes read per second of card access, 0 if no card
+		 *         was captured yet.
+		 */
+		public long getBytesPerSecond() {
+			if (0 == this.captureNanos) {
+				return 0;
+			}
+			return this.bytesRead * TimeUnit.SECONDS.toNanos(1) / this.captureNanos;
+		}
+	}
+
+	private final Logger logger;
+	private final BeIDCardManager cardManager;
+	private final Set<FileType> fileTypes;
+	private final BlockingQueue<CapturedCard> capturedCards;
+	private final Map<CardTerminal, ExecutorService> workers;
+	private final Map<CardTerminal, ReaderStatistics> statistics;
+	private final BeIDCardEventsListener listener;
+	private final CardTerminalEventsListener terminalListener;
+	private boolean stopped;
+
+	/**
+	 * @param logger        an instance of be.fedict.commons.eid.spi.Logger that
+	 *                      will be send all the logs
+	 * @param cardManager   the BeIDCardManager reporting the BeID cards to
+	 *                      capture.
+	 * @param fileTypes     the files to read from every card.
+	 * @param queueCapacity the maximum number of captured cards waiting to be
+	 *                      consumed.
+	 */
+	public BeIDCardCapture(final Logger logger, final BeIDCardManager cardManager, final Set<FileType> fileTypes,
+			final int queueCapacity) {
+		this.logger = logger;
+		this.cardManager = cardManager;
+		this.fileTypes = EnumSet.copyOf(fileTypes);
+		this.capturedCards = new ArrayBlockingQueue<>(queueCapacity);
+		this.workers = new HashMap<>();
+		this.statistics = new HashMap<>();
+		this.listener = new BeIDCardEventsAdapter() {
+			@Override
+			public void eIDCardInserted(final CardTerminal cardTerminal, final BeIDCard card) {
+				capture(cardTerminal, card);
+			}
+		};
+		this.terminalListener = new CardTerminalEventsAdapter() {
+			@Override
+			public void terminalDetached(final CardTerminal cardTerminal) {
+				final ExecutorService worker;
+				synchronized (BeIDCardCapture.this.workers) {
+					worker = BeIDCardCapture.this.workers.remove(cardTerminal);
+				}
+				if (null != worker) {
+					worker.shutdownNow();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Starts capturing the BeID cards reported by the BeIDCardManager.
+	 *
+	 * @return this BeIDCardCapture to allow for method chaining
+	 */
+	public BeIDCardCapture start() {
+		synchronized (this.workers) {
+			this.stopped = false;
+		}
+		this.cardManager.addCardTerminalListener(this.terminalListener);
+		this.cardManager.addBeIDCardEventListener(this.listener);
+		return this;
+	}
+
+	/**
+	 * Stops capturing. Captures in progress are cancelled. Captured cards that are
+	 * still on the output queue remain available.
+	 *
+	 * @return this BeIDCardCapture to allow for method chaining
+	 * @throws InterruptedException
+	 */
+	public BeIDCardCapture stop() throws InterruptedException {
+		this.cardManager.removeBeIDCardListener(this.listener);
+		this.cardManager.removeCardTerminalListener(this.terminalListener);
+		final Collection<ExecutorService> stoppedWorkers;
+		synchronized (this.workers) {
+			this.stopped = true;
+			stoppedWorkers = new ArrayList<>(this.workers.values());
+			this.workers.clear();
+		}
+		for (ExecutorService worker : stoppedWorkers) {
+			worker.shutdownNow();
+		}
+		for (ExecutorService worker : stoppedWorkers) {
+			worker.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		return this;
+	}
+
+	/**
+	 * Waits for the next captured card.
+	 *
+	 * @return the next captured card.
+	 * @throws InterruptedException
+	 */
+	public CapturedCard take() throws InterruptedException {
+		return this.capturedCards.take();
+	}
+
+	/**
+	 * Waits for the next captured card, at most for the given time.
+	 *
+	 * @return the next captured card, or <code>null</code> if none became
+	 *         available in time.
+	 * @throws InterruptedException
+	 */
+	public CapturedCard poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return this.capturedCards.poll(timeout, unit);
+	}
+
+	/**
+	 * Moves all captured cards that are available right away to the given
+	 * collection.
+	 *
+	 * @return the number of captured cards moved.
+	 */
+	public int drainTo(final Collection<? super CapturedCard> collection) {
+		return this.capturedCards.drainTo(collection);
+	}
+
+	/**
+	 * @return a snapshot of the throughput figures, by card terminal.
+	 */
+	public Map<CardTerminal, ReaderStatistics> getStatistics() {
+		final Map<CardTerminal, ReaderStatistics> snapshot = new HashMap<>();
+		synchronized (this.statistics) {
+			for (Map.Entry<CardTerminal, ReaderStatistics> entry : this.statistics.entrySet()) {
+				snapshot.put(entry.getKey(), new ReaderStatistics(entry.getValue()));
+			}
+		}
+		return snapshot;
+	}
+
+	private void capture(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
+		final ExecutorService worker;
+		synchronized (this.workers) {
+			if (this.stopped) {
+				this.logger.debug("capture stopped, card ignored");
+				return;
+			}
+			ExecutorService existingWorker = this.workers.get(cardTerminal);
+			if (null == existingWorker) {
+				existingWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "BeIDCard capture " + cardTerminal.getName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				this.workers.put(cardTerminal, existingWorker);
+			}
+			worker = existingWorker;
+		}
+		try {
+			worker.execute(new Runnable() {
+				@Override
+				public void run() {
+					captureCard(cardTerminal, beIDCard);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			this.logger.debug("capture stopped, card ignored");
+		}
+	}
+
+	private void captureCard(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
+		final long startTime = System.nanoTime();
+		final Map<FileType, byte[]> files;
+		try {
+			files = beIDCard.readFiles(this.fileTypes);
+		} catch (final InterruptedException e) {
+			this.logger.debug("capture cancelled");
+			return;
+		} catch (final Exception e) {
+			this.logger.error("capture failed on " + cardTerminal.getName() + ": " + e.getMessage());
+			synchronized (this.statistics) {
+				getReaderStatistics(cardTerminal).captureFailures++;
+			}
+			return;
+		}
+		final long captureNanos = System.nanoTime() - startTime;
+		long bytesRead = 0;
+		for (byte[] file : files.values()) {
+			bytesRead += file.length;
+		}
+		synchronized (this.statistics) {
+			final ReaderStatistics readerStatistics = getReaderStatistics(cardTerminal);
+			readerStatistics.cardsCaptured++;
+			readerStatistics.bytesRead += bytesRead;
+			readerStatistics.captureNanos += captureNanos;
+		}
+		try {
+			this.capturedCards.put(new CapturedCard(cardTerminal, files, System.currentTimeMillis(),
+					TimeUnit.NANOSECONDS.toMillis(captureNanos)));
+		} catch (final InterruptedException e) {
+			this.logger.debug("capture stopped, captured card dropped");
+		}
+	}
+
+	private ReaderStatistics getReaderStatistics(final CardTerminal cardTerminal) {
+		ReaderStatistics readerStatistics = this.statistics.get(cardTerminal);
+		if (null == readerStatistics) {
+			readerStatistics = new ReaderStatistics();
+			this.statistics.put(cardTerminal, readerStatistics);
+		}
+		return readerStatistics;
+	}
+}
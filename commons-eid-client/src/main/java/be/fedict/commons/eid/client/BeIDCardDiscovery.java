@@ -0,0 +1,377 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CardTerminals;
+
+import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
+import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
+import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Keeps track of the attached card terminals and the inserted BeID cards, using
+ * a CardAndTerminalManager and a BeIDCardManager. A BeIDCardDiscovery can be
+ * shared by several {@link BeIDCards} instances, so that they do not each have
+ * to start their own card detection thread and wait for it to initialize, and
+ * can look up cards that are already present right away.
+ * <p>
+ * A BeIDCardDiscovery is reference counted. It is created with one reference,
+ * every {@link #retain()} adds one, and every {@link #release()} removes one.
+ * When the last reference is released, card detection is stopped.
+ */
+public class BeIDCardDiscovery {
+
+	/**
+	 * Deadline value meaning: wait as long as it takes.
+	 */
+	static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	/**
+	 * A condition on the state of a BeIDCardDiscovery. Evaluated while holding the
+	 * lock of the BeIDCardDiscovery.
+	 */
+	interface StateCondition {
+		boolean isMet(BeIDCardDiscovery discovery);
+	}
+
+	private static BeIDCardDiscovery sharedInstance;
+
+	private final Logger logger;
+	private final CardAndTerminalManager cardAndTerminalManager;
+	private final BeIDCardManager cardManager;
+	private final Map<CardTerminal, BeIDCard> beIDTerminalsAndCards;
+	private final Set<CardTerminalEventsListener> cardTerminalEventsListeners;
+	private final Set<BeIDCardEventsListener> beIDCardEventsListeners;
+	private boolean terminalsInitialized, cardsInitialized;
+	private int cardTerminalsAttached;
+	private int references;
+
+	/**
+	 * a BeIDCardDiscovery without logging
+	 */
+	public BeIDCardDiscovery() {
+		this(new VoidLogger());
+	}
+
+	/**
+	 * a BeIDCardDiscovery logging to the supplied logger. Card detection starts
+	 * right away.
+	 *
+	 * @param logger an instance of be.fedict.commons.eid.spi.Logger that will be
+	 *               send all the logs
+	 */
+	public BeIDCardDiscovery(final Logger logger) {
+		this(logger, null);
+	}
+
+	/**
+	 * a BeIDCardDiscovery working on a specific CardTerminals instance, logging to
+	 * the supplied logger. Card detection starts right away.
+	 *
+	 * @param logger        an instance of be.fedict.commons.eid.spi.Logger that
+	 *                      will be send all the logs
+	 * @param cardTerminals instance to obtain terminal and card events from, or
+	 *                      <code>null</code> for the standard smartcardio
+	 *                      CardTerminals.
+	 */
+	public BeIDCardDiscovery(final Logger logger, final CardTerminals cardTerminals) {
+		this.logger = logger;
+		this.beIDTerminalsAndCards = new HashMap<>();
+		this.cardTerminalEventsListeners = new HashSet<>();
+		this.beIDCardEventsListeners = new HashSet<>();
+		this.references = 1;
+		this.cardAndTerminalManager = new CardAndTerminalManager(logger, cardTerminals);
+		this.cardAndTerminalManager.setProtocol(PROTOCOL.T0);
+		this.cardManager = new BeIDCardManager(logger, this.cardAndTerminalManager);
+
+		this.cardAndTerminalManager.addCardTerminalListener(new CardTerminalEventsListener() {
+
+			@Override
+			public void terminalEventsInitialized() {
+				for (CardTerminalEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.terminalsInitialized = true;
+					}
+				}, BeIDCardDiscovery.this.cardTerminalEventsListeners)) {
+					listener.terminalEventsInitialized();
+				}
+			}
+
+			@Override
+			public void terminalDetached(final CardTerminal cardTerminal) {
+				for (CardTerminalEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.cardTerminalsAttached--;
+					}
+				}, BeIDCardDiscovery.this.cardTerminalEventsListeners)) {
+					listener.terminalDetached(cardTerminal);
+				}
+			}
+
+			@Override
+			public void terminalAttached(final CardTerminal cardTerminal) {
+				for (CardTerminalEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.cardTerminalsAttached++;
+					}
+				}, BeIDCardDiscovery.this.cardTerminalEventsListeners)) {
+					listener.terminalAttached(cardTerminal);
+				}
+			}
+		});
+
+		this.cardManager.addBeIDCardEventListener(new BeIDCardEventsListener() {
+			@Override
+			public void eIDCardInserted(final CardTerminal cardTerminal, final BeIDCard card) {
+				for (BeIDCardEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.beIDTerminalsAndCards.put(cardTerminal, card);
+					}
+				}, BeIDCardDiscovery.this.beIDCardEventsListeners)) {
+					listener.eIDCardInserted(cardTerminal, card);
+				}
+			}
+
+			@Override
+			public void eIDCardRemoved(final CardTerminal cardTerminal, final BeIDCard card) {
+				for (BeIDCardEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.beIDTerminalsAndCards.remove(cardTerminal);
+					}
+				}, BeIDCardDiscovery.this.beIDCardEventsListeners)) {
+					listener.eIDCardRemoved(cardTerminal, card);
+				}
+			}
+
+			@Override
+			public void eIDCardEventsInitialized() {
+				for (BeIDCardEventsListener listener : update(new Runnable() {
+					@Override
+					public void run() {
+						BeIDCardDiscovery.this.cardsInitialized = true;
+					}
+				}, BeIDCardDiscovery.this.beIDCardEventsListeners)) {
+					listener.eIDCardEventsInitialized();
+				}
+			}
+		});
+
+		this.cardAndTerminalManager.start();
+	}
+
+	/**
+	 * Returns the process-wide BeIDCardDiscovery, creating it if needed, and adds
+	 * a reference to it. Call {@link #release()} when it is no longer needed.
+	 *
+	 * @param logger the logger to use if the shared BeIDCardDiscovery has to be
+	 *               created.
+	 * @return the shared BeIDCardDiscovery.
+	 */
+	public static BeIDCardDiscovery acquireShared(final Logger logger) {
+		synchronized (BeIDCardDiscovery.class) {
+			if (null != sharedInstance && sharedInstance.retainIfAlive()) {
+				return sharedInstance;
+			}
+			sharedInstance = new BeIDCardDiscovery(logger);
+			return sharedInstance;
+		}
+	}
+
+	/**
+	 * Adds a reference to this BeIDCardDiscovery.
+	 *
+	 * @return this BeIDCardDiscovery
+	 * @throws IllegalStateException if the last reference was already released.
+	 */
+	public BeIDCardDiscovery retain() {
+		if (!retainIfAlive()) {
+			throw new IllegalStateException("BeIDCardDiscovery already released");
+		}
+		return this;
+	}
+
+	private synchronized boolean retainIfAlive() {
+		if (0 == this.references) {
+			return false;
+		}
+		this.references++;
+		return true;
+	}
+
+	/**
+	 * Removes a reference to this BeIDCardDiscovery. Card detection is stopped
+	 * when the last reference is released.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void release() throws InterruptedException {
+		synchronized (this) {
+			if (0 == this.references) {
+				return;
+			}
+			this.references--;
+			if (this.references > 0) {
+				return;
+			}
+		}
+		this.logger.debug("stopping card discovery");
+		this.cardAndTerminalManager.stop();
+	}
+
+	/**
+	 * Adds a listener that is called after the state of this BeIDCardDiscovery has
+	 * been updated with a card terminal event.
+	 *
+	 * @param listener
+	 * @return this BeIDCardDiscovery
+	 */
+	public BeIDCardDiscovery addCardTerminalListener(final CardTerminalEventsListener listener) {
+		synchronized (this) {
+			this.cardTerminalEventsListeners.add(listener);
+		}
+		return this;
+	}
+
+	public BeIDCardDiscovery removeCardTerminalListener(final CardTerminalEventsListener listener) {
+		synchronized (this) {
+			this.cardTerminalEventsListeners.remove(listener);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a listener that is called after the state of this BeIDCardDiscovery has
+	 * been updated with a BeID card event.
+	 *
+	 * @param listener
+	 * @return this BeIDCardDiscovery
+	 */
+	public BeIDCardDiscovery addBeIDCardEventListener(final BeIDCardEventsListener listener) {
+		synchronized (this) {
+			this.beIDCardEventsListeners.add(listener);
+		}
+		return this;
+	}
+
+	public BeIDCardDiscovery removeBeIDCardEventListener(final BeIDCardEventsListener listener) {
+		synchronized (this) {
+			this.beIDCardEventsListeners.remove(listener);
+		}
+		return this;
+	}
+
+	public synchronized boolean isTerminalsInitialized() {
+		return this.terminalsInitialized;
+	}
+
+	public synchronized boolean isCardsInitialized() {
+		return this.cardsInitialized;
+	}
+
+	public synchronized int getCardTerminalsAttached() {
+		return this.cardTerminalsAttached;
+	}
+
+	/**
+	 * @return the BeID cards currently present, by card terminal.
+	 */
+	public synchronized Map<CardTerminal, BeIDCard> getBeIDCards() {
+		return new HashMap<>(this.beIDTerminalsAndCards);
+	}
+
+	/**
+	 * @param terminal if not null, only this terminal is considered.
+	 * @return true if a BeID card is currently present.
+	 */
+	public synchronized boolean hasBeIDCards(final CardTerminal terminal) {
+		if (null != terminal) {
+			return this.beIDTerminalsAndCards.containsKey(terminal);
+		}
+		return !this.beIDTerminalsAndCards.isEmpty();
+	}
+
+	/**
+	 * Replaces any BeIDCard instances that are in an unusable state, see
+	 * {@link BeIDCardManager#refreshCards()}.
+	 */
+	public void refreshCards() {
+		this.cardManager.refreshCards();
+	}
+
+	/**
+	 * Blocks until the given condition holds, or until the deadline has passed.
+	 * Every state change signals the waiting threads right away. Interrupts do not
+	 * end the wait, but the interrupted status of the thread is preserved.
+	 *
+	 * @param condition the condition to wait for.
+	 * @param deadline  the deadline, in {@link System#nanoTime()} terms, or
+	 *                  {@link #NO_DEADLINE}.
+	 * @return <code>true</code> if the condition holds, <code>false</code> if the
+	 *         deadline passed first.
+	 */
+	synchronized boolean awaitState(final StateCondition condition, final long deadline) {
+		boolean interrupted = false;
+		try {
+			while (!condition.isMet(this)) {
+				try {
+					if (NO_DEADLINE == deadline) {
+						this.wait();
+					} else {
+						final long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							return false;
+						}
+						TimeUnit.NANOSECONDS.timedWait(this, remaining);
+					}
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			return true;
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// applies the state change, wakes up waiting threads and returns the
+	// listeners to notify
+	private <T> Set<T> update(final Runnable stateChange, final Set<T> listeners) {
+		synchronized (this) {
+			stateChange.run();
+			this.notifyAll();
+			return new HashSet<>(listeners);
+		}
+	}
+}
@@ -20,12 +20,21 @@
 package be.fedict.commons.eid.client;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 import javax.smartcardio.ATR;
 import javax.smartcardio.Card;
@@ -35,8 +44,12 @@ import javax.smartcardio.CardTerminal;
 import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
 import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
 import be.fedict.commons.eid.client.event.CardEventsListener;
+import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.impl.ListenerDispatcher;
+import be.fedict.commons.eid.client.impl.ListenerDispatcher.EventType;
 import be.fedict.commons.eid.client.impl.LocaleManager;
 import be.fedict.commons.eid.client.impl.VoidLogger;
+import be.fedict.commons.eid.client.spi.BeIDFileCache;
 import be.fedict.commons.eid.client.spi.Logger;
 
 /**
@@ -76,6 +89,12 @@ public class BeIDCardManager {
 	private final Set<BeIDCardEventsListener> beIdListeners;
 	private final Set<CardEventsListener> otherCardListeners;
 	private final Logger logger;
+	private BeIDFileCache fileCache;
+	private ListenerDispatcher listenerDispatcher;
+	private Set<FileType> prefetchFileTypes;
+	private Executor prefetchExecutor;
+	private ExecutorService defaultPrefetchExecutor;
+	private final Map<CardTerminal, Future<?>> prefetches;
 
 	/**
 	 * Instantiate a BeIDCardManager with a default (void) logger and a private
@@ -130,6 +149,8 @@ public class BeIDCardManager {
 		this.beIdListeners = new HashSet<>();
 		this.otherCardListeners = new HashSet<>();
 		this.terminalsAndCards = new HashMap<>();
+		this.prefetchFileTypes = Collections.emptySet();
+		this.prefetches = new HashMap<>();
 
 		this.cardAndTerminalManager = cardAndTerminalManager;
 		this.terminalManagerIsPrivate = terminalManagerIsPrivate;
@@ -148,6 +169,7 @@ public class BeIDCardManager {
 						BeIDCardManager.this.terminalsAndCards.put(cardTerminal, beIDCard);
 					}
 
+					startPrefetch(cardTerminal, beIDCard);
 					notifyEIDCardInserted(cardTerminal, beIDCard);
 				} else {
 					logger.info("Other card inserted");
@@ -157,13 +179,14 @@ public class BeIDCardManager {
 						copyOfListeners = new HashSet<>(BeIDCardManager.this.otherCardListeners);
 					}
 
-					for (CardEventsListener listener : copyOfListeners) {
-						try {
-							listener.cardInserted(cardTerminal, card);
-						} catch (final Throwable thrownInListener) {
-							BeIDCardManager.this.logger.error("Exception thrown in CardEventsListener.cardInserted:"
-									+ thrownInListener.getMessage());
-						}
+					for (final CardEventsListener listener : copyOfListeners) {
+						callListener(listener, "CardEventsListener.cardInserted", EventType.CARD_INSERTED, cardTerminal,
+								new Runnable() {
+									@Override
+									public void run() {
+										listener.cardInserted(cardTerminal, card);
+									}
+								});
 					}
 				}
 			}
@@ -173,6 +196,8 @@ public class BeIDCardManager {
 				final BeIDCard beIDCard = BeIDCardManager.this.terminalsAndCards.get(cardTerminal);
 				if (beIDCard != null) {
 					logger.info("BeID card removed");
+					cancelPrefetch(cardTerminal);
+					beIDCard.cardRemoved();
 					beIDCard.close();
 					synchronized (BeIDCardManager.this.terminalsAndCards) {
 						BeIDCardManager.this.terminalsAndCards.remove(cardTerminal);
@@ -187,13 +212,14 @@ public class BeIDCardManager {
 						copyOfListeners = new HashSet<>(BeIDCardManager.this.otherCardListeners);
 					}
 
-					for (CardEventsListener listener : copyOfListeners) {
-						try {
-							listener.cardRemoved(cardTerminal);
-						} catch (final Throwable thrownInListener) {
-							BeIDCardManager.this.logger.error("Exception thrown in CardEventsListener.cardRemoved:"
-									+ thrownInListener.getMessage());
-						}
+					for (final CardEventsListener listener : copyOfListeners) {
+						callListener(listener, "CardEventsListener.cardRemoved", EventType.CARD_REMOVED, cardTerminal,
+								new Runnable() {
+									@Override
+									public void run() {
+										listener.cardRemoved(cardTerminal);
+									}
+								});
 					}
 				}
 			}
@@ -209,13 +235,13 @@ public class BeIDCardManager {
 					copyOfOtherCardEventsListeners = new HashSet<>(BeIDCardManager.this.otherCardListeners);
 				}
 
-				for (CardEventsListener listener : copyOfOtherCardEventsListeners) {
-					try {
-						listener.cardEventsInitialized();
-					} catch (final Throwable thrownInListener) {
-						BeIDCardManager.this.logger.error("Exception thrown in BeIDCardEventsListener.eIDCardInserted:"
-								+ thrownInListener.getMessage());
-					}
+				for (final CardEventsListener listener : copyOfOtherCardEventsListeners) {
+					callListener(listener, "CardEventsListener.cardEventsInitialized", new Runnable() {
+						@Override
+						public void run() {
+							listener.cardEventsInitialized();
+						}
+					});
 				}
 			}
 		});
@@ -264,6 +290,35 @@ public class BeIDCardManager {
 		synchronized (this.beIdListeners) {
 			this.beIdListeners.remove(listener);
 		}
+		if (null != this.listenerDispatcher) {
+			this.listenerDispatcher.removeListener(listener);
+		}
+		return this;
+	}
+
+	/**
+	 * add a CardTerminalEventsListener to be notified of card terminals being
+	 * attached and detached. Registered with the underlying
+	 * CardAndTerminalManager.
+	 * 
+	 * @param listener the CardTerminalEventsListener to notify about card terminal
+	 *                 attaches and detaches
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager addCardTerminalListener(final CardTerminalEventsListener listener) {
+		this.cardAndTerminalManager.addCardTerminalListener(listener);
+		return this;
+	}
+
+	/**
+	 * remove a CardTerminalEventsListener from being notified of card terminals
+	 * being attached and detached.
+	 * 
+	 * @param listener the CardTerminalEventsListener to stop notifying
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager removeCardTerminalListener(final CardTerminalEventsListener listener) {
+		this.cardAndTerminalManager.removeCardTerminalListener(listener);
 		return this;
 	}
 
@@ -302,6 +357,9 @@ public class BeIDCardManager {
 		synchronized (this.otherCardListeners) {
 			this.otherCardListeners.remove(listener);
 		}
+		if (null != this.listenerDispatcher) {
+			this.listenerDispatcher.removeListener(listener);
+		}
 		return this;
 	}
 
@@ -318,6 +376,19 @@ public class BeIDCardManager {
 		if (this.terminalManagerIsPrivate) {
 			this.cardAndTerminalManager.stop();
 		}
+		synchronized (this.prefetches) {
+			for (Future<?> prefetch : this.prefetches.values()) {
+				prefetch.cancel(true);
+			}
+			this.prefetches.clear();
+			if (null != this.defaultPrefetchExecutor) {
+				this.defaultPrefetchExecutor.shutdown();
+				if (this.prefetchExecutor == this.defaultPrefetchExecutor) {
+					this.prefetchExecutor = null;
+				}
+				this.defaultPrefetchExecutor = null;
+			}
+		}
 		return this;
 	}
 
@@ -352,6 +423,80 @@ public class BeIDCardManager {
 		return Arrays.equals(atrBytes, ATR_PATTERN);
 	}
 
+	/**
+	 * Set the file cache to be used by the BeIDCard instances created from now on.
+	 * On removal of a card, the file cache decides which of its files to keep, see
+	 * {@link BeIDFileCache#cardRemoved(String)}.
+	 * 
+	 * @param fileCache the file cache, or <code>null</code> to disable caching
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager setFileCache(final BeIDFileCache fileCache) {
+		this.fileCache = fileCache;
+		return this;
+	}
+
+	/**
+	 * Set the dispatcher used to call the registered BeIDCardEventsListeners and
+	 * CardEventsListeners. By default, or when passing <code>null</code>,
+	 * listeners are called directly from the card detection thread. With a
+	 * dispatcher, every listener receives its events in order via its own bounded
+	 * queue, so that a slow listener does not delay the others.
+	 * 
+	 * @param listenerDispatcher the dispatcher, or <code>null</code>.
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager setListenerDispatcher(final ListenerDispatcher listenerDispatcher) {
+		this.listenerDispatcher = listenerDispatcher;
+		return this;
+	}
+
+	/**
+	 * @return the dispatcher used to call the registered listeners, or
+	 *         <code>null</code> if they are called directly.
+	 */
+	public ListenerDispatcher getListenerDispatcher() {
+		return this.listenerDispatcher;
+	}
+
+	/**
+	 * Set the files to read in the background as soon as a BeID card is inserted,
+	 * before the BeIDCardEventsListeners are notified. Subsequent readFile() calls
+	 * for these files on the BeIDCard instance return without accessing the card.
+	 * Prefetching gives way to any foreground use of the card, such as signing or
+	 * PIN verification, and is cancelled when the card is removed.
+	 * 
+	 * @param prefetchFileTypes the files to prefetch, or an empty set (the
+	 *                          default) to disable prefetching
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager setPrefetchFileTypes(final Set<FileType> prefetchFileTypes) {
+		if (null == prefetchFileTypes || prefetchFileTypes.isEmpty()) {
+			this.prefetchFileTypes = Collections.emptySet();
+		} else {
+			this.prefetchFileTypes = Collections.unmodifiableSet(EnumSet.copyOf(prefetchFileTypes));
+		}
+		return this;
+	}
+
+	public Set<FileType> getPrefetchFileTypes() {
+		return this.prefetchFileTypes;
+	}
+
+	/**
+	 * Set the executor on which files are prefetched. By default, a pool of daemon
+	 * threads is used.
+	 * 
+	 * @param prefetchExecutor the executor
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager setPrefetchExecutor(final Executor prefetchExecutor) {
+		synchronized (this.prefetches) {
+			this.prefetchExecutor = prefetchExecutor;
+		}
+		return this;
+	}
+
 	public BeIDCardManager setLocale(Locale newLocale) {
 		LocaleManager.setLocale(newLocale);
 		return this;
@@ -363,22 +508,29 @@ public class BeIDCardManager {
 
 	/**
 	 * Refreshes the cached {@link BeIDCard}s, and replaces any instances that are
-	 * in an unusable state (SCARD_W_RESET_CARD).
+	 * in an unusable state (SCARD_W_RESET_CARD). Cards that some thread is using
+	 * at the time are left as they are.
 	 */
 	public void refreshCards() {
 		synchronized (this.terminalsAndCards) {
 			for (Entry<CardTerminal, BeIDCard> terminalsAndCard : this.terminalsAndCards.entrySet()) {
 				BeIDCard beIDCard = terminalsAndCard.getValue();
+				if (beIDCard.isInExclusiveUse()) {
+					// the card connection is in use, hence still valid
+					continue;
+				}
 				try {
 					beIDCard.beginExclusive();
 					beIDCard.endExclusive();
 				} catch (CardException e) {
 					this.logger.error("begin exclusive failed: " + e.getMessage() + " - replacing BeIDCard instance");
-					beIDCard.close();
 					CardTerminal cardTerminal = terminalsAndCard.getKey();
+					cancelPrefetch(cardTerminal);
+					beIDCard.close();
 					try {
 						BeIDCard newBeIDCard = createBeIDCard(cardTerminal, cardTerminal.connect("T=0"));
 						terminalsAndCard.setValue(newBeIDCard);
+						startPrefetch(cardTerminal, newBeIDCard);
 						notifyEIDCardInserted(cardTerminal, newBeIDCard);
 					} catch (CardException e1) {
 						this.logger.error("card refresh failed: " + e1.getMessage());
@@ -399,50 +551,135 @@ public class BeIDCardManager {
 		final BeIDCard beIDCard = new BeIDCard(card, BeIDCardManager.this.logger);
 		beIDCard.setCardTerminal(cardTerminal);
 		beIDCard.setLocale(LocaleManager.getLocale());
+		beIDCard.setFileCache(this.fileCache);
 		return beIDCard;
 	}
 
-	private void notifyEIDCardInserted(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
-		notifyBeIDCardEventsListener(new BeIDCardEventsListenerCallBack() {
-			@Override
-			public void call(BeIDCardEventsListener listener) {
-				listener.eIDCardInserted(cardTerminal, beIDCard);
+	private void startPrefetch(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
+		final Set<FileType> fileTypes = this.prefetchFileTypes;
+		if (fileTypes.isEmpty()) {
+			return;
+		}
+		synchronized (this.prefetches) {
+			if (null == this.prefetchExecutor) {
+				this.defaultPrefetchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "BeIDCard prefetch");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				this.prefetchExecutor = this.defaultPrefetchExecutor;
 			}
-		});
+			final FutureTask<Void> prefetch = new FutureTask<Void>(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						beIDCard.prefetchFiles(fileTypes);
+					} catch (final InterruptedException e) {
+						BeIDCardManager.this.logger.debug("prefetch cancelled");
+					} catch (final Exception e) {
+						BeIDCardManager.this.logger.error("prefetch failed: " + e.getMessage());
+					}
+				}
+			}, null) {
+				@Override
+				protected void done() {
+					synchronized (BeIDCardManager.this.prefetches) {
+						BeIDCardManager.this.prefetches.remove(cardTerminal, this);
+					}
+				}
+			};
+			this.prefetches.put(cardTerminal, prefetch);
+			try {
+				this.prefetchExecutor.execute(prefetch);
+			} catch (final RejectedExecutionException e) {
+				this.logger.error("prefetch rejected: " + e.getMessage());
+				prefetch.cancel(false);
+			}
+		}
+	}
+
+	private void cancelPrefetch(final CardTerminal cardTerminal) {
+		final Future<?> prefetch;
+		synchronized (this.prefetches) {
+			prefetch = this.prefetches.remove(cardTerminal);
+		}
+		if (null != prefetch) {
+			prefetch.cancel(true);
+		}
+	}
+
+	private void notifyEIDCardInserted(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
+		notifyBeIDCardEventsListener("BeIDCardEventsListener.eIDCardInserted", EventType.CARD_INSERTED, cardTerminal,
+				new BeIDCardEventsListenerCallBack() {
+					@Override
+					public void call(BeIDCardEventsListener listener) {
+						listener.eIDCardInserted(cardTerminal, beIDCard);
+					}
+				});
 	}
 
 	private void notifyEIDCardRemoved(final CardTerminal cardTerminal, final BeIDCard beIDCard) {
-		notifyBeIDCardEventsListener(new BeIDCardEventsListenerCallBack() {
-			@Override
-			public void call(BeIDCardEventsListener listener) {
-				listener.eIDCardRemoved(cardTerminal, beIDCard);
-			}
-		});
+		notifyBeIDCardEventsListener("BeIDCardEventsListener.eIDCardRemoved", EventType.CARD_REMOVED, cardTerminal,
+				new BeIDCardEventsListenerCallBack() {
+					@Override
+					public void call(BeIDCardEventsListener listener) {
+						listener.eIDCardRemoved(cardTerminal, beIDCard);
+					}
+				});
 	}
 
 	private void notifyEIDCardEventsInitialized() {
-		notifyBeIDCardEventsListener(new BeIDCardEventsListenerCallBack() {
-			@Override
-			public void call(BeIDCardEventsListener listener) {
-				listener.eIDCardEventsInitialized();
-			}
-		});
+		notifyBeIDCardEventsListener("BeIDCardEventsListener.eIDCardEventsInitialized",
+				new BeIDCardEventsListenerCallBack() {
+					@Override
+					public void call(BeIDCardEventsListener listener) {
+						listener.eIDCardEventsInitialized();
+					}
+				});
+	}
+
+	private void notifyBeIDCardEventsListener(final String name, final BeIDCardEventsListenerCallBack callBack) {
+		notifyBeIDCardEventsListener(name, null, null, callBack);
 	}
 
-	private void notifyBeIDCardEventsListener(final BeIDCardEventsListenerCallBack callBack) {
+	private void notifyBeIDCardEventsListener(final String name, final EventType eventType,
+			final CardTerminal cardTerminal, final BeIDCardEventsListenerCallBack callBack) {
 		final Set<BeIDCardEventsListener> copyOfListeners;
 
 		synchronized (BeIDCardManager.this.beIdListeners) {
 			copyOfListeners = new HashSet<>(BeIDCardManager.this.beIdListeners);
 		}
 
-		for (BeIDCardEventsListener listener : copyOfListeners) {
-			try {
-				callBack.call(listener);
-			} catch (final Throwable thrownInListener) {
-				BeIDCardManager.this.logger.error(
-						"Exception thrown in BeIDCardEventsListener.eIDCardInserted:" + thrownInListener.getMessage());
-			}
+		for (final BeIDCardEventsListener listener : copyOfListeners) {
+			callListener(listener, name, eventType, cardTerminal, new Runnable() {
+				@Override
+				public void run() {
+					callBack.call(listener);
+				}
+			});
+		}
+	}
+
+	// Calls the listener right away, or via the listener dispatcher if one is
+	// set.
+	private void callListener(final Object listener, final String name, final Runnable callback) {
+		callListener(listener, name, null, null, callback);
+	}
+
+	private void callListener(final Object listener, final String name, final EventType eventType,
+			final CardTerminal cardTerminal, final Runnable callback) {
+		final ListenerDispatcher dispatcher = this.listenerDispatcher;
+		if (null != dispatcher) {
+			dispatcher.dispatch(listener, name, eventType, cardTerminal, callback);
+			return;
+		}
+		try {
+			callback.run();
+		} catch (final Throwable thrownInListener) {
+			this.logger.error("Exception thrown in " + name + ":" + thrownInListener.getMessage());
 		}
 	}
 
@@ -19,22 +19,20 @@
 
 package be.fedict.commons.eid.client;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.smartcardio.CardTerminal;
 
-import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
 import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
-import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
 import be.fedict.commons.eid.client.impl.LocaleManager;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.BeIDCardsUI;
 import be.fedict.commons.eid.client.spi.Logger;
-import be.fedict.commons.eid.client.spi.Sleeper;
 
 /**
  * BeIDCards is a synchronous approach to Belgian Identity Cards and their
@@ -61,14 +59,10 @@ public class BeIDCards {
 	private static final String DEFAULT_UI_IMPLEMENTATION = "be.fedict.commons.eid.dialogs.DefaultBeIDCardsUI";
 
 	private final Logger logger;
-	private final CardAndTerminalManager cardAndTerminalManager;
-	private final BeIDCardManager cardManager;
-	private boolean terminalsInitialized, cardsInitialized, uiSelectingCard;
-	private final Map<CardTerminal, BeIDCard> beIDTerminalsAndCards;
-	private final Sleeper terminalManagerInitSleeper, cardTerminalSleeper;
-	private final Sleeper cardManagerInitSleeper, beIDSleeper;
+	private final BeIDCardDiscovery discovery;
+	private final BeIDCardEventsListener beIDCardEventsListener;
+	private volatile boolean uiSelectingCard;
 	private BeIDCardsUI ui;
-	private int cardTerminalsAttached;
 
 	/**
 	 * a BeIDCards without logging, using the default BeIDCardsUI
@@ -113,44 +107,39 @@ public class BeIDCards {
 	 *               instances.
 	 */
 	public BeIDCards(final Logger logger, final BeIDCardsUI ui) {
+		this(logger, ui, new BeIDCardDiscovery(logger), false);
+	}
+
+	/**
+	 * a BeIDCards logging to logger, using the supplied BeIDCardsUI, and looking
+	 * up cards via the given (possibly shared) BeIDCardDiscovery. Cards that are
+	 * already known to the BeIDCardDiscovery are available right away. The
+	 * BeIDCards holds a reference to the BeIDCardDiscovery until close() is
+	 * called.
+	 * 
+	 * @param logger    an instance of be.fedict.commons.eid.spi.Logger that will
+	 *                  be send all the logs
+	 * @param ui        an instance of be.fedict.commons.eid.client.spi.BeIDCardsUI
+	 *                  that will be called upon for any user interaction required
+	 *                  to handle other calls.
+	 * @param discovery the BeIDCardDiscovery, for example the one returned by
+	 *                  {@link BeIDCardDiscovery#acquireShared(Logger)}.
+	 */
+	public BeIDCards(final Logger logger, final BeIDCardsUI ui, final BeIDCardDiscovery discovery) {
+		this(logger, ui, discovery, true);
+	}
+
+	private BeIDCards(final Logger logger, final BeIDCardsUI ui, final BeIDCardDiscovery discovery,
+			final boolean retain) {
 
 		this.logger = logger;
-		this.cardAndTerminalManager = new CardAndTerminalManager(logger);
-		this.cardAndTerminalManager.setProtocol(PROTOCOL.T0);
-		this.cardManager = new BeIDCardManager(logger, this.cardAndTerminalManager);
-		this.terminalManagerInitSleeper = new Sleeper();
-		this.cardManagerInitSleeper = new Sleeper();
-		this.cardTerminalSleeper = new Sleeper();
-		this.beIDSleeper = new Sleeper();
-		this.beIDTerminalsAndCards = new HashMap<>();
-		this.terminalsInitialized = false;
-		this.cardsInitialized = false;
+		this.discovery = retain ? discovery.retain() : discovery;
 		this.uiSelectingCard = false;
 		setUI(ui);
 
-		this.cardAndTerminalManager.addCardTerminalListener(new CardTerminalEventsListener() {
-
-			@Override
-			public void terminalEventsInitialized() {
-				BeIDCards.this.terminalsInitialized = true;
-				BeIDCards.this.terminalManagerInitSleeper.awaken();
-			}
-
-			@Override
-			public void terminalDetached(CardTerminal cardTerminal) {
-				BeIDCards.this.cardTerminalsAttached--;
-				BeIDCards.this.cardTerminalSleeper.awaken();
-
-			}
-
-			@Override
-			public void terminalAttached(CardTerminal cardTerminal) {
-				BeIDCards.this.cardTerminalsAttached++;
-				BeIDCards.this.cardTerminalSleeper.awaken();
-			}
-		});
-
-		this.cardManager.addBeIDCardEventListener(new BeIDCardEventsListener() {
+		// waiting callers are woken up by the BeIDCardDiscovery itself, we only
+		// need to keep the UI informed during card selection
+		this.beIDCardEventsListener = new BeIDCardEventsListener() {
 			@Override
 			public void eIDCardInserted(final CardTerminal cardTerminal, final BeIDCard card) {
 				BeIDCards.this.logger.debug("eID Card Insertion Reported");
@@ -162,11 +151,6 @@ public class BeIDCards {
 						BeIDCards.this.logger.error("Exception in UI:eIDCardInserted" + ex.getMessage());
 					}
 				}
-
-				synchronized (BeIDCards.this.beIDTerminalsAndCards) {
-					BeIDCards.this.beIDTerminalsAndCards.put(cardTerminal, card);
-					BeIDCards.this.beIDSleeper.awaken();
-				}
 			}
 
 			@Override
@@ -180,22 +164,15 @@ public class BeIDCards {
 						BeIDCards.this.logger.error("Exception in UI:eIDCardRemoved" + ex.getMessage());
 					}
 				}
-
-				synchronized (BeIDCards.this.beIDTerminalsAndCards) {
-					BeIDCards.this.beIDTerminalsAndCards.remove(cardTerminal);
-					BeIDCards.this.beIDSleeper.awaken();
-				}
 			}
 
 			@Override
 			public void eIDCardEventsInitialized() {
 				BeIDCards.this.logger.debug("eIDCardEventsInitialized");
-				BeIDCards.this.cardsInitialized = true;
-				BeIDCards.this.cardManagerInitSleeper.awaken();
 			}
-		});
+		};
 
-		this.cardAndTerminalManager.start();
+		this.discovery.addBeIDCardEventListener(this.beIDCardEventsListener);
 	}
 
 	/**
@@ -219,15 +196,7 @@ public class BeIDCards {
 	 */
 	public boolean hasBeIDCards(CardTerminal terminal) {
 		waitUntilCardsInitialized();
-		boolean has;
-
-		synchronized (this.beIDTerminalsAndCards) {
-			if (terminal != null) {
-				has = this.beIDTerminalsAndCards.containsKey(terminal);
-			} else {
-				has = !this.beIDTerminalsAndCards.isEmpty();
-			}
-		}
+		final boolean has = this.discovery.hasBeIDCards(terminal);
 		this.logger.debug("hasBeIDCards returns " + has);
 		return has;
 	}
@@ -241,10 +210,8 @@ public class BeIDCards {
 	public Set<BeIDCard> getAllBeIDCards() {
 		waitUntilCardsInitialized();
 
-		synchronized (this.beIDTerminalsAndCards) {
-			this.cardManager.refreshCards();
-			return new HashSet<>(this.beIDTerminalsAndCards.values());
-		}
+		this.discovery.refreshCards();
+		return new HashSet<>(this.discovery.getBeIDCards().values());
 	}
 
 	/**
@@ -284,22 +251,49 @@ public class BeIDCards {
 	 * @throws CancelledException
 	 */
 	public BeIDCard getOneBeIDCard(CardTerminal terminal) throws CancelledException {
+		try {
+			return getOneBeIDCard(terminal, BeIDCardDiscovery.NO_DEADLINE);
+		} catch (final TimeoutException e) {
+			// cannot happen without a deadline
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * return a BeID Card inserted into a given CardTerminal, waiting at most the
+	 * given time for a card terminal and a BeID card to become available. The
+	 * caller is released as soon as the card is detected. Time spent by the user
+	 * selecting between several cards is not limited.
+	 * 
+	 * @param terminal if not null, only BeID Cards in this particular CardTerminal
+	 *                 will be considered.
+	 * @param timeout  the maximum time to wait.
+	 * @param unit     the unit of the timeout.
+	 * @return a BeIDCard instance. The only one present, or one chosen out of
+	 *         several by the user
+	 * @throws CancelledException
+	 * @throws TimeoutException   if no BeID card became available in time.
+	 */
+	public BeIDCard getOneBeIDCard(CardTerminal terminal, long timeout, TimeUnit unit)
+			throws CancelledException, TimeoutException {
+		return getOneBeIDCard(terminal, System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	private BeIDCard getOneBeIDCard(CardTerminal terminal, long deadline)
+			throws CancelledException, TimeoutException {
 		BeIDCard selectedCard = null;
 
 		do {
-			waitForAtLeastOneCardTerminal();
-			waitForAtLeastOneBeIDCard(terminal);
+			waitForAtLeastOneCardTerminal(deadline);
+			waitForAtLeastOneBeIDCard(terminal, deadline);
 
 			// copy current list of BeID Cards to avoid holding a lock on it
 			// during possible selectBeIDCard dialog.
 			// (because we'd deadlock when user inserts/removes a card while
 			// selectBeIDCard has not returned)
 
-			Map<CardTerminal, BeIDCard> currentBeIDCards;
-			synchronized (this.beIDTerminalsAndCards) {
-				this.cardManager.refreshCards();
-				currentBeIDCards = new HashMap<>(this.beIDTerminalsAndCards);
-			}
+			this.discovery.refreshCards();
+			final Map<CardTerminal, BeIDCard> currentBeIDCards = this.discovery.getBeIDCards();
 
 			if (terminal != null) {
 				// if selecting by terminal, and we have a card in the requested
@@ -342,12 +336,41 @@ public class BeIDCards {
 	 * @return this BeIDCards instance to allow for method chaining
 	 */
 	public BeIDCards waitUntilCardRemoved(final BeIDCard card) {
+		try {
+			return waitUntilCardRemoved(card, BeIDCardDiscovery.NO_DEADLINE);
+		} catch (final TimeoutException e) {
+			// cannot happen without a deadline
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * wait at most the given time for a particular BeID card to be removed. See
+	 * {@link #waitUntilCardRemoved(BeIDCard)}.
+	 * 
+	 * @param card
+	 * @param timeout the maximum time to wait.
+	 * @param unit    the unit of the timeout.
+	 * @return this BeIDCards instance to allow for method chaining
+	 * @throws TimeoutException if the card was not removed in time.
+	 */
+	public BeIDCards waitUntilCardRemoved(final BeIDCard card, long timeout, TimeUnit unit)
+			throws TimeoutException {
+		return waitUntilCardRemoved(card, System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	private BeIDCards waitUntilCardRemoved(final BeIDCard card, final long deadline) throws TimeoutException {
 		if (this.getAllBeIDCards().contains(card)) {
 			try {
 				this.logger.debug("waitUntilCardRemoved blocking until card removed");
 				this.getUI().adviseBeIDCardRemovalRequired();
-				while (this.getAllBeIDCards().contains(card)) {
-					this.beIDSleeper.sleepUntilAwakened();
+				if (!this.discovery.awaitState(new BeIDCardDiscovery.StateCondition() {
+					@Override
+					public boolean isMet(final BeIDCardDiscovery discovery) {
+						return !discovery.getBeIDCards().containsValue(card);
+					}
+				}, deadline)) {
+					throw new TimeoutException("eID card not removed in time");
 				}
 			} finally {
 				this.getUI().adviseEnd();
@@ -359,17 +382,20 @@ public class BeIDCards {
 
 	public boolean hasCardTerminals() {
 		waitUntilTerminalsInitialized();
-		return this.cardTerminalsAttached > 0;
+		return this.discovery.getCardTerminalsAttached() > 0;
 	}
 
 	/**
-	 * call close() if you no longer need this BeIDCards instance.
+	 * call close() if you no longer need this BeIDCards instance. This releases
+	 * the reference to the BeIDCardDiscovery. The BeIDCard instances obtained via
+	 * a shared BeIDCardDiscovery remain usable.
 	 * 
 	 * @return this
 	 * @throws InterruptedException
 	 */
 	public BeIDCards close() throws InterruptedException {
-		this.cardAndTerminalManager.stop();
+		this.discovery.removeBeIDCardEventListener(this.beIDCardEventsListener);
+		this.discovery.release();
 		return this;
 	}
 
@@ -387,11 +413,8 @@ public class BeIDCards {
 	public BeIDCards setLocale(Locale newLocale) {
 		LocaleManager.setLocale(newLocale);
 
-		synchronized (this.beIDTerminalsAndCards) {
-
-			for (BeIDCard card : this.beIDTerminalsAndCards.values()) {
-				card.setLocale(newLocale);
-			}
+		for (BeIDCard card : this.discovery.getBeIDCards().values()) {
+			card.setLocale(newLocale);
 		}
 
 		return this;
@@ -432,59 +455,104 @@ public class BeIDCards {
 	}
 
 	private void waitUntilCardsInitialized() {
-		while (!this.cardsInitialized) {
+		try {
+			waitUntilCardsInitialized(BeIDCardDiscovery.NO_DEADLINE);
+		} catch (final TimeoutException e) {
+			// cannot happen without a deadline
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void waitUntilTerminalsInitialized() {
+		try {
+			waitUntilTerminalsInitialized(BeIDCardDiscovery.NO_DEADLINE);
+		} catch (final TimeoutException e) {
+			// cannot happen without a deadline
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void waitUntilCardsInitialized(final long deadline) throws TimeoutException {
+		if (!this.discovery.isCardsInitialized()) {
 			this.logger.debug("Waiting for CardAndTerminalManager Cards initialisation");
-			this.cardManagerInitSleeper.sleepUntilAwakened();
+			awaitState(new BeIDCardDiscovery.StateCondition() {
+				@Override
+				public boolean isMet(final BeIDCardDiscovery discovery) {
+					return discovery.isCardsInitialized();
+				}
+			}, deadline, "cards not initialized in time");
 			this.logger.debug("CardAndTerminalManager now has cards initialized");
 		}
 	}
 
-	private void waitUntilTerminalsInitialized() {
-		while (!this.terminalsInitialized) {
+	private void waitUntilTerminalsInitialized(final long deadline) throws TimeoutException {
+		if (!this.discovery.isTerminalsInitialized()) {
 			this.logger.debug("Waiting for CardAndTerminalManager Terminals initialisation");
-			this.terminalManagerInitSleeper.sleepUntilAwakened();
+			awaitState(new BeIDCardDiscovery.StateCondition() {
+				@Override
+				public boolean isMet(final BeIDCardDiscovery discovery) {
+					return discovery.isTerminalsInitialized();
+				}
+			}, deadline, "card terminals not initialized in time");
 			this.logger.debug("CardAndTerminalManager now has terminals initialized");
 		}
 	}
 
-	private void waitForAtLeastOneBeIDCard(CardTerminal terminal) throws CancelledException {
+	private void waitForAtLeastOneBeIDCard(final CardTerminal terminal, final long deadline)
+			throws CancelledException, TimeoutException {
+		waitUntilCardsInitialized(deadline);
 		if (!this.hasBeIDCards(terminal)) {
 			try {
 				this.getUI().adviseBeIDCardRequired();
-				while (!this.hasBeIDCards(terminal)) {
-					this.beIDSleeper.sleepUntilAwakened();
-				}
+				awaitState(new BeIDCardDiscovery.StateCondition() {
+					@Override
+					public boolean isMet(final BeIDCardDiscovery discovery) {
+						return discovery.hasBeIDCards(terminal);
+					}
+				}, deadline, "no eID card inserted in time");
 			} finally {
 				this.getUI().adviseEnd();
 			}
 		}
 	}
 
-	private void waitForAtLeastOneCardTerminal() {
+	private void waitForAtLeastOneCardTerminal(final long deadline) throws TimeoutException {
+		waitUntilTerminalsInitialized(deadline);
 		if (!this.hasCardTerminals()) {
 			try {
 				this.getUI().adviseCardTerminalRequired();
-				while (!this.hasCardTerminals()) {
-					this.cardTerminalSleeper.sleepUntilAwakened();
-				}
+				awaitState(new BeIDCardDiscovery.StateCondition() {
+					@Override
+					public boolean isMet(final BeIDCardDiscovery discovery) {
+						return discovery.getCardTerminalsAttached() > 0;
+					}
+				}, deadline, "no card terminal attached in time");
 			} finally {
 				this.getUI().adviseEnd();
 			}
 
-			// if we just found our first CardTerminal, give us 100ms
+			// if we just found our first CardTerminal, give us up to 100ms
 			// to get notified about any eID cards that may already present in
-			// that CardTerminal
-			// we'll get notified about any cards much faster than 100ms,
-			// and worst case, 100ms is not noticeable. Better than calling
-			// adviseBeIDCardRequired and adviseEnd
-			// with a few seconds in between.
-			if (!this.hasBeIDCards()) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					// intentionally empty
-				}
+			// that CardTerminal. Better than calling adviseBeIDCardRequired and
+			// adviseEnd with a few seconds in between. We're woken up as soon
+			// as a card shows up.
+			long graceDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+			if (BeIDCardDiscovery.NO_DEADLINE != deadline && deadline - graceDeadline < 0) {
+				graceDeadline = deadline;
 			}
+			this.discovery.awaitState(new BeIDCardDiscovery.StateCondition() {
+				@Override
+				public boolean isMet(final BeIDCardDiscovery discovery) {
+					return discovery.hasBeIDCards(null);
+				}
+			}, graceDeadline);
+		}
+	}
+
+	private void awaitState(final BeIDCardDiscovery.StateCondition condition, final long deadline,
+			final String timeoutMessage) throws TimeoutException {
+		if (!this.discovery.awaitState(condition, deadline)) {
+			throw new TimeoutException(timeoutMessage);
 		}
 	}
 }
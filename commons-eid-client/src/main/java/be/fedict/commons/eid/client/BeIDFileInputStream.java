@@ -0,0 +1,255 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.smartcardio.CardException;
+
+/**
+ * A file on a BeID card, read block by block as the stream is consumed. Obtain
+ * one via {@link BeIDCard#openFile(FileType)}, and close it to release the
+ * card. Read and close the stream on the thread that opened it.
+ */
+public class BeIDFileInputStream extends InputStream implements ReadableByteChannel {
+
+	private final BeIDCard beIDCard;
+	private final Thread owner;
+	private final FileType fileType;
+	private final int maxBlockLength;
+	private byte[] block;
+	private int blockOffset;
+	private int position;
+	private int fileLength;
+	private boolean closed;
+
+	/*
+	 * A stream reading the selected file from the card, within the exclusive
+	 * transaction started by BeIDCard.openFile(), in blocks of at most
+	 * maxBlockLength bytes.
+	 */
+	BeIDFileInputStream(final BeIDCard beIDCard, final FileType fileType, final int maxBlockLength) {
+		this.beIDCard = beIDCard;
+		this.owner = Thread.currentThread();
+		this.fileType = fileType;
+		this.maxBlockLength = maxBlockLength;
+		this.block = new byte[0];
+		this.fileLength = -1;
+	}
+
+	/*
+	 * A stream on file data that is already available.
+	 */
+	BeIDFileInputStream(final FileType fileType, final byte[] data) {
+		this.beIDCard = null;
+		this.owner = null;
+		this.fileType = fileType;
+		this.maxBlockLength = data.length;
+		this.block = data;
+		this.fileLength = data.length;
+	}
+
+	public FileType getFileType() {
+		return this.fileType;
+	}
+
+	/**
+	 * @return the current offset in the file.
+	 */
+	public int getPosition() {
+		return this.position;
+	}
+
+	@Override
+	public int read() throws IOException {
+		final byte[] data = new byte[1];
+		if (-1 == read(data, 0, 1)) {
+			return -1;
+		}
+		return data[0] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] data, final int offset, final int length) throws IOException {
+		if (offset < 0 || length < 0 || length > data.length - offset) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (0 == length) {
+			return 0;
+		}
+		final int available = fill();
+		if (0 == available) {
+			return -1;
+		}
+		final int count = Math.min(length, available);
+		System.arraycopy(this.block, this.position - this.blockOffset, data, offset, count);
+		this.position += count;
+		return count;
+	}
+
+	@Override
+	public int read(final ByteBuffer buffer) throws IOException {
+		if (this.closed) {
+			throw new ClosedChannelException();
+		}
+		if (!buffer.hasRemaining()) {
+			return 0;
+		}
+		final int available = fill();
+		if (0 == available) {
+			return -1;
+		}
+		final int count = Math.min(buffer.remaining(), available);
+		buffer.put(this.block, this.position - this.blockOffset, count);
+		this.position += count;
+		return count;
+	}
+
+	/**
+	 * Skips bytes without reading them from the card. The next block is read at
+	 * the new offset. Does not skip beyond the largest offset that READ BINARY can
+	 * address.
+	 */
+	@Override
+	public long skip(final long count) throws IOException {
+		ensureOpen();
+		if (count <= 0) {
+			return 0;
+		}
+		long skipped = count;
+		if (-1 != this.fileLength) {
+			skipped = Math.min(skipped, this.fileLength - this.position);
+		}
+		skipped = Math.min(skipped, BeIDCard.MAX_FILE_SIZE - this.position);
+		this.position += (int) skipped;
+		return skipped;
+	}
+
+	/**
+	 * @return the number of bytes that can be read without accessing the card.
+	 */
+	@Override
+	public int available() throws IOException {
+		ensureOpen();
+		int end = this.blockOffset + this.block.length;
+		if (-1 != this.fileLength) {
+			end = Math.min(end, this.fileLength);
+		}
+		return Math.max(0, end - this.position);
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !this.closed;
+	}
+
+	/**
+	 * Ends the exclusive transaction with the card.
+	 * 
+	 * @throws IllegalStateException if called on another thread than the one that
+	 *                               opened this stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		if (null == this.beIDCard) {
+			this.closed = true;
+			return;
+		}
+		checkOwner();
+		this.closed = true;
+		this.beIDCard.fileStreamEnded(this.fileType, this.position);
+		try {
+			this.beIDCard.endExclusive();
+		} catch (final CardException e) {
+			throw new IOException("ending the exclusive transaction failed: " + e.getMessage(), e);
+		}
+	}
+
+	/*
+	 * Makes sure the current block holds the byte at the current position, if the
+	 * file has one. Gives back the number of bytes available in the current block
+	 * from the current position on.
+	 */
+	private int fill() throws IOException {
+		ensureOpen();
+		final int available = available();
+		if (available > 0) {
+			return available;
+		}
+		if (null == this.beIDCard || (-1 != this.fileLength && this.position >= this.fileLength)
+				|| this.position >= BeIDCard.MAX_FILE_SIZE) {
+			return 0;
+		}
+		checkOwner();
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("interrupted while reading " + this.fileType);
+		}
+		int maxLength = Math.min(this.maxBlockLength, this.beIDCard.getReadBlockSize());
+		if (-1 != this.fileLength) {
+			maxLength = Math.min(maxLength, this.fileLength - this.position);
+		}
+		final int estimatedMaxOffset = -1 != this.fileLength ? this.fileLength
+				: this.fileType.getEstimatedMaxSize();
+		final byte[] data;
+		try {
+			data = this.beIDCard.readFileBlock(this.fileType, this.position, maxLength, estimatedMaxOffset);
+		} catch (final CardException e) {
+			throw new IOException("reading " + this.fileType + " failed: " + e.getMessage(), e);
+		}
+		if (0 == this.position && this.fileType.isDEREncoded()) {
+			final int derLength = BeIDCard.getDERLength(data);
+			if (-1 != derLength) {
+				this.fileLength = derLength;
+			}
+		}
+		if (0 == data.length || (!this.beIDCard.isExtendedLengthRead()
+				&& data.length < Math.min(maxLength, this.beIDCard.getReadBlockSize()))) {
+			// a short block marks the end of the file, the block size having
+			// possibly been reduced by a fallback to short length READ BINARY
+			this.fileLength = this.position + data.length;
+		}
+		this.block = data;
+		this.blockOffset = this.position;
+		return available();
+	}
+
+	/*
+	 * The exclusive transaction on the card belongs to the thread that opened
+	 * this stream.
+	 */
+	private void checkOwner() {
+		if (Thread.currentThread() != this.owner) {
+			throw new IllegalStateException(this.fileType + " stream opened on thread " + this.owner.getName());
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("stream closed");
+		}
+	}
+}
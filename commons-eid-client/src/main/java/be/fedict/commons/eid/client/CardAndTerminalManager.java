@@ -42,6 +42,8 @@ import be.fedict.commons.eid.client.event.CardEventsListener;
 import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
 import be.fedict.commons.eid.client.impl.CardTerminalsProxy;
 import be.fedict.commons.eid.client.impl.LibJ2PCSCGNULinuxFix;
+import be.fedict.commons.eid.client.impl.ListenerDispatcher;
+import be.fedict.commons.eid.client.impl.ListenerDispatcher.EventType;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.Logger;
 
@@ -71,6 +73,9 @@ public class CardAndTerminalManager implements Runnable {
 	private final Set<CardTerminalEventsListener> cardTerminalEventsListeners;
 	private final Set<CardEventsListener> cardEventsListeners;
 	private int delay;
+	private boolean incrementalDetection, incrementalDetectionReady;
+	private long detectionLatency;
+	private ListenerDispatcher listenerDispatcher;
 	private final Logger logger;
 	private PROTOCOL protocol;
 
@@ -153,6 +158,9 @@ public class CardAndTerminalManager implements Runnable {
 		this.subSystemInitialized = false;
 		this.autoconnect = true;
 		this.protocol = PROTOCOL.ANY;
+		this.incrementalDetection = true;
+		this.incrementalDetectionReady = false;
+		this.detectionLatency = -1;
 
 		if (cardTerminals == null) {
 			this.cardTerminals = CardTerminalsProxy.getCardTerminals(logger);
@@ -228,6 +236,9 @@ public class CardAndTerminalManager implements Runnable {
 		synchronized (this.cardTerminalEventsListeners) {
 			this.cardTerminalEventsListeners.remove(listener);
 		}
+		if (null != this.listenerDispatcher) {
+			this.listenerDispatcher.removeListener(listener);
+		}
 		return this;
 	}
 
@@ -241,6 +252,9 @@ public class CardAndTerminalManager implements Runnable {
 		synchronized (this.cardEventsListeners) {
 			this.cardEventsListeners.remove(listener);
 		}
+		if (null != this.listenerDispatcher) {
+			this.listenerDispatcher.removeListener(listener);
+		}
 		return this;
 	}
 
@@ -322,6 +336,64 @@ public class CardAndTerminalManager implements Runnable {
 		return this;
 	}
 
+	/**
+	 * Return whether card insertions and removals are detected incrementally. In
+	 * that case, only the card terminals that the PCSC subsystem reports as
+	 * changed are checked for card presence. Otherwise all card terminals are
+	 * checked after every PCSC change notification or polling delay. Incremental
+	 * detection is the default, and is turned off automatically when the
+	 * CardTerminals implementation does not support it.
+	 * 
+	 * @return <code>true</code> if card events are detected incrementally.
+	 */
+	public boolean isIncrementalDetection() {
+		return this.incrementalDetection;
+	}
+
+	/**
+	 * Set whether card insertions and removals are detected incrementally.
+	 * 
+	 * @param newIncrementalDetection
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setIncrementalDetection(final boolean newIncrementalDetection) {
+		this.incrementalDetection = newIncrementalDetection;
+		return this;
+	}
+
+	/**
+	 * Returns the time it took, for the most recent events, between the PCSC
+	 * subsystem reporting a change and all listeners having been notified.
+	 * 
+	 * @return the latency in milliseconds, or -1 if no events were detected yet.
+	 */
+	public long getDetectionLatency() {
+		return this.detectionLatency;
+	}
+
+	/**
+	 * Set the dispatcher used to call the registered listeners. By default, or
+	 * when passing <code>null</code>, listeners are called directly from the
+	 * worker thread, so a slow listener delays the detection of further events.
+	 * With a dispatcher, every listener receives its events in order via its own
+	 * bounded queue. Set the dispatcher before calling start().
+	 * 
+	 * @param newListenerDispatcher the dispatcher, or <code>null</code>.
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setListenerDispatcher(final ListenerDispatcher newListenerDispatcher) {
+		this.listenerDispatcher = newListenerDispatcher;
+		return this;
+	}
+
+	/**
+	 * @return the dispatcher used to call the registered listeners, or
+	 *         <code>null</code> if they are called directly.
+	 */
+	public ListenerDispatcher getListenerDispatcher() {
+		return this.listenerDispatcher;
+	}
+
 	/**
 	 * Return whether this CardAndTerminalsManager will automatically connect() to
 	 * any cards inserted.
@@ -424,6 +496,7 @@ public class CardAndTerminalManager implements Runnable {
 			}
 		}
 
+		final boolean changed;
 		try {
 			// can't use waitForChange properly, that is in blocking mode,
 			// without delay argument,
@@ -435,7 +508,7 @@ public class CardAndTerminalManager implements Runnable {
 			// return faster than delay)
 			// for most events this will make reaction instantaneous, and worst
 			// case = delay
-			this.cardTerminals.waitForChange(this.delay);
+			changed = this.cardTerminals.waitForChange(this.delay);
 		} catch (final CardException cex) {
 			// waitForChange fails (e.g. PCSC is there but no readers)
 			logCardException(cex, "Cannot wait for card terminal events [2] (No Card Readers Connected?)");
@@ -452,11 +525,25 @@ public class CardAndTerminalManager implements Runnable {
 		}
 
 		// get here when event has occured or delay time has passed
+		final long changeTime = System.nanoTime();
 
 		try {
 			// get fresh state
 			final Set<CardTerminal> currentTerminals = new HashSet<>(this.cardTerminals.list(State.ALL));
-			final Set<CardTerminal> currentTerminalsWithCards = terminalsWithCardsIn(currentTerminals);
+			if (!changed && this.incrementalDetection && this.incrementalDetectionReady
+					&& currentTerminals.equals(this.terminalsPresent)) {
+				// nothing happened
+				return;
+			}
+
+			final Set<CardTerminal> currentTerminalsWithCards;
+			if (this.incrementalDetection && this.incrementalDetectionReady) {
+				currentTerminalsWithCards = changedTerminalsWithCardsIn(currentTerminals, changed);
+			} else {
+				currentTerminalsWithCards = terminalsWithCardsIn(currentTerminals);
+				// the PCSC subsystem tracks card changes from here on
+				this.incrementalDetectionReady = true;
+			}
 
 			// determine terminals that were attached since previous state
 			final Set<CardTerminal> terminalsAttached = new HashSet<>(currentTerminals);
@@ -483,6 +570,12 @@ public class CardAndTerminalManager implements Runnable {
 			// attach, insert, remove, detach
 			listenersUpdateInSequence(terminalsAttached, terminalsWithCardsInserted, terminalsWithCardsRemoved,
 					terminalsDetached);
+
+			if (!(terminalsAttached.isEmpty() && terminalsWithCardsInserted.isEmpty()
+					&& terminalsWithCardsRemoved.isEmpty() && terminalsDetached.isEmpty())) {
+				this.detectionLatency = (System.nanoTime() - changeTime) / 1000000;
+				this.logger.debug("events handled " + this.detectionLatency + " ms after PCSC change notification");
+			}
 		} catch (final CardException cex) {
 			// if a CardException occurs, assume we're out of readers (only
 			// CardTerminals.list throws that here)
@@ -508,6 +601,35 @@ public class CardAndTerminalManager implements Runnable {
 		return false;
 	}
 
+	/*
+	 * Only checks the card presence of terminals that the PCSC subsystem reports
+	 * as having had a card inserted or removed since the previous waitForChange,
+	 * and of newly attached terminals. Falls back to checking all terminals if the
+	 * CardTerminals implementation cannot report card insertions and removals.
+	 */
+	private Set<CardTerminal> changedTerminalsWithCardsIn(final Set<CardTerminal> terminals, final boolean changed) {
+		final Set<CardTerminal> changedTerminals = new HashSet<>(terminals);
+		changedTerminals.removeAll(this.terminalsPresent);
+		if (changed) {
+			try {
+				changedTerminals.addAll(this.cardTerminals.list(State.CARD_INSERTION));
+				changedTerminals.addAll(this.cardTerminals.list(State.CARD_REMOVAL));
+			} catch (final CardException | RuntimeException ex) {
+				this.logger.debug("card insertion/removal events not supported, falling back to full detection: "
+						+ ex.getMessage());
+				this.incrementalDetection = false;
+				return terminalsWithCardsIn(terminals);
+			}
+		}
+		changedTerminals.retainAll(terminals);
+
+		final Set<CardTerminal> terminalsWithCards = new HashSet<>(this.terminalsWithCards);
+		terminalsWithCards.retainAll(terminals);
+		terminalsWithCards.removeAll(changedTerminals);
+		terminalsWithCards.addAll(terminalsWithCardsIn(changedTerminals));
+		return terminalsWithCards;
+	}
+
 	private Set<CardTerminal> terminalsWithCardsIn(final Set<CardTerminal> terminals) {
 		final Set<CardTerminal> terminalsWithCards = new HashSet<>();
 
@@ -542,6 +664,7 @@ public class CardAndTerminalManager implements Runnable {
 		this.terminalsPresent = null;
 		this.terminalsWithCards = null;
 		this.subSystemInitialized = false;
+		this.incrementalDetectionReady = false;
 		this.logger.debug("cleared");
 	}
 
@@ -577,13 +700,13 @@ public class CardAndTerminalManager implements Runnable {
 			copyOfListeners = new HashSet<>(this.cardEventsListeners);
 		}
 
-		for (CardEventsListener listener : copyOfListeners) {
-			try {
-				listener.cardEventsInitialized();
-			} catch (final Exception thrownInListener) {
-				this.logger
-						.error("Exception thrown in CardEventsListener.cardRemoved:" + thrownInListener.getMessage());
-			}
+		for (final CardEventsListener listener : copyOfListeners) {
+			callListener(listener, "CardEventsListener.cardEventsInitialized", new Runnable() {
+				@Override
+				public void run() {
+					listener.cardEventsInitialized();
+				}
+			});
 		}
 	}
 
@@ -594,13 +717,13 @@ public class CardAndTerminalManager implements Runnable {
 			copyOfListeners = new HashSet<>(this.cardTerminalEventsListeners);
 		}
 
-		for (CardTerminalEventsListener listener : copyOfListeners) {
-			try {
-				listener.terminalEventsInitialized();
-			} catch (final Exception thrownInListener) {
-				this.logger.error("Exception thrown in CardTerminalEventsListener.terminalAttached:"
-						+ thrownInListener.getMessage());
-			}
+		for (final CardTerminalEventsListener listener : copyOfListeners) {
+			callListener(listener, "CardTerminalEventsListener.terminalEventsInitialized", new Runnable() {
+				@Override
+				public void run() {
+					listener.terminalEventsInitialized();
+				}
+			});
 		}
 	}
 
@@ -613,14 +736,15 @@ public class CardAndTerminalManager implements Runnable {
 				copyOfListeners = new HashSet<>(this.cardTerminalEventsListeners);
 			}
 
-			for (CardTerminal terminal : attached) {
-				for (CardTerminalEventsListener listener : copyOfListeners) {
-					try {
-						listener.terminalAttached(terminal);
-					} catch (final Exception thrownInListener) {
-						this.logger.error("Exception thrown in CardTerminalEventsListener.terminalAttached:"
-								+ thrownInListener.getMessage());
-					}
+			for (final CardTerminal terminal : attached) {
+				for (final CardTerminalEventsListener listener : copyOfListeners) {
+					callListener(listener, "CardTerminalEventsListener.terminalAttached", EventType.TERMINAL_ATTACHED,
+							terminal, new Runnable() {
+								@Override
+								public void run() {
+									listener.terminalAttached(terminal);
+								}
+							});
 				}
 			}
 		}
@@ -635,14 +759,15 @@ public class CardAndTerminalManager implements Runnable {
 				copyOfListeners = new HashSet<>(this.cardTerminalEventsListeners);
 			}
 
-			for (CardTerminal terminal : detached) {
-				for (CardTerminalEventsListener listener : copyOfListeners) {
-					try {
-						listener.terminalDetached(terminal);
-					} catch (final Exception thrownInListener) {
-						this.logger.error("Exception thrown in CardTerminalEventsListener.terminalDetached:"
-								+ thrownInListener.getMessage());
-					}
+			for (final CardTerminal terminal : detached) {
+				for (final CardTerminalEventsListener listener : copyOfListeners) {
+					callListener(listener, "CardTerminalEventsListener.terminalDetached", EventType.TERMINAL_DETACHED,
+							terminal, new Runnable() {
+								@Override
+								public void run() {
+									listener.terminalDetached(terminal);
+								}
+							});
 				}
 			}
 		}
@@ -657,14 +782,15 @@ public class CardAndTerminalManager implements Runnable {
 				copyOfListeners = new HashSet<>(this.cardEventsListeners);
 			}
 
-			for (CardTerminal terminal : removed) {
-				for (CardEventsListener listener : copyOfListeners) {
-					try {
-						listener.cardRemoved(terminal);
-					} catch (final Exception thrownInListener) {
-						this.logger.error(
-								"Exception thrown in CardEventsListener.cardRemoved:" + thrownInListener.getMessage());
-					}
+			for (final CardTerminal terminal : removed) {
+				for (final CardEventsListener listener : copyOfListeners) {
+					callListener(listener, "CardEventsListener.cardRemoved", EventType.CARD_REMOVED,
+							terminal, new Runnable() {
+								@Override
+								public void run() {
+									listener.cardRemoved(terminal);
+								}
+							});
 				}
 			}
 		}
@@ -683,31 +809,52 @@ public class CardAndTerminalManager implements Runnable {
 				copyOfListeners = new HashSet<>(this.cardEventsListeners);
 			}
 
-			for (CardTerminal terminal : inserted) {
-				Card card = null;
+			for (final CardTerminal terminal : inserted) {
+				Card connectedCard = null;
 
 				if (this.autoconnect) {
 					try {
-						card = terminal.connect(this.protocol.getProtocol());
+						connectedCard = terminal.connect(this.protocol.getProtocol());
 					} catch (final CardException cex) {
 						this.logger.debug(
 								"terminal.connect(" + this.protocol.getProtocol() + ") failed. " + cex.getMessage());
 					}
 				}
 
-				for (CardEventsListener listener : copyOfListeners) {
-					try {
-						listener.cardInserted(terminal, card);
-					} catch (final Exception thrownInListener) {
-						this.logger.error(
-								"Exception thrown in CardEventsListener.cardInserted:" + thrownInListener.getMessage());
-					}
-
+				final Card card = connectedCard;
+				for (final CardEventsListener listener : copyOfListeners) {
+					callListener(listener, "CardEventsListener.cardInserted", EventType.CARD_INSERTED,
+							terminal, new Runnable() {
+								@Override
+								public void run() {
+									listener.cardInserted(terminal, card);
+								}
+							});
 				}
 			}
 		}
 	}
 
+	// Calls the listener right away, or via the listener dispatcher if one is
+	// set.
+	private void callListener(final Object listener, final String name, final Runnable callback) {
+		callListener(listener, name, null, null, callback);
+	}
+
+	private void callListener(final Object listener, final String name, final EventType eventType,
+			final CardTerminal terminal, final Runnable callback) {
+		final ListenerDispatcher dispatcher = this.listenerDispatcher;
+		if (null != dispatcher) {
+			dispatcher.dispatch(listener, name, eventType, terminal, callback);
+			return;
+		}
+		try {
+			callback.run();
+		} catch (final Exception thrownInListener) {
+			this.logger.error("Exception thrown in " + name + ":" + thrownInListener.getMessage());
+		}
+	}
+
 	private void sleepForDelay() throws InterruptedException {
 		Thread.sleep(this.delay);
 	}
@@ -88,4 +88,54 @@ public enum FileType {
 	public int getEstimatedMaxSize() {
 		return this.estimatedMaxSize;
 	}
+
+	/**
+	 * Returns <code>true</code> if this file holds a single DER encoded structure,
+	 * i.e. a certificate or the basic public key. The length of such a file can
+	 * be derived from its first bytes.
+	 * 
+	 * @return
+	 */
+	public boolean isDEREncoded() {
+		switch (this) {
+		case AuthentificationCertificate:
+		case NonRepudiationCertificate:
+		case CACertificate:
+		case RootCertificate:
+		case RRNCertificate:
+		case BasicPublic:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the content of this file cannot change during
+	 * the lifetime of a card. The address (and its signature) can be updated by
+	 * the municipality.
+	 * 
+	 * @return
+	 */
+	public boolean isImmutable() {
+		return this != Address && this != AddressSignature;
+	}
+
+	/**
+	 * Returns <code>true</code> if this file is the same on many cards, i.e. the
+	 * root, citizen CA and RRN certificates. All other files are specific to the
+	 * card and its holder.
+	 * 
+	 * @return
+	 */
+	public boolean isShared() {
+		switch (this) {
+		case CACertificate:
+		case RootCertificate:
+		case RRNCertificate:
+			return true;
+		default:
+			return false;
+		}
+	}
 }
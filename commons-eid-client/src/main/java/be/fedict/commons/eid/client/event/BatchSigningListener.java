@@ -0,0 +1,40 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.event;
+
+/**
+ * Listener interface for the progress of a batch signing operation, see
+ * {@link be.fedict.commons.eid.client.BeIDCard#signAll}. Called on the thread
+ * that runs the batch, in the order of the digest values.
+ */
+public interface BatchSigningListener {
+
+	/**
+	 * @param index the index of the digest value that was signed.
+	 * @param count the number of digest values in the batch.
+	 */
+	void signatureCreated(int index, int count);
+
+	/**
+	 * @param index the index of the digest value that could not be signed.
+	 * @param count the number of digest values in the batch.
+	 * @param cause why the digest value could not be signed.
+	 */
+	void signatureFailed(int index, int count, Exception cause);
+}
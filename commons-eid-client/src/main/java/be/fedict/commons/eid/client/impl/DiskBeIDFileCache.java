@@ -0,0 +1,437 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.spi.BeIDFileCache;
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Persistent implementation of the eID file cache. File contents are stored
+ * once per distinct content under their SHA-256 digest, so certificates that
+ * are shared by many cards, such as the Root and CA certificates, take up disk
+ * space only once. An append-only index maps card identifiers and file types
+ * onto these digests.
+ * <p>
+ * The total size of the stored contents is bounded. When exceeded, the least
+ * recently used cards are evicted. Contents are verified against their digest
+ * when read back, so a damaged store results in a cache miss instead of corrupt
+ * data.
+ * <p>
+ * Cached files survive the removal of their card; a card inserted later reuses
+ * the shared certificates found by {@link #find(FileType, byte[])}.
+ * <p>
+ * Files are stored unencrypted. Hence only the shared certificates are cached
+ * by default. Caching of the files holding personal data of the card holder,
+ * such as the identity, address, photo and the user certificates, must be
+ * enabled explicitly.
+ * <p>
+ * I/O errors are logged and treated as cache misses; they never break reading
+ * from the card itself.
+ */
+public class DiskBeIDFileCache implements BeIDFileCache {
+
+	/**
+	 * The default maximum total size of the stored file contents.
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE = 16 * 1024 * 1024;
+
+	private static final String INDEX_FILE = "index";
+	private static final String CONTENT_DIRECTORY = "content";
+	private static final String PUT = "P";
+	private static final String INVALIDATE = "I";
+
+	private final Path contentDirectory;
+	private final Path indexFile;
+	private final long maximumSize;
+	private final boolean cachePersonalData;
+	private final Logger logger;
+
+	private final LinkedHashMap<String, Map<FileType, String>> cards;
+	private final Map<String, Integer> referenceCounts;
+	private final Map<String, Long> contentSizes;
+
+	private long totalSize;
+	private int indexEntries;
+	private Writer indexWriter;
+
+	/**
+	 * Opens (or creates) the cache stored in the given directory, with the default
+	 * maximum size. Only the shared certificates are cached.
+	 * 
+	 * @param directory
+	 * @throws IOException
+	 */
+	public DiskBeIDFileCache(final Path directory) throws IOException {
+		this(directory, DEFAULT_MAXIMUM_SIZE, false, new VoidLogger());
+	}
+
+	/**
+	 * Opens (or creates) the cache stored in the given directory. Only the shared
+	 * certificates are cached.
+	 * 
+	 * @param directory   the cache directory.
+	 * @param maximumSize the maximum total size of the stored file contents, in
+	 *                    bytes.
+	 * @param logger
+	 * @throws IOException
+	 */
+	public DiskBeIDFileCache(final Path directory, final long maximumSize, final Logger logger) throws IOException {
+		this(directory, maximumSize, false, logger);
+	}
+
+	/**
+	 * Opens (or creates) the cache stored in the given directory.
+	 * 
+	 * @param directory         the cache directory.
+	 * @param maximumSize       the maximum total size of the stored file contents,
+	 *                          in bytes.
+	 * @param cachePersonalData <code>true</code> to also cache the files holding
+	 *                          personal data, unencrypted. When
+	 *                          <code>false</code>, such files already in the
+	 *                          directory are removed.
+	 * @param logger
+	 * @throws IOException
+	 */
+	public DiskBeIDFileCache(final Path directory, final long maximumSize, final boolean cachePersonalData,
+			final Logger logger) throws IOException {
+		this.contentDirectory = directory.resolve(CONTENT_DIRECTORY);
+		this.indexFile = directory.resolve(INDEX_FILE);
+		this.maximumSize = maximumSize;
+		this.cachePersonalData = cachePersonalData;
+		this.logger = logger;
+		this.cards = new LinkedHashMap<>(16, 0.75f, true);
+		this.referenceCounts = new HashMap<>();
+		this.contentSizes = new HashMap<>();
+		Files.createDirectories(this.contentDirectory);
+		load();
+		evict();
+		compact();
+	}
+
+	@Override
+	public synchronized byte[] get(final String cardId, final FileType fileType) {
+		final Map<FileType, String> files = this.cards.get(cardId);
+		if (null == files) {
+			return null;
+		}
+		final String digest = files.get(fileType);
+		if (null == digest) {
+			return null;
+		}
+		final byte[] data;
+		try {
+			data = Files.readAllBytes(this.contentDirectory.resolve(digest));
+		} catch (final IOException e) {
+			this.logger.error("error reading cached " + fileType + ": " + e.getMessage());
+			invalidate(cardId);
+			return null;
+		}
+		if (!digest.equals(digest(data))) {
+			this.logger.error("cached " + fileType + " corrupted");
+			invalidate(cardId);
+			return null;
+		}
+		return data;
+	}
+
+	@Override
+	public synchronized void put(final String cardId, final FileType fileType, final byte[] data) {
+		if (!isCached(fileType)) {
+			return;
+		}
+		final String digest = digest(data);
+		final Path contentFile = this.contentDirectory.resolve(digest);
+		try {
+			if (!this.contentSizes.containsKey(digest) || !Files.exists(contentFile)) {
+				final Path tmpFile = Files.createTempFile(this.contentDirectory, digest, ".tmp");
+				Files.write(tmpFile, data);
+				Files.move(tmpFile, contentFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			appendIndex(PUT + " " + cardId + " " + fileType.name() + " " + digest);
+		} catch (final IOException e) {
+			this.logger.error("error caching " + fileType + ": " + e.getMessage());
+			return;
+		}
+		Map<FileType, String> files = this.cards.get(cardId);
+		if (null == files) {
+			files = new EnumMap<>(FileType.class);
+			this.cards.put(cardId, files);
+		}
+		reference(digest, data.length);
+		final String previousDigest = files.put(fileType, digest);
+		if (null != previousDigest) {
+			release(previousDigest);
+		}
+		evict();
+	}
+
+	@Override
+	public synchronized void invalidate(final String cardId) {
+		final Map<FileType, String> files = this.cards.remove(cardId);
+		if (null == files) {
+			return;
+		}
+		for (String digest : files.values()) {
+			release(digest);
+		}
+		try {
+			appendIndex(INVALIDATE + " " + cardId);
+		} catch (final IOException e) {
+			this.logger.error("error updating cache index: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Does nothing, as the cached files remain valid after the removal of the
+	 * card.
+	 */
+	@Override
+	public void cardRemoved(final String cardId) {
+	}
+
+	@Override
+	public synchronized byte[] find(final FileType fileType, final byte[] prefix) {
+		if (!fileType.isShared()) {
+			return null;
+		}
+		final Set<String> digests = new HashSet<>();
+		for (Map<FileType, String> files : this.cards.values()) {
+			final String digest = files.get(fileType);
+			if (null == digest || !digests.add(digest) || this.contentSizes.get(digest) < prefix.length) {
+				continue;
+			}
+			final byte[] data;
+			try {
+				data = Files.readAllBytes(this.contentDirectory.resolve(digest));
+			} catch (final IOException e) {
+				this.logger.error("error reading cached " + fileType + ": " + e.getMessage());
+				continue;
+			}
+			if (data.length >= prefix.length && Arrays.equals(prefix, Arrays.copyOf(data, prefix.length))
+					&& digest.equals(digest(data))) {
+				return data;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the total size of the stored file contents, in bytes.
+	 */
+	public synchronized long getSize() {
+		return this.totalSize;
+	}
+
+	/**
+	 * Closes the index of this cache. Subsequent updates will reopen it.
+	 * 
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+		if (null != this.indexWriter) {
+			this.indexWriter.close();
+			this.indexWriter = null;
+		}
+	}
+
+	private void load() throws IOException {
+		final BufferedReader reader;
+		try {
+			reader = Files.newBufferedReader(this.indexFile, StandardCharsets.US_ASCII);
+		} catch (final NoSuchFileException e) {
+			return;
+		}
+		try {
+			String line;
+			while (null != (line = reader.readLine())) {
+				final String[] fields = line.split(" ");
+				if (4 == fields.length && PUT.equals(fields[0])) {
+					final FileType fileType;
+					try {
+						fileType = FileType.valueOf(fields[2]);
+					} catch (final IllegalArgumentException e) {
+						continue;
+					}
+					if (!isCached(fileType)) {
+						continue;
+					}
+					final Path contentFile = this.contentDirectory.resolve(fields[3]);
+					if (!Files.exists(contentFile)) {
+						continue;
+					}
+					Map<FileType, String> files = this.cards.get(fields[1]);
+					if (null == files) {
+						files = new EnumMap<>(FileType.class);
+						this.cards.put(fields[1], files);
+					}
+					reference(fields[3], Files.size(contentFile));
+					final String previousDigest = files.put(fileType, fields[3]);
+					if (null != previousDigest) {
+						release(previousDigest);
+					}
+				} else if (2 == fields.length && INVALIDATE.equals(fields[0])) {
+					final Map<FileType, String> files = this.cards.remove(fields[1]);
+					if (null != files) {
+						for (String digest : files.values()) {
+							release(digest);
+						}
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/*
+	 * Rewrites the index with only the live entries, and removes unreferenced
+	 * contents.
+	 */
+	private void compact() throws IOException {
+		close();
+		final Path tmpIndexFile = this.indexFile.resolveSibling(INDEX_FILE + ".tmp");
+		int entries = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(tmpIndexFile, StandardCharsets.US_ASCII)) {
+			for (Map.Entry<String, Map<FileType, String>> card : this.cards.entrySet()) {
+				for (Map.Entry<FileType, String> file : card.getValue().entrySet()) {
+					writer.write(PUT + " " + card.getKey() + " " + file.getKey().name() + " " + file.getValue());
+					writer.newLine();
+					entries++;
+				}
+			}
+		}
+		Files.move(tmpIndexFile, this.indexFile, StandardCopyOption.REPLACE_EXISTING);
+		this.indexEntries = entries;
+		try (DirectoryStream<Path> contentFiles = Files.newDirectoryStream(this.contentDirectory)) {
+			for (Path contentFile : contentFiles) {
+				if (!this.referenceCounts.containsKey(contentFile.getFileName().toString())) {
+					Files.deleteIfExists(contentFile);
+				}
+			}
+		}
+	}
+
+	private boolean isCached(final FileType fileType) {
+		return this.cachePersonalData || fileType.isShared();
+	}
+
+	private void appendIndex(final String entry) throws IOException {
+		if (this.indexEntries > 2 * Math.max(16, countFiles())) {
+			compact();
+		}
+		if (null == this.indexWriter) {
+			this.indexWriter = Files.newBufferedWriter(this.indexFile, StandardCharsets.US_ASCII,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+		this.indexWriter.write(entry);
+		this.indexWriter.write('\n');
+		this.indexWriter.flush();
+		this.indexEntries++;
+	}
+
+	private int countFiles() {
+		int count = 0;
+		for (Map<FileType, String> files : this.cards.values()) {
+			count += files.size();
+		}
+		return count;
+	}
+
+	private void evict() {
+		final Iterator<Map.Entry<String, Map<FileType, String>>> iterator = this.cards.entrySet().iterator();
+		while (this.totalSize > this.maximumSize && this.cards.size() > 1) {
+			final Map.Entry<String, Map<FileType, String>> eldest = iterator.next();
+			this.logger.debug("evicting cached files of card " + eldest.getKey());
+			iterator.remove();
+			for (String digest : eldest.getValue().values()) {
+				release(digest);
+			}
+			try {
+				appendIndex(INVALIDATE + " " + eldest.getKey());
+			} catch (final IOException e) {
+				this.logger.error("error updating cache index: " + e.getMessage());
+			}
+		}
+	}
+
+	private void reference(final String digest, final long size) {
+		final Integer referenceCount = this.referenceCounts.get(digest);
+		if (null == referenceCount) {
+			this.referenceCounts.put(digest, 1);
+			this.contentSizes.put(digest, size);
+			this.totalSize += size;
+		} else {
+			this.referenceCounts.put(digest, referenceCount + 1);
+		}
+	}
+
+	private void release(final String digest) {
+		final int referenceCount = this.referenceCounts.get(digest) - 1;
+		if (referenceCount > 0) {
+			this.referenceCounts.put(digest, referenceCount);
+			return;
+		}
+		this.referenceCounts.remove(digest);
+		this.totalSize -= this.contentSizes.remove(digest);
+		try {
+			Files.deleteIfExists(this.contentDirectory.resolve(digest));
+		} catch (final IOException e) {
+			this.logger.error("error removing cached content: " + e.getMessage());
+		}
+	}
+
+	private static String digest(final byte[] data) {
+		final MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException("algo", e);
+		}
+		final byte[] digest = messageDigest.digest(data);
+		final StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
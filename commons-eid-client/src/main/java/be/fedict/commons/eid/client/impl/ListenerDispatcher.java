@@ -0,0 +1,348 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Delivers listener callbacks asynchronously. Every listener gets its own
+ * bounded queue, drained on the given executor, so that a slow listener does
+ * not hold up the detection of events, nor the other listeners. Events are
+ * delivered to each listener in the order in which they were dispatched, one at
+ * a time.
+ * <p>
+ * When the queue of a listener is full, new events for that listener are
+ * dropped and counted. Removal events are never dropped on their own, so that
+ * a listener keeps seeing attach, insert, remove, detach in order: a removal
+ * either cancels its pending addition, or is queued beyond the capacity. A
+ * removal is only dropped together with its addition. Events that wait longer
+ * than the lateness threshold before being delivered are counted as late.
+ */
+public class ListenerDispatcher {
+
+	/**
+	 * The types of events that come in addition/removal pairs.
+	 */
+	public enum EventType {
+
+		CARD_INSERTED, CARD_REMOVED, TERMINAL_ATTACHED, TERMINAL_DETACHED;
+
+		boolean isRemoval() {
+			return CARD_REMOVED == this || TERMINAL_DETACHED == this;
+		}
+
+		EventType getAddition() {
+			switch (this) {
+			case CARD_REMOVED:
+				return CARD_INSERTED;
+			case TERMINAL_DETACHED:
+				return TERMINAL_ATTACHED;
+			default:
+				return this;
+			}
+		}
+	}
+
+	public static final int DEFAULT_LATE_THRESHOLD = 1000;
+
+	private final Executor executor;
+	private final int queueCapacity;
+	private final long lateThreshold;
+	private final Logger logger;
+	private final Map<Object, ListenerQueue> listenerQueues;
+	private final AtomicLong droppedEvents;
+	private final AtomicLong lateEvents;
+
+	/**
+	 * @param executor      the executor on which listeners are called.
+	 * @param queueCapacity the maximum number of pending events per listener.
+	 */
+	public ListenerDispatcher(final Executor executor, final int queueCapacity) {
+		this(executor, queueCapacity, DEFAULT_LATE_THRESHOLD, new VoidLogger());
+	}
+
+	/**
+	 * @param executor      the executor on which listeners are called.
+	 * @param queueCapacity the maximum number of pending events per listener.
+	 * @param lateThreshold the time in milliseconds after which a pending event
+	 *                      counts as late.
+	 * @param logger        the logger.
+	 */
+	public ListenerDispatcher(final Executor executor, final int queueCapacity, final long lateThreshold,
+			final Logger logger) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queue capacity should be at least 1");
+		}
+		this.executor = executor;
+		this.queueCapacity = queueCapacity;
+		this.lateThreshold = lateThreshold;
+		this.logger = logger;
+		this.listenerQueues = new IdentityHashMap<>();
+		this.droppedEvents = new AtomicLong();
+		this.lateEvents = new AtomicLong();
+	}
+
+	/**
+	 * Queues a callback for the given listener.
+	 *
+	 * @param listener the listener to be called.
+	 * @param name     the name of the callback, for logging purposes.
+	 * @param callback calls the listener.
+	 */
+	public void dispatch(final Object listener, final String name, final Runnable callback) {
+		dispatch(listener, name, null, null, callback);
+	}
+
+	/**
+	 * Queues a callback for the given listener, for an event that is part of an
+	 * addition/removal pair.
+	 *
+	 * @param listener  the listener to be called.
+	 * @param name      the name of the callback, for logging purposes.
+	 * @param eventType the type of the event.
+	 * @param subject   what was added or removed, e.g. the card terminal.
+	 * @param callback  calls the listener.
+	 */
+	public void dispatch(final Object listener, final String name, final EventType eventType, final Object subject,
+			final Runnable callback) {
+		ListenerQueue listenerQueue;
+		synchronized (this.listenerQueues) {
+			listenerQueue = this.listenerQueues.get(listener);
+			if (null == listenerQueue) {
+				listenerQueue = new ListenerQueue(listener);
+				this.listenerQueues.put(listener, listenerQueue);
+			}
+			listenerQueue.setRemoved(false);
+		}
+		listenerQueue.offer(new Event(name, eventType, subject, callback));
+	}
+
+	/**
+	 * Forgets the queue of the given listener once it is drained. Events already
+	 * queued for the listener are still delivered. A listener that is added again
+	 * in the meantime keeps using the same queue, so its events stay in order.
+	 *
+	 * @param listener the listener.
+	 */
+	public void removeListener(final Object listener) {
+		synchronized (this.listenerQueues) {
+			final ListenerQueue listenerQueue = this.listenerQueues.get(listener);
+			if (null == listenerQueue) {
+				return;
+			}
+			listenerQueue.setRemoved(true);
+			if (listenerQueue.isIdle()) {
+				this.listenerQueues.remove(listener);
+			}
+		}
+	}
+
+	/*
+	 * Forgets a removed listener queue that has been drained.
+	 */
+	private void forgetIfRemoved(final ListenerQueue listenerQueue) {
+		synchronized (this.listenerQueues) {
+			if (listenerQueue.isRemoved() && listenerQueue.isIdle()
+					&& this.listenerQueues.get(listenerQueue.listener) == listenerQueue) {
+				this.listenerQueues.remove(listenerQueue.listener);
+			}
+		}
+	}
+
+	/**
+	 * @return the total number of events waiting to be delivered.
+	 */
+	public int getQueueDepth() {
+		int queueDepth = 0;
+		synchronized (this.listenerQueues) {
+			for (ListenerQueue listenerQueue : this.listenerQueues.values()) {
+				queueDepth += listenerQueue.size();
+			}
+		}
+		return queueDepth;
+	}
+
+	/**
+	 * @return the number of events dropped because a listener queue was full.
+	 */
+	public long getDroppedEventCount() {
+		return this.droppedEvents.get();
+	}
+
+	/**
+	 * @return the number of events delivered after the lateness threshold.
+	 */
+	public long getLateEventCount() {
+		return this.lateEvents.get();
+	}
+
+	private static class Event {
+
+		private final String name;
+		private final EventType eventType;
+		private final Object subject;
+		private final Runnable callback;
+		private final long queueTime;
+
+		Event(final String name, final EventType eventType, final Object subject, final Runnable callback) {
+			this.name = name;
+			this.eventType = eventType;
+			this.subject = subject;
+			this.callback = callback;
+			this.queueTime = System.nanoTime();
+		}
+
+		boolean isRemoval() {
+			return null != this.eventType && this.eventType.isRemoval();
+		}
+
+		boolean isAdditionOf(final Event removal) {
+			return removal.eventType.getAddition() == this.eventType && Objects.equals(removal.subject, this.subject);
+		}
+	}
+
+	private class ListenerQueue implements Runnable {
+
+		private final Object listener;
+		private final Deque<Event> events;
+		/*
+		 * Additions dropped because the queue was full. Their removals get dropped
+		 * as well.
+		 */
+		private final List<Event> droppedAdditions;
+		private boolean scheduled;
+		private boolean removed;
+
+		ListenerQueue(final Object listener) {
+			this.listener = listener;
+			this.events = new ArrayDeque<>();
+			this.droppedAdditions = new LinkedList<>();
+		}
+
+		synchronized int size() {
+			return this.events.size();
+		}
+
+		synchronized boolean isIdle() {
+			return this.events.isEmpty() && !this.scheduled;
+		}
+
+		synchronized boolean isRemoved() {
+			return this.removed;
+		}
+
+		synchronized void setRemoved(final boolean removed) {
+			this.removed = removed;
+		}
+
+		void offer(final Event event) {
+			synchronized (this) {
+				if (event.isRemoval()) {
+					if (removeAddition(this.droppedAdditions.iterator(), event)) {
+						drop(event);
+						return;
+					}
+					if (this.events.size() >= ListenerDispatcher.this.queueCapacity) {
+						if (removeAddition(this.events.descendingIterator(), event)) {
+							// the listener never sees the addition, nor its removal
+							ListenerDispatcher.this.droppedEvents.incrementAndGet();
+							drop(event);
+							return;
+						}
+						// the addition was delivered, so the removal has to follow
+					}
+				} else if (this.events.size() >= ListenerDispatcher.this.queueCapacity) {
+					if (null != event.eventType) {
+						this.droppedAdditions.add(event);
+					}
+					drop(event);
+					return;
+				}
+				this.events.add(event);
+				if (this.scheduled) {
+					return;
+				}
+				this.scheduled = true;
+			}
+			try {
+				ListenerDispatcher.this.executor.execute(this);
+			} catch (final RejectedExecutionException e) {
+				synchronized (this) {
+					this.scheduled = false;
+				}
+				ListenerDispatcher.this.logger.error("executor rejected listener callbacks: " + e.getMessage());
+			}
+		}
+
+		private boolean removeAddition(final Iterator<Event> iterator, final Event removal) {
+			while (iterator.hasNext()) {
+				if (iterator.next().isAdditionOf(removal)) {
+					iterator.remove();
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void drop(final Event event) {
+			ListenerDispatcher.this.droppedEvents.incrementAndGet();
+			ListenerDispatcher.this.logger.error("listener queue full, dropping " + event.name);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				final Event event;
+				synchronized (this) {
+					event = this.events.poll();
+					if (null == event) {
+						this.scheduled = false;
+					}
+				}
+				if (null == event) {
+					forgetIfRemoved(this);
+					return;
+				}
+				final long waitTime = (System.nanoTime() - event.queueTime) / 1000000;
+				if (waitTime > ListenerDispatcher.this.lateThreshold) {
+					ListenerDispatcher.this.lateEvents.incrementAndGet();
+					ListenerDispatcher.this.logger.debug(event.name + " delivered " + waitTime + " ms late");
+				}
+				try {
+					event.callback.run();
+				} catch (final Throwable thrownInListener) {
+					ListenerDispatcher.this.logger
+							.error("Exception thrown in " + event.name + ":" + thrownInListener.getMessage());
+				}
+			}
+		}
+	}
+}
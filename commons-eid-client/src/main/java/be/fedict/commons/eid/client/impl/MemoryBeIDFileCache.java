@@ -0,0 +1,91 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.spi.BeIDFileCache;
+
+/**
+ * In-memory implementation of the eID file cache. Files are kept until the
+ * corresponding card is invalidated.
+ */
+public class MemoryBeIDFileCache implements BeIDFileCache {
+
+	private final Map<String, Map<FileType, byte[]>> cards;
+
+	public MemoryBeIDFileCache() {
+		this.cards = new HashMap<>();
+	}
+
+	@Override
+	public byte[] get(final String cardId, final FileType fileType) {
+		synchronized (this.cards) {
+			final Map<FileType, byte[]> files = this.cards.get(cardId);
+			if (null == files) {
+				return null;
+			}
+			final byte[] data = files.get(fileType);
+			if (null == data) {
+				return null;
+			}
+			return data.clone();
+		}
+	}
+
+	@Override
+	public void put(final String cardId, final FileType fileType, final byte[] data) {
+		synchronized (this.cards) {
+			Map<FileType, byte[]> files = this.cards.get(cardId);
+			if (null == files) {
+				files = new EnumMap<>(FileType.class);
+				this.cards.put(cardId, files);
+			}
+			files.put(fileType, data.clone());
+		}
+	}
+
+	@Override
+	public byte[] find(final FileType fileType, final byte[] prefix) {
+		if (!fileType.isShared()) {
+			return null;
+		}
+		synchronized (this.cards) {
+			for (Map<FileType, byte[]> files : this.cards.values()) {
+				final byte[] data = files.get(fileType);
+				if (null != data && data.length >= prefix.length
+						&& Arrays.equals(prefix, Arrays.copyOf(data, prefix.length))) {
+					return data.clone();
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void invalidate(final String cardId) {
+		synchronized (this.cards) {
+			this.cards.remove(cardId);
+		}
+	}
+}
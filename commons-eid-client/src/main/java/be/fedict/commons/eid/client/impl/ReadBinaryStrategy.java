@@ -0,0 +1,133 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Chooses the block size of READ BINARY commands. Extended-length APDUs are
+ * only used when the card announces support for extended Lc/Le fields in the
+ * card capabilities of its ATR historical bytes, and the card is connected over
+ * T=1. A card terminal that fails on an extended-length APDU is remembered, so
+ * that it is probed only once per JVM.
+ */
+public class ReadBinaryStrategy {
+
+	public static final int SHORT_BLOCK_SIZE = 0xff;
+	public static final int EXTENDED_BLOCK_SIZE = 0x1000;
+
+	private static final Map<String, Boolean> extendedLengthTerminals = new ConcurrentHashMap<>();
+
+	private final Logger logger;
+	private final String terminalName;
+	private boolean extendedLength;
+
+	public ReadBinaryStrategy(final Card card, final CardTerminal cardTerminal, final Logger logger) {
+		this.logger = logger;
+		this.terminalName = null != cardTerminal ? cardTerminal.getName() : null;
+		if (null != this.terminalName && Boolean.FALSE.equals(extendedLengthTerminals.get(this.terminalName))) {
+			this.extendedLength = false;
+		} else {
+			this.extendedLength = "T=1".equals(card.getProtocol()) && hasExtendedLengthCapability(card.getATR());
+		}
+		this.logger.debug("extended length READ BINARY: " + this.extendedLength);
+	}
+
+	/**
+	 * @return the Le to use for the next READ BINARY command.
+	 */
+	public int getBlockSize() {
+		if (this.extendedLength) {
+			return EXTENDED_BLOCK_SIZE;
+		}
+		return SHORT_BLOCK_SIZE;
+	}
+
+	public boolean isExtendedLength() {
+		return this.extendedLength;
+	}
+
+	/**
+	 * Called when an extended-length READ BINARY was accepted by both the card
+	 * terminal and the card.
+	 */
+	public void extendedLengthSucceeded() {
+		if (null != this.terminalName) {
+			extendedLengthTerminals.put(this.terminalName, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Called when an extended-length READ BINARY failed. Subsequent reads, also
+	 * by other cards in the same card terminal, fall back to short APDUs.
+	 *
+	 * @param reason what went wrong, for logging purposes.
+	 */
+	public void extendedLengthFailed(final String reason) {
+		this.logger.debug("extended length READ BINARY failed: " + reason + ", falling back to short APDUs");
+		this.extendedLength = false;
+		if (null != this.terminalName) {
+			extendedLengthTerminals.put(this.terminalName, Boolean.FALSE);
+		}
+	}
+
+	/**
+	 * Checks the card capabilities (compact-TLV tag 7) within the historical bytes
+	 * of the given ATR for the extended Lc and Le fields bit, as defined in ISO
+	 * 7816-4.
+	 *
+	 * @param atr the ATR of the card.
+	 * @return <code>true</code> if the card supports extended-length APDUs.
+	 */
+	public static boolean hasExtendedLengthCapability(final ATR atr) {
+		final byte[] historicalBytes = atr.getHistoricalBytes();
+		if (historicalBytes.length < 2) {
+			return false;
+		}
+		int end;
+		switch (historicalBytes[0]) {
+		case (byte) 0x00:
+			// the last three bytes are the mandatory status indicator
+			end = historicalBytes.length - 3;
+			break;
+		case (byte) 0x80:
+			end = historicalBytes.length;
+			break;
+		default:
+			return false;
+		}
+		int idx = 1;
+		while (idx < end) {
+			final int tag = (historicalBytes[idx] >> 4) & 0xf;
+			final int length = historicalBytes[idx] & 0xf;
+			if (0x7 == tag && length >= 3 && idx + 3 < end) {
+				return 0 != (historicalBytes[idx + 3] & 0x40);
+			}
+			idx += 1 + length;
+		}
+		return false;
+	}
+}
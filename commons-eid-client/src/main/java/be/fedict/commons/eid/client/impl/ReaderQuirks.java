@@ -0,0 +1,115 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.spi.Logger;
+
+/**
+ * Workarounds for card terminals that misbehave. Some card terminals report
+ * SCARD_E_SHARING_VIOLATION when a command immediately follows a SELECT FILE.
+ * For these a short delay is applied after every SELECT FILE.
+ * <p>
+ * Such card terminals can be registered up front by (a fraction of) their name,
+ * similar to the PPDU card terminal names of {@link CCID}. Card terminals that
+ * are not registered get no delay, until a sharing violation is actually
+ * detected. From then on the delay is enabled for that card terminal.
+ */
+public class ReaderQuirks {
+
+	public static final int SELECT_FILE_DELAY = 20;
+
+	public static final Set<String> selectFileDelayNames = ConcurrentHashMap.newKeySet();
+
+	private static final Set<String> calibratedNames = ConcurrentHashMap.newKeySet();
+
+	private final Logger logger;
+	private final String terminalName;
+	private boolean selectFileDelay;
+
+	public ReaderQuirks(final CardTerminal cardTerminal, final Logger logger) {
+		this.logger = logger;
+		this.terminalName = null != cardTerminal ? cardTerminal.getName() : null;
+		this.selectFileDelay = isSelectFileDelayCardTerminal(this.terminalName);
+	}
+
+	/**
+	 * Adds a name of a card terminal that needs a delay after SELECT FILE.
+	 *
+	 * @param name the card terminal name (or a fraction of it).
+	 */
+	public static void addSelectFileDelayName(final String name) {
+		selectFileDelayNames.add(name.toLowerCase());
+	}
+
+	private static boolean isSelectFileDelayCardTerminal(String name) {
+		if (null == name) {
+			return false;
+		}
+		if (calibratedNames.contains(name)) {
+			return true;
+		}
+		name = name.toLowerCase();
+		for (String selectFileDelayName : selectFileDelayNames) {
+			if (name.contains(selectFileDelayName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean needsSelectFileDelay() {
+		return this.selectFileDelay;
+	}
+
+	/**
+	 * Enables the SELECT FILE delay for this card terminal, after a sharing
+	 * violation was detected.
+	 */
+	public void sharingViolationDetected() {
+		this.logger.debug("sharing violation detected, enabling SELECT FILE delay for card terminal: "
+				+ this.terminalName);
+		this.selectFileDelay = true;
+		if (null != this.terminalName) {
+			calibratedNames.add(this.terminalName);
+		}
+	}
+
+	/**
+	 * @param e the exception received while transmitting a command.
+	 * @return <code>true</code> if the exception was caused by a
+	 *         SCARD_E_SHARING_VIOLATION.
+	 */
+	public static boolean isSharingViolation(final CardException e) {
+		Throwable cause = e;
+		while (null != cause) {
+			final String message = cause.getMessage();
+			if (null != message && message.contains("SCARD_E_SHARING_VIOLATION")) {
+				return true;
+			}
+			cause = cause.getCause();
+		}
+		return false;
+	}
+}
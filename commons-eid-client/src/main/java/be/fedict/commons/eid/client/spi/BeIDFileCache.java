@@ -0,0 +1,83 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.spi;
+
+import be.fedict.commons.eid.client.FileType;
+
+/**
+ * Cache for files read from eID cards. Only files that cannot change during the
+ * lifetime of a card are cached, see {@link FileType#isImmutable()}. Entries
+ * are keyed by a card identifier that combines the ATR and the chip serial
+ * number of the card. Files shared by many cards, see
+ * {@link FileType#isShared()}, can also be found by content via
+ * {@link #find(FileType, byte[])}.
+ * <p>
+ * Implementations should be thread-safe, as a single cache can be shared by
+ * several BeIDCard instances.
+ */
+public interface BeIDFileCache {
+
+	/**
+	 * Gives back the cached content of the given file.
+	 * 
+	 * @param cardId   the card identifier.
+	 * @param fileType the file type.
+	 * @return the file content, or <code>null</code> if not cached.
+	 */
+	byte[] get(String cardId, FileType fileType);
+
+	/**
+	 * Stores the content of the given file.
+	 * 
+	 * @param cardId   the card identifier.
+	 * @param fileType the file type.
+	 * @param data     the file content.
+	 */
+	void put(String cardId, FileType fileType, byte[] data);
+
+	/**
+	 * Removes all cached files of the given card.
+	 * 
+	 * @param cardId the card identifier.
+	 */
+	void invalidate(String cardId);
+
+	/**
+	 * Called when the given card is removed from its card terminal. By default,
+	 * removes all cached files of the card. Persistent caches keep them.
+	 * 
+	 * @param cardId the card identifier.
+	 */
+	default void cardRemoved(final String cardId) {
+		invalidate(cardId);
+	}
+
+	/**
+	 * Gives back cached content of a shared file, cached for any card, that starts
+	 * with the given bytes. The first block of a certificate holds its serial
+	 * number and issuer, which identify it.
+	 * 
+	 * @param fileType the file type, for which {@link FileType#isShared()} holds.
+	 * @param prefix   the first bytes of the file, as read from the card.
+	 * @return the file content, or <code>null</code> if not found.
+	 */
+	default byte[] find(final FileType fileType, final byte[] prefix) {
+		return null;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.FileNotFoundException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.AsyncBeIDCard;
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+
+public class AsyncBeIDCardTest {
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		// setup
+		final byte[] identity = new byte[] { 1, 2, 3 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Identity, identity);
+		final AsyncBeIDCard asyncBeIDCard = new AsyncBeIDCard(new BeIDCard(card));
+		final List<CompletableFuture<byte[]>> futures = new LinkedList<>();
+
+		// operate
+		List<Thread> threads = new LinkedList<>();
+		for (int idx = 0; idx < 8; idx++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int count = 0; count < 10; count++) {
+						CompletableFuture<byte[]> future = asyncBeIDCard.readFile(FileType.Identity);
+						synchronized (futures) {
+							futures.add(future);
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// verify
+		assertEquals(80, futures.size());
+		for (CompletableFuture<byte[]> future : futures) {
+			assertArrayEquals(identity, future.get());
+		}
+		assertEquals(80, card.getExclusiveCount());
+		asyncBeIDCard.close().get();
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		// setup
+		FakeBeIDCard card = new FakeBeIDCard();
+		AsyncBeIDCard asyncBeIDCard = new AsyncBeIDCard(new BeIDCard(card));
+
+		// operate
+		CompletableFuture<byte[]> future = asyncBeIDCard.readFile(FileType.Photo);
+
+		// verify
+		try {
+			future.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof FileNotFoundException);
+		}
+
+		// operate: closed
+		asyncBeIDCard.close().get();
+		future = asyncBeIDCard.readFile(FileType.Photo);
+
+		// verify
+		try {
+			future.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
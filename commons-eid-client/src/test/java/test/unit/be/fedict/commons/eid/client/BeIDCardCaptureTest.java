@@ -0,0 +1,127 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.CardTerminal;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCardCapture;
+import be.fedict.commons.eid.client.BeIDCardCapture.CapturedCard;
+import be.fedict.commons.eid.client.BeIDCardCapture.ReaderStatistics;
+import be.fedict.commons.eid.client.BeIDCardManager;
+import be.fedict.commons.eid.client.CardAndTerminalManager;
+import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class BeIDCardCaptureTest {
+
+	@Test
+	public void testCaptureFromSeveralReaders() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		FakeCardTerminal cardTerminal1 = new FakeCardTerminal("Reader 1", null);
+		FakeCardTerminal cardTerminal2 = new FakeCardTerminal("Reader 2", null);
+		cardTerminals.attach(cardTerminal1);
+		cardTerminals.attach(cardTerminal2);
+		CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new VoidLogger(), cardTerminals);
+		cardAndTerminalManager.setProtocol(PROTOCOL.T0);
+		BeIDCardManager cardManager = new BeIDCardManager(new VoidLogger(), cardAndTerminalManager);
+		BeIDCardCapture capture = new BeIDCardCapture(new VoidLogger(), cardManager,
+				EnumSet.of(FileType.Identity, FileType.Address), 10);
+		capture.start();
+		cardAndTerminalManager.start();
+
+		// operate
+		cardTerminals.insert(cardTerminal1, new FakeBeIDCard().setFile(FileType.Identity, new byte[] { 1, 1 })
+				.setFile(FileType.Address, new byte[] { 1, 2, 3 }));
+		cardTerminals.insert(cardTerminal2, new FakeBeIDCard().setFile(FileType.Identity, new byte[] { 2, 2 })
+				.setFile(FileType.Address, new byte[] { 2, 3, 4 }));
+		Map<CardTerminal, CapturedCard> capturedCards = new HashMap<>();
+		for (int idx = 0; idx < 2; idx++) {
+			CapturedCard capturedCard = capture.poll(5, TimeUnit.SECONDS);
+			assertNotNull(capturedCard);
+			capturedCards.put(capturedCard.getCardTerminal(), capturedCard);
+		}
+		capture.stop();
+		cardAndTerminalManager.stop();
+
+		// verify
+		assertArrayEquals(new byte[] { 1, 1 }, capturedCards.get(cardTerminal1).getFile(FileType.Identity));
+		assertArrayEquals(new byte[] { 1, 2, 3 }, capturedCards.get(cardTerminal1).getFile(FileType.Address));
+		assertArrayEquals(new byte[] { 2, 2 }, capturedCards.get(cardTerminal2).getFile(FileType.Identity));
+		assertArrayEquals(new byte[] { 2, 3, 4 }, capturedCards.get(cardTerminal2).getFile(FileType.Address));
+		Map<CardTerminal, ReaderStatistics> statistics = capture.getStatistics();
+		assertEquals(1, statistics.get(cardTerminal1).getCardsCaptured());
+		assertEquals(5, statistics.get(cardTerminal1).getBytesRead());
+		assertEquals(0, statistics.get(cardTerminal2).getCaptureFailures());
+	}
+
+	@Test
+	public void testWorkerEndsOnTerminalDetach() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		FakeCardTerminal cardTerminal = new FakeCardTerminal("Detached Reader", null);
+		cardTerminals.attach(cardTerminal);
+		CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new VoidLogger(), cardTerminals);
+		cardAndTerminalManager.setProtocol(PROTOCOL.T0);
+		BeIDCardManager cardManager = new BeIDCardManager(new VoidLogger(), cardAndTerminalManager);
+		BeIDCardCapture capture = new BeIDCardCapture(new VoidLogger(), cardManager, EnumSet.of(FileType.Identity),
+				10);
+		capture.start();
+		cardAndTerminalManager.start();
+		cardTerminals.insert(cardTerminal, new FakeBeIDCard().setFile(FileType.Identity, new byte[] { 1, 1 }));
+		assertNotNull(capture.poll(5, TimeUnit.SECONDS));
+		assertTrue(isWorkerAlive("BeIDCard capture Detached Reader"));
+
+		// operate
+		cardTerminals.remove(cardTerminal);
+		cardTerminals.detach(cardTerminal);
+		long timeout = System.currentTimeMillis() + 5000;
+		while (isWorkerAlive("BeIDCard capture Detached Reader") && System.currentTimeMillis() < timeout) {
+			Thread.sleep(50);
+		}
+
+		// verify
+		assertFalse(isWorkerAlive("BeIDCard capture Detached Reader"));
+		capture.stop();
+		cardAndTerminalManager.stop();
+	}
+
+	private static boolean isWorkerAlive(final String name) {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (name.equals(thread.getName()) && thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.BeIDCardDiscovery;
+import be.fedict.commons.eid.client.BeIDCards;
+import be.fedict.commons.eid.client.CancelledException;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+import be.fedict.commons.eid.client.spi.BeIDCardsUI;
+
+public class BeIDCardDiscoveryTest {
+
+	@Test
+	public void testSharedDiscovery() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		FakeCardTerminal cardTerminal = new FakeCardTerminal("Reader", null);
+		cardTerminals.attach(cardTerminal);
+		cardTerminals.insert(cardTerminal, new FakeBeIDCard());
+		BeIDCardDiscovery discovery = new BeIDCardDiscovery(new VoidLogger(), cardTerminals);
+
+		// operate
+		BeIDCards beIDCards = new BeIDCards(new VoidLogger(), null, discovery);
+		BeIDCard beIDCard = beIDCards.getOneBeIDCard();
+		beIDCards.close();
+
+		// verify
+		assertSame(cardTerminal, beIDCard.getCardTerminal());
+
+		// operate: a second BeIDCards finds the same card right away
+		BeIDCards beIDCards2 = new BeIDCards(new VoidLogger(), null, discovery);
+		assertTrue(discovery.isCardsInitialized());
+		BeIDCard beIDCard2 = beIDCards2.getOneBeIDCard();
+		beIDCards2.close();
+
+		// verify
+		assertSame(beIDCard, beIDCard2);
+		assertEquals(1, discovery.getCardTerminalsAttached());
+
+		// operate
+		discovery.release();
+
+		// verify
+		try {
+			new BeIDCards(new VoidLogger(), null, discovery);
+			fail();
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testGetOneBeIDCardTimeout() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		cardTerminals.attach(new FakeCardTerminal("Reader", null));
+		BeIDCardDiscovery discovery = new BeIDCardDiscovery(new VoidLogger(), cardTerminals);
+		BeIDCards beIDCards = new BeIDCards(new VoidLogger(), new NoBeIDCardsUI(), discovery);
+
+		// operate
+		try {
+			beIDCards.getOneBeIDCard(null, 200, TimeUnit.MILLISECONDS);
+			fail();
+		} catch (final TimeoutException e) {
+			// expected
+		}
+
+		beIDCards.close();
+		discovery.release();
+	}
+
+	@Test
+	public void testInsertionWakesUpWaitingCaller() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		FakeCardTerminal cardTerminal = new FakeCardTerminal("Reader", null);
+		cardTerminals.attach(cardTerminal);
+		BeIDCardDiscovery discovery = new BeIDCardDiscovery(new VoidLogger(), cardTerminals);
+		final BeIDCards beIDCards = new BeIDCards(new VoidLogger(), new NoBeIDCardsUI(), discovery);
+		final BlockingQueue<BeIDCard> result = new LinkedBlockingQueue<>();
+		Thread caller = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result.add(beIDCards.getOneBeIDCard(null, 5, TimeUnit.SECONDS));
+				} catch (final Exception e) {
+					// result stays empty
+				}
+			}
+		});
+		caller.start();
+		Thread.sleep(200);
+
+		// operate
+		cardTerminals.insert(cardTerminal, new FakeBeIDCard());
+
+		// verify
+		BeIDCard beIDCard = result.poll(5, TimeUnit.SECONDS);
+		assertNotNull(beIDCard);
+		assertSame(cardTerminal, beIDCard.getCardTerminal());
+
+		beIDCards.close();
+		discovery.release();
+	}
+
+	private static class NoBeIDCardsUI implements BeIDCardsUI {
+
+		@Override
+		public void setLocale(final Locale newLocale) {
+		}
+
+		@Override
+		public Locale getLocale() {
+			return Locale.getDefault();
+		}
+
+		@Override
+		public void adviseCardTerminalRequired() {
+		}
+
+		@Override
+		public void adviseBeIDCardRequired() {
+		}
+
+		@Override
+		public void adviseBeIDCardRemovalRequired() {
+		}
+
+		@Override
+		public void adviseEnd() {
+		}
+
+		@Override
+		public BeIDCard selectBeIDCard(final Collection<BeIDCard> availableCards) throws CancelledException {
+			throw new CancelledException();
+		}
+
+		@Override
+		public void eIDCardInsertedDuringSelection(final BeIDCard card) {
+		}
+
+		@Override
+		public void eIDCardRemovedDuringSelection(final BeIDCard card) {
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.impl.MemoryBeIDFileCache;
+
+public class BeIDCardFileCacheTest {
+
+	@Test
+	public void testCachedRead() throws Exception {
+		// setup
+		byte[] rootCertificate = new byte[1426];
+		rootCertificate[0] = 0x30;
+		rootCertificate[1] = (byte) 0x82;
+		rootCertificate[2] = 0x05;
+		rootCertificate[3] = (byte) 0x8e;
+		byte[] address = new byte[] { 1, 2, 3 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.RootCertificate, rootCertificate);
+		card.setFile(FileType.Address, address);
+		MemoryBeIDFileCache fileCache = new MemoryBeIDFileCache();
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setFileCache(fileCache);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.RootCertificate);
+		int readCount = card.countCommands(0xB0);
+		byte[] result2 = beIDCard.readFile(FileType.RootCertificate);
+
+		// verify
+		assertArrayEquals(rootCertificate, result);
+		assertArrayEquals(rootCertificate, result2);
+		assertEquals(readCount, card.countCommands(0xB0));
+		assertEquals(1, card.countCommands(0xA4));
+		assertEquals(1, card.countCommands(0xE4));
+
+		// operate: mutable files are never cached
+		beIDCard.readFile(FileType.Address);
+		beIDCard.readFile(FileType.Address);
+
+		// verify
+		assertEquals(3, card.countCommands(0xA4));
+
+		// operate: a new instance for the same card shares the cache
+		BeIDCard beIDCard2 = new BeIDCard(card);
+		beIDCard2.setFileCache(fileCache);
+		beIDCard2.readFile(FileType.RootCertificate);
+
+		// verify
+		assertEquals(3, card.countCommands(0xA4));
+		assertEquals(2, card.countCommands(0xE4));
+
+		// operate: card removal
+		beIDCard2.invalidateFileCache();
+		beIDCard2.readFile(FileType.RootCertificate);
+
+		// verify
+		assertEquals(4, card.countCommands(0xA4));
+	}
+
+	@Test
+	public void testSharedCertificateFromOtherCard() throws Exception {
+		// setup
+		byte[] rootCertificate = new byte[1426];
+		rootCertificate[0] = 0x30;
+		rootCertificate[1] = (byte) 0x82;
+		rootCertificate[2] = 0x05;
+		rootCertificate[3] = (byte) 0x8e;
+		rootCertificate[1000] = 1;
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.RootCertificate, rootCertificate);
+		FakeBeIDCard card2 = new FakeBeIDCard();
+		card2.setFile(FileType.RootCertificate, rootCertificate);
+		card2.setCardData(new byte[28]);
+		MemoryBeIDFileCache fileCache = new MemoryBeIDFileCache();
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setFileCache(fileCache);
+		beIDCard.readFile(FileType.RootCertificate);
+		BeIDCard beIDCard2 = new BeIDCard(card2);
+		beIDCard2.setFileCache(fileCache);
+
+		// operate
+		byte[] result = beIDCard2.readFile(FileType.RootCertificate);
+
+		// verify
+		assertArrayEquals(rootCertificate, result);
+		assertEquals(1, card2.countCommands(0xB0));
+		assertArrayEquals(rootCertificate, fileCache.get(beIDCard2.getCardId(), FileType.RootCertificate));
+	}
+}
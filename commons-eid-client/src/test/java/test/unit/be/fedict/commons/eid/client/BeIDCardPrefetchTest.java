@@ -0,0 +1,143 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+
+public class BeIDCardPrefetchTest {
+
+	@Test
+	public void testPrefetchedFilesServeReads() throws Exception {
+		// setup
+		byte[] identity = new byte[] { 1, 2, 3 };
+		byte[] address = new byte[] { 4, 5, 6 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Identity, identity);
+		card.setFile(FileType.Address, address);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		beIDCard.prefetchFiles(EnumSet.of(FileType.Identity, FileType.Address));
+		int commandCount = card.getCommands().size();
+		byte[] identityResult = beIDCard.readFile(FileType.Identity);
+		byte[] addressResult = beIDCard.readFile(FileType.Address);
+
+		// verify
+		assertArrayEquals(identity, identityResult);
+		assertArrayEquals(address, addressResult);
+		assertEquals(commandCount, card.getCommands().size());
+
+		// operate
+		beIDCard.invalidateFileCache();
+		beIDCard.readFile(FileType.Address);
+
+		// verify
+		assertTrue(card.getCommands().size() > commandCount);
+	}
+
+	@Test
+	public void testPrefetchYieldsToForeground() throws Exception {
+		// setup
+		final CountDownLatch readBinaryStarted = new CountDownLatch(1);
+		final CountDownLatch releaseReadBinary = new CountDownLatch(1);
+		final List<String> selectedFiles = new ArrayList<>();
+		FakeBeIDCard card = new FakeBeIDCard() {
+			@Override
+			protected ResponseAPDU process(final CommandAPDU command) {
+				if (0xA4 == command.getINS() && 0x08 == command.getP1()) {
+					selectedFiles.add(Arrays.toString(command.getData()));
+				}
+				if (0xB0 == command.getINS() && 1 == readBinaryStarted.getCount()) {
+					readBinaryStarted.countDown();
+					try {
+						releaseReadBinary.await();
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.process(command);
+			}
+		};
+		card.setFile(FileType.Identity, new byte[] { 1, 2, 3 });
+		card.setFile(FileType.Address, new byte[] { 4, 5, 6 });
+		card.setFile(FileType.Photo, new byte[] { (byte) 0xff, (byte) 0xd8 });
+		final BeIDCard beIDCard = new BeIDCard(card);
+		final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+		Thread prefetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					beIDCard.prefetchFiles(EnumSet.of(FileType.Identity, FileType.Photo));
+					results.add("prefetched");
+				} catch (final Exception e) {
+					results.add(e);
+				}
+			}
+		});
+		Thread foreground = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					results.add(beIDCard.readFile(FileType.Address));
+				} catch (final Exception e) {
+					results.add(e);
+				}
+			}
+		});
+
+		// operate
+		prefetcher.start();
+		assertTrue(readBinaryStarted.await(5, TimeUnit.SECONDS));
+		foreground.start();
+		// the foreground read waits for the identity file being prefetched
+		Thread.sleep(100);
+		releaseReadBinary.countDown();
+		prefetcher.join(5000);
+		foreground.join(5000);
+
+		// verify
+		assertEquals(2, results.size());
+		for (Object result : results) {
+			assertTrue(result instanceof byte[] || "prefetched".equals(result), result.toString());
+		}
+		// the foreground read went before the remaining prefetch work
+		assertEquals(Arrays.asList(Arrays.toString(FileType.Identity.getFileId()),
+				Arrays.toString(FileType.Address.getFileId()), Arrays.toString(FileType.Photo.getFileId())),
+				selectedFiles);
+	}
+}
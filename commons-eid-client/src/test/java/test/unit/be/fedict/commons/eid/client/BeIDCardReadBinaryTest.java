@@ -0,0 +1,212 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.BeIDFileInputStream;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.impl.ReadBinaryStrategy;
+
+public class BeIDCardReadBinaryTest {
+
+	/*
+	 * Historical bytes: category indicator 0x80, card capabilities with the
+	 * extended Lc and Le fields bit set.
+	 */
+	private static final ATR EXTENDED_LENGTH_ATR = new ATR(
+			new byte[] { 0x3b, 0x05, (byte) 0x80, 0x73, 0x00, 0x00, 0x40 });
+
+	@Test
+	public void testExtendedLengthCapability() throws Exception {
+		assertTrue(ReadBinaryStrategy.hasExtendedLengthCapability(EXTENDED_LENGTH_ATR));
+		assertFalse(ReadBinaryStrategy.hasExtendedLengthCapability(new FakeBeIDCard().getATR()));
+		assertFalse(ReadBinaryStrategy
+				.hasExtendedLengthCapability(new ATR(new byte[] { 0x3b, 0x05, (byte) 0x80, 0x73, 0x00, 0x00, 0x00 })));
+	}
+
+	@Test
+	public void testShortReads() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		photo[0] = (byte) 0xff;
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, photo);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Photo);
+
+		// verify
+		assertArrayEquals(photo, result);
+		assertEquals(12, card.countCommands(0xB0));
+	}
+
+	@Test
+	public void testExtendedLengthReads() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		photo[0] = (byte) 0xff;
+		FakeBeIDCard card = new FakeBeIDCard(EXTENDED_LENGTH_ATR);
+		card.setProtocol("T=1");
+		card.setMaxResponseLength(0x10000);
+		card.setFile(FileType.Photo, photo);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Photo);
+
+		// verify: the end of the file is only detected by the wrong offset
+		assertArrayEquals(photo, result);
+		assertEquals(2, card.countCommands(0xB0));
+	}
+
+	@Test
+	public void testExtendedLengthShortResponses() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		photo[0] = (byte) 0xff;
+		photo[2999] = 0x01;
+		FakeBeIDCard card = new FakeBeIDCard(EXTENDED_LENGTH_ATR) {
+
+			@Override
+			protected ResponseAPDU process(final CommandAPDU command) {
+				final ResponseAPDU responseApdu = super.process(command);
+				if (0xB0 != command.getINS() || responseApdu.getData().length <= 0x400) {
+					return responseApdu;
+				}
+				// a reader that returns at most 1 KB per response
+				return response(Arrays.copyOf(responseApdu.getData(), 0x400));
+			}
+		};
+		card.setProtocol("T=1");
+		card.setMaxResponseLength(0x10000);
+		card.setFile(FileType.Photo, photo);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Photo);
+
+		// verify
+		assertArrayEquals(photo, result);
+		assertEquals(4, card.countCommands(0xB0));
+
+		// operate
+		ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+		try (BeIDFileInputStream inputStream = beIDCard.openFile(FileType.Photo)) {
+			byte[] buffer = new byte[0x1000];
+			int count;
+			while (-1 != (count = inputStream.read(buffer))) {
+				streamed.write(buffer, 0, count);
+			}
+		}
+
+		// verify
+		assertArrayEquals(photo, streamed.toByteArray());
+	}
+
+	@Test
+	public void testExtendedLengthFallback() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		photo[0] = (byte) 0xff;
+		FakeBeIDCard card = new FakeBeIDCard(EXTENDED_LENGTH_ATR);
+		card.setProtocol("T=1");
+		card.setFile(FileType.Photo, photo);
+		CardTerminal cardTerminal = new FakeCardTerminal("Short Length Reader " + System.nanoTime(), card);
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(cardTerminal);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Photo);
+
+		// verify
+		assertArrayEquals(photo, result);
+		assertEquals(1 + 12, card.countCommands(0xB0));
+
+		// operate: the card terminal is remembered
+		BeIDCard beIDCard2 = new BeIDCard(card);
+		beIDCard2.setCardTerminal(cardTerminal);
+		beIDCard2.readFile(FileType.Photo);
+
+		// verify
+		assertEquals(1 + 12 + 12, card.countCommands(0xB0));
+	}
+
+	@Test
+	public void testDERLengthStopsAtEndOfFile() throws Exception {
+		// setup
+		byte[] certificate = derSequence(4 * 255);
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.RootCertificate, certificate);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.RootCertificate);
+
+		// verify: no trailing READ BINARY to detect the end of the file
+		assertArrayEquals(certificate, result);
+		assertEquals(4, card.countCommands(0xB0));
+	}
+
+	@Test
+	public void testDERLengthIgnoresPadding() throws Exception {
+		// setup
+		byte[] certificate = derSequence(600);
+		byte[] paddedFile = Arrays.copyOf(certificate, 1000);
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.CACertificate, paddedFile);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.CACertificate);
+
+		// verify
+		assertArrayEquals(certificate, result);
+		assertEquals(3, card.countCommands(0xB0));
+		assertEquals(600 - 2 * 255, card.getCommands().get(card.getCommands().size() - 1).getNe());
+	}
+
+	private static byte[] derSequence(final int size) {
+		byte[] data = new byte[size];
+		int contentLength = size - 4;
+		data[0] = 0x30;
+		data[1] = (byte) 0x82;
+		data[2] = (byte) (contentLength >> 8);
+		data[3] = (byte) contentLength;
+		for (int idx = 4; idx < size; idx++) {
+			data[idx] = (byte) idx;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.smartcardio.CommandAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.event.BeIDCardAdapter;
+
+public class BeIDCardReadFilesTest {
+
+	@Test
+	public void testReadFiles() throws Exception {
+		// setup
+		byte[] identity = new byte[] { 1, 2, 3 };
+		byte[] address = new byte[] { 4, 5, 6 };
+		byte[] rootCertificate = new byte[] { 0x30, 0x01, 0x07 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Identity, identity);
+		card.setFile(FileType.Address, address);
+		card.setFile(FileType.RootCertificate, rootCertificate);
+		BeIDCard beIDCard = new BeIDCard(card);
+		final EnumSet<FileType> progress = EnumSet.noneOf(FileType.class);
+		beIDCard.addCardListener(new BeIDCardAdapter() {
+			@Override
+			public void notifyReadProgress(final FileType fileType, final int offset, final int estimatedMaxSize) {
+				progress.add(fileType);
+			}
+		});
+
+		// operate
+		Map<FileType, byte[]> files = beIDCard
+				.readFiles(EnumSet.of(FileType.Identity, FileType.RootCertificate, FileType.Address));
+
+		// verify
+		assertEquals(1, card.getExclusiveCount());
+		assertEquals(3, files.size());
+		assertArrayEquals(identity, files.get(FileType.Identity));
+		assertArrayEquals(address, files.get(FileType.Address));
+		assertArrayEquals(rootCertificate, files.get(FileType.RootCertificate));
+		assertEquals(EnumSet.of(FileType.Identity, FileType.RootCertificate, FileType.Address), progress);
+
+		// verify: the certificate directory comes first
+		CommandAPDU firstSelect = null;
+		for (CommandAPDU command : card.getCommands()) {
+			if (0xA4 == command.getINS()) {
+				firstSelect = command;
+				break;
+			}
+		}
+		assertArrayEquals(FileType.RootCertificate.getFileId(), firstSelect.getData());
+
+		try {
+			files.put(FileType.Photo, new byte[0]);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRawCertificateChain() throws Exception {
+		// setup
+		byte[] authnCertificate = new byte[] { 0x30, 0x01, 0x01 };
+		byte[] caCertificate = new byte[] { 0x30, 0x01, 0x02 };
+		byte[] rootCertificate = new byte[] { 0x30, 0x01, 0x03 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.AuthentificationCertificate, authnCertificate);
+		card.setFile(FileType.CACertificate, caCertificate);
+		card.setFile(FileType.RootCertificate, rootCertificate);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		List<byte[]> chain = beIDCard.getRawAuthenticationCertificateChain();
+
+		// verify
+		assertEquals(1, card.getExclusiveCount());
+		assertEquals(3, chain.size());
+		assertArrayEquals(authnCertificate, chain.get(0));
+		assertArrayEquals(caCertificate, chain.get(1));
+		assertArrayEquals(rootCertificate, chain.get(2));
+	}
+
+	@Test
+	public void testRangedRead() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		for (int idx = 0; idx < photo.length; idx++) {
+			photo[idx] = (byte) idx;
+		}
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, photo);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Photo, 1000, 20);
+
+		// verify
+		assertArrayEquals(Arrays.copyOfRange(photo, 1000, 1020), result);
+		assertEquals(1, card.countCommands(0xB0));
+		for (CommandAPDU command : card.getCommands()) {
+			if (0xB0 == command.getINS()) {
+				assertEquals(20, command.getNe());
+			}
+		}
+
+		// operate: past the end of the file
+		result = beIDCard.readFile(FileType.Photo, 2990, 20);
+
+		// verify
+		assertArrayEquals(Arrays.copyOfRange(photo, 2990, 3000), result);
+	}
+
+	@Test
+	public void testRangedReadBeyondMaximumOffset() throws Exception {
+		// setup
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, new byte[0x8000]);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate & verify
+		try {
+			beIDCard.readFile(FileType.Photo, 0x7ff0, 0x20);
+			fail();
+		} catch (final IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(0, card.countCommands(0xA4));
+		assertEquals(0x10, beIDCard.readFile(FileType.Photo, 0x7ff0, 0x10).length);
+	}
+
+	@Test
+	public void testReadFileFields() throws Exception {
+		// setup
+		ByteArrayOutputStream identity = new ByteArrayOutputStream();
+		writeField(identity, 1, "591234567890".getBytes(StandardCharsets.US_ASCII));
+		writeField(identity, 2, new byte[16]);
+		writeField(identity, 3, "01.01.2020".getBytes(StandardCharsets.US_ASCII));
+		writeField(identity, 4, "01.01.2030".getBytes(StandardCharsets.US_ASCII));
+		writeField(identity, 5, "Gent".getBytes(StandardCharsets.US_ASCII));
+		writeField(identity, 6, "12345678901".getBytes(StandardCharsets.US_ASCII));
+		writeField(identity, 7, new byte[100]);
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Identity, identity.toByteArray());
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		Map<Integer, byte[]> fields = beIDCard.readFileFields(FileType.Identity, 1, 6);
+
+		// verify
+		assertEquals(2, fields.size());
+		assertArrayEquals("591234567890".getBytes(StandardCharsets.US_ASCII), fields.get(1));
+		assertArrayEquals("12345678901".getBytes(StandardCharsets.US_ASCII), fields.get(6));
+		// two small blocks instead of the whole file
+		assertEquals(2, card.countCommands(0xB0));
+
+		// operate: a field that is not in the file
+		fields = beIDCard.readFileFields(FileType.Identity, 1, 42);
+
+		// verify
+		assertEquals(1, fields.size());
+	}
+
+	private static void writeField(final ByteArrayOutputStream output, final int tag, final byte[] value) {
+		output.write(tag);
+		output.write(value.length);
+		output.write(value, 0, value.length);
+	}
+}
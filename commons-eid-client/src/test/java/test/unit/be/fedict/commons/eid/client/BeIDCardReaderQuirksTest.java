@@ -0,0 +1,66 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.smartcardio.CardTerminal;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.impl.ReaderQuirks;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class BeIDCardReaderQuirksTest {
+
+	@Test
+	public void testRegisteredName() throws Exception {
+		ReaderQuirks.addSelectFileDelayName("Slow Reader");
+
+		assertTrue(new ReaderQuirks(new FakeCardTerminal("ACME slow reader 00 00", null), new VoidLogger())
+				.needsSelectFileDelay());
+		assertFalse(new ReaderQuirks(new FakeCardTerminal("ACME fast reader 00 00", null), new VoidLogger())
+				.needsSelectFileDelay());
+		assertFalse(new ReaderQuirks(null, new VoidLogger()).needsSelectFileDelay());
+	}
+
+	@Test
+	public void testSharingViolationCalibration() throws Exception {
+		// setup
+		byte[] identity = new byte[] { 1, 2, 3 };
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Identity, identity);
+		card.setSharingViolations(1);
+		CardTerminal cardTerminal = new FakeCardTerminal("Sharing Violation Reader " + System.nanoTime(), card);
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(cardTerminal);
+		assertFalse(new ReaderQuirks(cardTerminal, new VoidLogger()).needsSelectFileDelay());
+
+		// operate
+		byte[] result = beIDCard.readFile(FileType.Identity);
+
+		// verify
+		assertArrayEquals(identity, result);
+		assertTrue(new ReaderQuirks(cardTerminal, new VoidLogger()).needsSelectFileDelay());
+	}
+}
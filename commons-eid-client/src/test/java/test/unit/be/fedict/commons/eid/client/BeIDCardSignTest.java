@@ -0,0 +1,331 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.PINPurpose;
+import be.fedict.commons.eid.client.event.BatchSigningListener;
+import be.fedict.commons.eid.client.impl.BeIDDigest;
+import be.fedict.commons.eid.client.spi.BeIDCardUIAdapter;
+
+public class BeIDCardSignTest {
+
+	@Test
+	public void testSignAll() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		final List<PINPurpose> pinRequests = new ArrayList<>();
+		beIDCard.setUI(new BeIDCardUIAdapter() {
+			@Override
+			public char[] obtainPIN(final int triesLeft, final PINPurpose type, final String applicationName) {
+				pinRequests.add(type);
+				return "1234".toCharArray();
+			}
+		});
+		List<byte[]> digestValues = new ArrayList<>();
+		for (int idx = 0; idx < 5; idx++) {
+			byte[] digestValue = new byte[20];
+			Arrays.fill(digestValue, (byte) idx);
+			digestValues.add(digestValue);
+		}
+		card.refusedDigestValue = digestValues.get(2);
+		final List<String> events = new ArrayList<>();
+
+		// operate
+		List<byte[]> signatures = beIDCard.signAll(digestValues, BeIDDigest.SHA_1,
+				FileType.AuthentificationCertificate, false, null, new BatchSigningListener() {
+					@Override
+					public void signatureCreated(final int index, final int count) {
+						events.add("created " + index + "/" + count);
+					}
+
+					@Override
+					public void signatureFailed(final int index, final int count, final Exception cause) {
+						events.add("failed " + index + "/" + count);
+					}
+				});
+
+		// verify
+		assertEquals(5, signatures.size());
+		for (int idx = 0; idx < 5; idx++) {
+			if (2 == idx) {
+				assertNull(signatures.get(idx));
+			} else {
+				assertArrayEquals(new byte[] { (byte) idx }, signatures.get(idx));
+			}
+		}
+		assertEquals(Arrays.asList("created 0/5", "created 1/5", "failed 2/5", "created 3/5", "created 4/5"),
+				events);
+		// the refused digest value was retried after selecting the key again
+		assertEquals(2, card.countCommands(0x22));
+		assertEquals(1, card.countCommands(0x20));
+		assertEquals(Arrays.asList(PINPurpose.fromFileType(FileType.AuthentificationCertificate)), pinRequests);
+		assertEquals(1, card.getExclusiveCount());
+	}
+
+	@Test
+	public void testKeySelectionPerTransaction() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		card.pinVerified = true;
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		byte[] digestValue = new byte[20];
+
+		// operate
+		beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+		beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+
+		// verify: another application may have selected another key in between
+		assertEquals(2, card.countCommands(0x22));
+		assertEquals(2, card.countCommands(0x2A));
+
+		// operate
+		beIDCard.signAll(Arrays.asList(digestValue, digestValue), BeIDDigest.SHA_1,
+				FileType.AuthentificationCertificate, false);
+
+		// verify: selected once within the transaction
+		assertEquals(3, card.countCommands(0x22));
+		assertEquals(4, card.countCommands(0x2A));
+
+		// operate: two signatures within one transaction of the caller
+		beIDCard.beginExclusive();
+		try {
+			beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+			beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+		} finally {
+			beIDCard.endExclusive();
+		}
+
+		// verify: one MSE SET for both
+		assertEquals(4, card.countCommands(0x22));
+		assertEquals(6, card.countCommands(0x2A));
+		assertEquals(4, card.getExclusiveCount());
+
+		// operate: the transaction has ended
+		beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+
+		// verify
+		assertEquals(5, card.countCommands(0x22));
+	}
+
+	@Test
+	public void testSignFutureDigestValue() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		final BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		final CountDownLatch pinRequested = new CountDownLatch(1);
+		beIDCard.setUI(new BeIDCardUIAdapter() {
+			@Override
+			public char[] obtainPIN(final int triesLeft, final PINPurpose type, final String applicationName) {
+				pinRequested.countDown();
+				return "1234".toCharArray();
+			}
+		});
+		final CompletableFuture<byte[]> digestValue = new CompletableFuture<>();
+		FutureTask<byte[]> signature = new FutureTask<>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws Exception {
+				return beIDCard.sign(digestValue, 5, TimeUnit.SECONDS, BeIDDigest.SHA_1,
+						FileType.NonRepudiationCertificate, false, null);
+			}
+		});
+
+		// operate
+		new Thread(signature).start();
+		assertTrue(pinRequested.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		// the card is not held while the digest value is being computed
+		assertEquals(0, card.getExclusiveCount());
+		beIDCard.beginExclusive();
+		beIDCard.endExclusive();
+		byte[] value = new byte[20];
+		value[0] = 7;
+		digestValue.complete(value);
+
+		// verify: the PIN obtained ahead is verified within the signing transaction
+		assertArrayEquals(new byte[] { 7 }, signature.get(5, TimeUnit.SECONDS));
+		assertEquals(1, card.countCommands(0x22));
+		assertEquals(1, card.countCommands(0x20));
+		assertEquals(1, card.countCommands(0x2A));
+		assertEquals(2, card.getExclusiveCount());
+	}
+
+	@Test
+	public void testSignCancelledDigestValue() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		card.pinVerified = true;
+		BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		CompletableFuture<byte[]> digestValue = new CompletableFuture<>();
+		digestValue.cancel(false);
+
+		// operate
+		try {
+			beIDCard.sign(digestValue, 5, TimeUnit.SECONDS, BeIDDigest.SHA_1, FileType.AuthentificationCertificate,
+					false, null);
+			fail();
+		} catch (final CancellationException e) {
+			// expected
+		}
+
+		// verify: no signature, and the card is available again
+		assertEquals(0, card.countCommands(0x2A));
+		beIDCard.sign(new byte[20], BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+		assertEquals(1, card.countCommands(0x2A));
+	}
+
+	@Test
+	public void testSignWaitsForOtherThread() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		card.pinVerified = true;
+		final BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		final byte[] digestValue = new byte[20];
+		digestValue[0] = 3;
+		FutureTask<byte[]> signature = new FutureTask<>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws Exception {
+				return beIDCard.sign(digestValue, BeIDDigest.SHA_1, FileType.AuthentificationCertificate, false);
+			}
+		});
+
+		// operate: e.g. a secure random sending GET CHALLENGE on the same card
+		beIDCard.beginExclusive();
+		new Thread(signature).start();
+		Thread.sleep(100);
+		assertFalse(signature.isDone());
+		beIDCard.endExclusive();
+
+		// verify
+		assertArrayEquals(new byte[] { 3 }, signature.get(5, TimeUnit.SECONDS));
+		assertEquals(2, card.getExclusiveCount());
+	}
+
+	@Test
+	public void testConcurrentSigning() throws Exception {
+		// setup
+		SigningCard card = new SigningCard();
+		card.pinVerified = true;
+		final BeIDCard beIDCard = new BeIDCard(card);
+		beIDCard.setCardTerminal(new FakeCardTerminal("Reader", card));
+		beIDCard.setUI(new BeIDCardUIAdapter() {
+			@Override
+			public char[] obtainPIN(final int triesLeft, final PINPurpose type, final String applicationName) {
+				return "1234".toCharArray();
+			}
+		});
+		List<FutureTask<byte[]>> signatures = new ArrayList<>();
+		for (int idx = 0; idx < 2; idx++) {
+			final byte[] digestValue = new byte[20];
+			digestValue[0] = (byte) idx;
+			final FileType fileType = 0 == idx ? FileType.AuthentificationCertificate
+					: FileType.NonRepudiationCertificate;
+			signatures.add(new FutureTask<>(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws Exception {
+					byte[] signatureValue = null;
+					for (int count = 0; count < 20; count++) {
+						signatureValue = beIDCard.sign(digestValue, BeIDDigest.SHA_1, fileType, false);
+					}
+					return signatureValue;
+				}
+			}));
+		}
+
+		// operate: e.g. two key stores on the shared card
+		for (FutureTask<byte[]> signature : signatures) {
+			new Thread(signature).start();
+		}
+
+		// verify
+		for (int idx = 0; idx < 2; idx++) {
+			assertArrayEquals(new byte[] { (byte) idx }, signatures.get(idx).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(40, card.countCommands(0x2A));
+	}
+
+	private static class SigningCard extends FakeBeIDCard {
+
+		private boolean pinVerified;
+
+		private byte[] securityEnvironment;
+
+		private byte[] refusedDigestValue;
+
+		@Override
+		protected ResponseAPDU process(final CommandAPDU command) {
+			switch (command.getINS()) {
+			case 0x22:
+				this.securityEnvironment = command.getData();
+				return response(new byte[0]);
+			case 0x20:
+				this.pinVerified = true;
+				return response(new byte[0]);
+			case 0xE6:
+				this.pinVerified = false;
+				return response(new byte[0]);
+			case 0x2A: {
+				if (null == this.securityEnvironment) {
+					return new ResponseAPDU(new byte[] { 0x69, (byte) 0x85 });
+				}
+				if (!this.pinVerified) {
+					return new ResponseAPDU(new byte[] { 0x69, (byte) 0x82 });
+				}
+				byte[] data = command.getData();
+				byte[] digestValue = Arrays.copyOfRange(data, data.length - 20, data.length);
+				if (Arrays.equals(this.refusedDigestValue, digestValue)) {
+					return new ResponseAPDU(new byte[] { 0x6a, (byte) 0x80 });
+				}
+				return response(new byte[] { digestValue[0] });
+			}
+			default:
+				return super.process(command);
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.BeIDFileInputStream;
+import be.fedict.commons.eid.client.FileType;
+
+public class BeIDFileInputStreamTest {
+
+	@Test
+	public void testReadsBlocksOnDemand() throws Exception {
+		// setup
+		byte[] photo = new byte[3000];
+		for (int idx = 0; idx < photo.length; idx++) {
+			photo[idx] = (byte) idx;
+		}
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, photo);
+		BeIDCard beIDCard = new BeIDCard(card);
+		byte[] buffer = new byte[10];
+
+		// operate
+		BeIDFileInputStream inputStream = beIDCard.openFile(FileType.Photo);
+		inputStream.read(buffer);
+
+		// verify
+		assertArrayEquals(Arrays.copyOf(photo, 10), buffer);
+		assertEquals(1, card.countCommands(0xB0));
+
+		// operate
+		assertEquals(2000, inputStream.skip(2000));
+		int value = inputStream.read();
+
+		// verify
+		assertEquals(photo[2010] & 0xff, value);
+		assertEquals(2, card.countCommands(0xB0));
+		assertEquals(2011, inputStream.getPosition());
+
+		// operate
+		ByteArrayOutputStream rest = new ByteArrayOutputStream();
+		ByteBuffer byteBuffer = ByteBuffer.allocate(100);
+		while (-1 != inputStream.read(byteBuffer)) {
+			rest.write(byteBuffer.array(), 0, byteBuffer.position());
+			byteBuffer.clear();
+		}
+		inputStream.close();
+
+		// verify
+		assertArrayEquals(Arrays.copyOfRange(photo, 2011, 3000), rest.toByteArray());
+		assertFalse(inputStream.isOpen());
+		// the card is available again
+		assertArrayEquals(photo, beIDCard.readFile(FileType.Photo));
+	}
+
+	@Test
+	public void testDEREncodedFileEndsAtDERLength() throws Exception {
+		// setup
+		byte[] certificate = new byte[300];
+		certificate[0] = 0x30;
+		certificate[1] = (byte) 0x82;
+		certificate[2] = 0x01;
+		certificate[3] = 0x00;
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.AuthentificationCertificate, certificate);
+		BeIDCard beIDCard = new BeIDCard(card);
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[64];
+
+		// operate
+		try (BeIDFileInputStream inputStream = beIDCard.openFile(FileType.AuthentificationCertificate)) {
+			int count;
+			while (-1 != (count = inputStream.read(buffer))) {
+				result.write(buffer, 0, count);
+			}
+		}
+
+		// verify
+		assertArrayEquals(Arrays.copyOf(certificate, 4 + 0x100), result.toByteArray());
+		assertEquals(2, card.countCommands(0xB0));
+	}
+
+	@Test
+	public void testCloseOnOtherThread() throws Exception {
+		// setup
+		byte[] photo = new byte[600];
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, photo);
+		final BeIDCard beIDCard = new BeIDCard(card);
+		final BeIDFileInputStream inputStream = beIDCard.openFile(FileType.Photo);
+		inputStream.read();
+		final List<Exception> failures = new ArrayList<>();
+
+		// operate
+		Thread closeThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					inputStream.close();
+				} catch (final Exception e) {
+					failures.add(e);
+				}
+			}
+		});
+		closeThread.start();
+		closeThread.join();
+
+		// verify: the transaction belongs to the thread that opened the stream
+		assertEquals(1, failures.size());
+		assertTrue(failures.get(0) instanceof IllegalStateException);
+		assertTrue(inputStream.isOpen());
+		inputStream.close();
+		assertFalse(inputStream.isOpen());
+		assertArrayEquals(photo, beIDCard.readFile(FileType.Photo));
+		assertEquals(2, card.getExclusiveCount());
+	}
+
+	@Test
+	public void testSkipStopsAtMaximumOffset() throws Exception {
+		// setup
+		FakeBeIDCard card = new FakeBeIDCard();
+		card.setFile(FileType.Photo, new byte[3000]);
+		BeIDCard beIDCard = new BeIDCard(card);
+
+		// operate
+		long skipped;
+		int value;
+		try (BeIDFileInputStream inputStream = beIDCard.openFile(FileType.Photo)) {
+			skipped = inputStream.skip(0x10000);
+			value = inputStream.read();
+		}
+
+		// verify: offsets above 0x7FFF would set the short EF identifier bit of P1
+		assertEquals(0x8000, skipped);
+		assertEquals(-1, value);
+		assertEquals(0, card.countCommands(0xB0));
+	}
+}
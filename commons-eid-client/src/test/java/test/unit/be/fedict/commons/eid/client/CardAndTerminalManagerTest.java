@@ -0,0 +1,90 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+package test.unit.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.CardAndTerminalManager;
+import be.fedict.commons.eid.client.event.CardEventsAdapter;
+
+public class CardAndTerminalManagerTest {
+
+	@Test
+	public void testIncrementalDetection() throws Exception {
+		// setup
+		FakeCardTerminals cardTerminals = new FakeCardTerminals();
+		FakeCardTerminal[] terminals = new FakeCardTerminal[32];
+		for (int idx = 0; idx < terminals.length; idx++) {
+			terminals[idx] = new FakeCardTerminal("Reader " + idx, null);
+			cardTerminals.attach(terminals[idx]);
+		}
+		final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+		CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(cardTerminals);
+		cardAndTerminalManager.setDelay(10);
+		cardAndTerminalManager.addCardListener(new CardEventsAdapter() {
+			@Override
+			public void cardInserted(final CardTerminal cardTerminal, final Card card) {
+				events.add("inserted " + cardTerminal.getName());
+			}
+
+			@Override
+			public void cardRemoved(final CardTerminal cardTerminal) {
+				events.add("removed " + cardTerminal.getName());
+			}
+
+			@Override
+			public void cardEventsInitialized() {
+				events.add("initialized");
+			}
+		});
+
+		// operate
+		cardAndTerminalManager.start();
+		assertEquals("initialized", events.poll(5, TimeUnit.SECONDS));
+		// let the manager go through a few idle polling rounds
+		Thread.sleep(100);
+		int cardPresentCount = terminals[1].getCardPresentCount();
+		cardTerminals.insert(terminals[7], new FakeBeIDCard());
+
+		// verify
+		assertEquals("inserted Reader 7", events.poll(5, TimeUnit.SECONDS));
+		assertEquals(cardPresentCount, terminals[1].getCardPresentCount());
+		assertTrue(cardAndTerminalManager.isIncrementalDetection());
+
+		// operate
+		cardTerminals.remove(terminals[7]);
+
+		// verify
+		assertEquals("removed Reader 7", events.poll(5, TimeUnit.SECONDS));
+		assertEquals(cardPresentCount, terminals[1].getCardPresentCount());
+
+		cardAndTerminalManager.stop();
+		// the latency is only recorded once all listeners have returned
+		assertTrue(cardAndTerminalManager.getDetectionLatency() >= 0);
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import be.fedict.commons.eid.client.FileType;
+
+/**
+ * Minimal in-memory eID card that answers SELECT FILE, READ BINARY and GET CARD
+ * DATA, and records all transmitted commands. Like javax.smartcardio, binds an
+ * exclusive transaction to the thread that started it.
+ */
+public class FakeBeIDCard extends Card {
+
+	private static final ATR DEFAULT_ATR = new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40, 0x0a, (byte) 0xa5, 0x03,
+			0x01, 0x01, 0x01, (byte) 0xad, 0x13, 0x11 });
+
+	private final ATR atr;
+
+	private final Map<String, byte[]> files;
+
+	private final List<CommandAPDU> commands;
+
+	private final FakeCardChannel cardChannel;
+
+	private byte[] cardData;
+
+	private byte[] selectedFile;
+
+	private String protocol;
+
+	private int maxResponseLength;
+
+	private int sharingViolations;
+
+	private int exclusiveCount;
+
+	private Thread exclusiveThread;
+
+	public FakeBeIDCard() {
+		this(DEFAULT_ATR);
+	}
+
+	public FakeBeIDCard(final ATR atr) {
+		this.atr = atr;
+		this.files = new HashMap<>();
+		this.commands = new LinkedList<>();
+		this.cardChannel = new FakeCardChannel();
+		this.protocol = "T=0";
+		this.maxResponseLength = 256;
+		this.cardData = new byte[28];
+		for (int idx = 0; idx < 16; idx++) {
+			this.cardData[idx] = (byte) idx;
+		}
+	}
+
+	public FakeBeIDCard setFile(final FileType fileType, final byte[] data) {
+		this.files.put(Arrays.toString(fileType.getFileId()), data);
+		return this;
+	}
+
+	public FakeBeIDCard setCardData(final byte[] cardData) {
+		this.cardData = cardData;
+		return this;
+	}
+
+	public FakeBeIDCard setProtocol(final String protocol) {
+		this.protocol = protocol;
+		return this;
+	}
+
+	/**
+	 * READ BINARY commands with a larger Le are answered with 0x6700.
+	 */
+	public FakeBeIDCard setMaxResponseLength(final int maxResponseLength) {
+		this.maxResponseLength = maxResponseLength;
+		return this;
+	}
+
+	/**
+	 * The given number of READ BINARY commands will fail with a sharing violation.
+	 */
+	public FakeBeIDCard setSharingViolations(final int sharingViolations) {
+		this.sharingViolations = sharingViolations;
+		return this;
+	}
+
+	public List<CommandAPDU> getCommands() {
+		return this.commands;
+	}
+
+	/**
+	 * @return the number of exclusive transactions started on this card.
+	 */
+	public synchronized int getExclusiveCount() {
+		return this.exclusiveCount;
+	}
+
+	public int countCommands(final int ins) {
+		int count = 0;
+		for (CommandAPDU command : this.commands) {
+			if (ins == command.getINS()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public ATR getATR() {
+		return this.atr;
+	}
+
+	@Override
+	public String getProtocol() {
+		return this.protocol;
+	}
+
+	@Override
+	public CardChannel getBasicChannel() {
+		return this.cardChannel;
+	}
+
+	@Override
+	public CardChannel openLogicalChannel() throws CardException {
+		throw new CardException("not supported");
+	}
+
+	@Override
+	public synchronized void beginExclusive() throws CardException {
+		if (null != this.exclusiveThread) {
+			throw new CardException(
+					"Exclusive access has already been assigned to Thread " + this.exclusiveThread.getName());
+		}
+		this.exclusiveThread = Thread.currentThread();
+		this.exclusiveCount++;
+	}
+
+	@Override
+	public synchronized void endExclusive() {
+		if (Thread.currentThread() != this.exclusiveThread) {
+			throw new IllegalStateException("Exclusive access not assigned to current Thread");
+		}
+		this.exclusiveThread = null;
+	}
+
+	private synchronized void checkExclusive() {
+		if (null != this.exclusiveThread && Thread.currentThread() != this.exclusiveThread) {
+			throw new SecurityException("Exclusive access established by another Thread");
+		}
+	}
+
+	@Override
+	public byte[] transmitControlCommand(final int controlCode, final byte[] command) throws CardException {
+		throw new CardException("not supported");
+	}
+
+	@Override
+	public void disconnect(final boolean reset) {
+	}
+
+	protected ResponseAPDU process(final CommandAPDU command) {
+		switch (command.getINS()) {
+		case 0xA4:
+			if (0x08 != command.getP1()) {
+				return new ResponseAPDU(new byte[] { (byte) 0x90, 0x00 });
+			}
+			this.selectedFile = this.files.get(Arrays.toString(command.getData()));
+			if (null == this.selectedFile) {
+				return new ResponseAPDU(new byte[] { 0x6a, (byte) 0x82 });
+			}
+			return new ResponseAPDU(new byte[] { (byte) 0x90, 0x00 });
+		case 0xB0: {
+			final int offset = (command.getP1() << 8) | command.getP2();
+			if (command.getNe() > this.maxResponseLength) {
+				return new ResponseAPDU(new byte[] { 0x67, 0x00 });
+			}
+			if (null == this.selectedFile || offset >= this.selectedFile.length) {
+				return new ResponseAPDU(new byte[] { 0x6b, 0x00 });
+			}
+			final int length = Math.min(command.getNe(), this.selectedFile.length - offset);
+			return response(Arrays.copyOfRange(this.selectedFile, offset, offset + length));
+		}
+		case 0xE4:
+			return response(this.cardData);
+		default:
+			return new ResponseAPDU(new byte[] { 0x6d, 0x00 });
+		}
+	}
+
+	protected static ResponseAPDU response(final byte[] data) {
+		final byte[] response = Arrays.copyOf(data, data.length + 2);
+		response[data.length] = (byte) 0x90;
+		return new ResponseAPDU(response);
+	}
+
+	private class FakeCardChannel extends CardChannel {
+
+		@Override
+		public Card getCard() {
+			return FakeBeIDCard.this;
+		}
+
+		@Override
+		public int getChannelNumber() {
+			return 0;
+		}
+
+		@Override
+		public ResponseAPDU transmit(final CommandAPDU command) throws CardException {
+			checkExclusive();
+			if (0xB0 == command.getINS() && FakeBeIDCard.this.sharingViolations > 0) {
+				FakeBeIDCard.this.sharingViolations--;
+				throw new CardException("sun.security.smartcardio.PCSCException: SCARD_E_SHARING_VIOLATION");
+			}
+			FakeBeIDCard.this.commands.add(command);
+			return process(command);
+		}
+
+		@Override
+		public int transmit(final ByteBuffer command, final ByteBuffer response) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+/**
+ * Card terminal holding the given card, or no card at all when the card is
+ * <code>null</code>.
+ */
+public class FakeCardTerminal extends CardTerminal {
+
+	private final String name;
+
+	private Card card;
+
+	private int cardPresentCount;
+
+	public FakeCardTerminal(final String name, final Card card) {
+		this.name = name;
+		this.card = card;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public synchronized Card connect(final String protocol) {
+		return this.card;
+	}
+
+	public synchronized void setCard(final Card card) {
+		this.card = card;
+	}
+
+	/**
+	 * @return the number of times the card presence was checked.
+	 */
+	public synchronized int getCardPresentCount() {
+		return this.cardPresentCount;
+	}
+
+	@Override
+	public synchronized boolean isCardPresent() {
+		this.cardPresentCount++;
+		return null != this.card;
+	}
+
+	@Override
+	public boolean waitForCardPresent(final long timeout) {
+		return true;
+	}
+
+	@Override
+	public boolean waitForCardAbsent(final long timeout) {
+		return false;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+package test.unit.be.fedict.commons.eid.client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CardTerminals;
+
+/**
+ * In-memory card terminals that report card insertions and removals since the
+ * previous waitForChange, like the PCSC implementation does.
+ */
+public class FakeCardTerminals extends CardTerminals {
+
+	private final List<FakeCardTerminal> terminals;
+
+	private final Set<CardTerminal> inserted;
+
+	private final Set<CardTerminal> removed;
+
+	private final Set<CardTerminal> reportedInserted;
+
+	private final Set<CardTerminal> reportedRemoved;
+
+	public FakeCardTerminals() {
+		this.terminals = new ArrayList<>();
+		this.inserted = new LinkedHashSet<>();
+		this.removed = new LinkedHashSet<>();
+		this.reportedInserted = new LinkedHashSet<>();
+		this.reportedRemoved = new LinkedHashSet<>();
+	}
+
+	public synchronized FakeCardTerminals attach(final FakeCardTerminal terminal) {
+		this.terminals.add(terminal);
+		notifyAll();
+		return this;
+	}
+
+	public synchronized FakeCardTerminals detach(final FakeCardTerminal terminal) {
+		this.terminals.remove(terminal);
+		notifyAll();
+		return this;
+	}
+
+	public synchronized FakeCardTerminals insert(final FakeCardTerminal terminal, final Card card) {
+		terminal.setCard(card);
+		this.inserted.add(terminal);
+		notifyAll();
+		return this;
+	}
+
+	public synchronized FakeCardTerminals remove(final FakeCardTerminal terminal) {
+		terminal.setCard(null);
+		this.removed.add(terminal);
+		notifyAll();
+		return this;
+	}
+
+	@Override
+	public synchronized List<CardTerminal> list(final State state) throws CardException {
+		final List<CardTerminal> result = new ArrayList<>();
+		switch (state) {
+		case ALL:
+			result.addAll(this.terminals);
+			break;
+		case CARD_PRESENT:
+			for (CardTerminal terminal : this.terminals) {
+				if (terminal.isCardPresent()) {
+					result.add(terminal);
+				}
+			}
+			break;
+		case CARD_ABSENT:
+			for (CardTerminal terminal : this.terminals) {
+				if (!terminal.isCardPresent()) {
+					result.add(terminal);
+				}
+			}
+			break;
+		case CARD_INSERTION:
+			result.addAll(this.reportedInserted);
+			break;
+		case CARD_REMOVAL:
+			result.addAll(this.reportedRemoved);
+			break;
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized boolean waitForChange(final long timeout) throws CardException {
+		if (this.inserted.isEmpty() && this.removed.isEmpty()) {
+			try {
+				wait(timeout);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		this.reportedInserted.clear();
+		this.reportedInserted.addAll(this.inserted);
+		this.reportedRemoved.clear();
+		this.reportedRemoved.addAll(this.removed);
+		this.inserted.clear();
+		this.removed.clear();
+		return !(this.reportedInserted.isEmpty() && this.reportedRemoved.isEmpty());
+	}
+}
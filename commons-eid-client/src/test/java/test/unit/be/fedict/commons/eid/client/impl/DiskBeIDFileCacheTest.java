@@ -0,0 +1,168 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.impl.DiskBeIDFileCache;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class DiskBeIDFileCacheTest {
+
+	@TempDir
+	public Path directory;
+
+	@Test
+	public void testPersistence() throws Exception {
+		// setup
+		byte[] rootCertificate = new byte[1426];
+		rootCertificate[0] = 0x30;
+		byte[] identity = new byte[] { 1, 2, 3 };
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory, DiskBeIDFileCache.DEFAULT_MAXIMUM_SIZE,
+				true, new VoidLogger());
+
+		// operate
+		fileCache.put("card1", FileType.RootCertificate, rootCertificate);
+		fileCache.put("card1", FileType.Identity, identity);
+		fileCache.put("card2", FileType.RootCertificate, rootCertificate);
+		fileCache.close();
+		DiskBeIDFileCache fileCache2 = new DiskBeIDFileCache(this.directory, DiskBeIDFileCache.DEFAULT_MAXIMUM_SIZE,
+				true, new VoidLogger());
+
+		// verify
+		assertArrayEquals(rootCertificate, fileCache2.get("card1", FileType.RootCertificate));
+		assertArrayEquals(rootCertificate, fileCache2.get("card2", FileType.RootCertificate));
+		assertArrayEquals(identity, fileCache2.get("card1", FileType.Identity));
+		assertNull(fileCache2.get("card2", FileType.Identity));
+		assertEquals(rootCertificate.length + identity.length, fileCache2.getSize());
+		assertEquals(2, new File(this.directory.toFile(), "content").list().length);
+
+		// operate
+		fileCache2.invalidate("card1");
+		fileCache2.close();
+		DiskBeIDFileCache fileCache3 = new DiskBeIDFileCache(this.directory);
+
+		// verify
+		assertNull(fileCache3.get("card1", FileType.RootCertificate));
+		assertArrayEquals(rootCertificate, fileCache3.get("card2", FileType.RootCertificate));
+		assertEquals(rootCertificate.length, fileCache3.getSize());
+		assertEquals(1, new File(this.directory.toFile(), "content").list().length);
+		fileCache3.close();
+	}
+
+	@Test
+	public void testPersonalDataNotCached() throws Exception {
+		// setup
+		byte[] rootCertificate = new byte[1426];
+		byte[] identity = new byte[] { 1, 2, 3 };
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory, DiskBeIDFileCache.DEFAULT_MAXIMUM_SIZE,
+				true, new VoidLogger());
+		fileCache.put("card1", FileType.RootCertificate, rootCertificate);
+		fileCache.put("card1", FileType.Identity, identity);
+		fileCache.close();
+
+		// operate
+		DiskBeIDFileCache fileCache2 = new DiskBeIDFileCache(this.directory);
+		fileCache2.put("card2", FileType.Photo, new byte[] { 4, 5, 6 });
+
+		// verify
+		assertNull(fileCache2.get("card1", FileType.Identity));
+		assertNull(fileCache2.get("card2", FileType.Photo));
+		assertArrayEquals(rootCertificate, fileCache2.get("card1", FileType.RootCertificate));
+		assertEquals(rootCertificate.length, fileCache2.getSize());
+		assertEquals(1, new File(this.directory.toFile(), "content").list().length);
+		fileCache2.close();
+	}
+
+	@Test
+	public void testCardRemovedKeepsFiles() throws Exception {
+		// setup
+		byte[] rootCertificate = new byte[] { 0x30, 3, 1, 2, 3 };
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory);
+		fileCache.put("card1", FileType.RootCertificate, rootCertificate);
+
+		// operate
+		fileCache.cardRemoved("card1");
+
+		// verify
+		assertArrayEquals(rootCertificate, fileCache.get("card1", FileType.RootCertificate));
+		fileCache.close();
+	}
+
+	@Test
+	public void testFind() throws Exception {
+		// setup
+		byte[] caCertificate = new byte[] { 0x30, 3, 1, 2, 3 };
+		byte[] caCertificate2 = new byte[] { 0x30, 3, 1, 2, 4 };
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory);
+		fileCache.put("card1", FileType.CACertificate, caCertificate);
+		fileCache.put("card2", FileType.CACertificate, caCertificate2);
+
+		// operate & verify
+		assertArrayEquals(caCertificate, fileCache.find(FileType.CACertificate, new byte[] { 0x30, 3, 1, 2, 3 }));
+		assertArrayEquals(caCertificate2, fileCache.find(FileType.CACertificate, new byte[] { 0x30, 3, 1, 2, 4 }));
+		assertNull(fileCache.find(FileType.CACertificate, new byte[] { 0x30, 3, 1, 3 }));
+		assertNull(fileCache.find(FileType.RootCertificate, new byte[] { 0x30, 3 }));
+		fileCache.close();
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		// setup
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory, 2500, new VoidLogger());
+
+		// operate
+		fileCache.put("card1", FileType.RootCertificate, new byte[1000]);
+		fileCache.put("card2", FileType.RootCertificate, new byte[1001]);
+		fileCache.get("card1", FileType.RootCertificate);
+		fileCache.put("card3", FileType.RootCertificate, new byte[1002]);
+
+		// verify
+		assertEquals(2002, fileCache.getSize());
+		assertEquals(1000, fileCache.get("card1", FileType.RootCertificate).length);
+		assertNull(fileCache.get("card2", FileType.RootCertificate));
+		assertEquals(1002, fileCache.get("card3", FileType.RootCertificate).length);
+		fileCache.close();
+	}
+
+	@Test
+	public void testCorruption() throws Exception {
+		// setup
+		DiskBeIDFileCache fileCache = new DiskBeIDFileCache(this.directory);
+		fileCache.put("card1", FileType.RootCertificate, new byte[] { 1, 2, 3 });
+		Path contentFile = Files.list(this.directory.resolve("content")).findFirst().get();
+		Files.write(contentFile, new byte[] { 3, 2, 1 });
+
+		// operate & verify
+		assertNull(fileCache.find(FileType.RootCertificate, new byte[] { 3 }));
+		assertNull(fileCache.get("card1", FileType.RootCertificate));
+		assertEquals(0, fileCache.getSize());
+		fileCache.close();
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.ListenerDispatcher;
+import be.fedict.commons.eid.client.impl.ListenerDispatcher.EventType;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class ListenerDispatcherTest {
+
+	@Test
+	public void testOrderPerListener() throws Exception {
+		// setup
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		ListenerDispatcher listenerDispatcher = new ListenerDispatcher(executorService, 100);
+		final List<Integer> events = new ArrayList<>();
+		final CountDownLatch done = new CountDownLatch(1);
+		Object listener = new Object();
+
+		// operate
+		for (int idx = 0; idx < 50; idx++) {
+			final int event = idx;
+			listenerDispatcher.dispatch(listener, "event", new Runnable() {
+				@Override
+				public void run() {
+					synchronized (events) {
+						events.add(event);
+					}
+					if (event == 49) {
+						done.countDown();
+					}
+				}
+			});
+		}
+
+		// verify
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		synchronized (events) {
+			for (int idx = 0; idx < 50; idx++) {
+				assertEquals(idx, (int) events.get(idx));
+			}
+		}
+		executorService.shutdown();
+	}
+
+	@Test
+	public void testSlowListenerDoesNotBlockOthers() throws Exception {
+		// setup
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		ListenerDispatcher listenerDispatcher = new ListenerDispatcher(executorService, 2, 1000, new VoidLogger());
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch fastCalled = new CountDownLatch(1);
+		Object slowListener = new Object();
+		Object fastListener = new Object();
+		Runnable slowCallback = new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		// operate
+		listenerDispatcher.dispatch(slowListener, "slow", slowCallback);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		for (int idx = 0; idx < 4; idx++) {
+			listenerDispatcher.dispatch(slowListener, "slow", slowCallback);
+		}
+		listenerDispatcher.dispatch(fastListener, "fast", new Runnable() {
+			@Override
+			public void run() {
+				fastCalled.countDown();
+			}
+		});
+
+		// verify
+		assertTrue(fastCalled.await(5, TimeUnit.SECONDS));
+		// the first event is being delivered, two are queued, two are dropped
+		assertEquals(2, listenerDispatcher.getDroppedEventCount());
+		assertEquals(2, listenerDispatcher.getQueueDepth());
+
+		release.countDown();
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(0, listenerDispatcher.getQueueDepth());
+	}
+
+	@Test
+	public void testListenerExceptionDoesNotStopDelivery() throws Exception {
+		// setup
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		ListenerDispatcher listenerDispatcher = new ListenerDispatcher(executorService, 10);
+		final List<String> events = new ArrayList<>();
+		Object listener = new Object();
+
+		// operate
+		listenerDispatcher.dispatch(listener, "failing", new Runnable() {
+			@Override
+			public void run() {
+				throw new RuntimeException("listener failure");
+			}
+		});
+		listenerDispatcher.dispatch(listener, "working", new Runnable() {
+			@Override
+			public void run() {
+				synchronized (events) {
+					events.add("working");
+				}
+			}
+		});
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+		// verify
+		assertEquals(Arrays.asList("working"), events);
+	}
+
+	@Test
+	public void testRemovalsAreNotDropped() throws Exception {
+		// setup
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		ListenerDispatcher listenerDispatcher = new ListenerDispatcher(executorService, 2, 1000, new VoidLogger());
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> events = new ArrayList<>();
+		Object listener = new Object();
+
+		// operate: the attach of terminal 0 is being delivered
+		listenerDispatcher.dispatch(listener, "attached", EventType.TERMINAL_ATTACHED, "T0", new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				events.add("attached T0");
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		dispatch(listenerDispatcher, listener, EventType.CARD_INSERTED, "T1", events);
+		dispatch(listenerDispatcher, listener, EventType.CARD_INSERTED, "T2", events);
+		// queue full: the attach was delivered, so its detach is queued anyhow
+		dispatch(listenerDispatcher, listener, EventType.TERMINAL_DETACHED, "T0", events);
+		// cancels the pending insert
+		dispatch(listenerDispatcher, listener, EventType.CARD_REMOVED, "T1", events);
+		// dropped together
+		dispatch(listenerDispatcher, listener, EventType.CARD_INSERTED, "T3", events);
+		dispatch(listenerDispatcher, listener, EventType.CARD_REMOVED, "T3", events);
+
+		// verify
+		assertEquals(2, listenerDispatcher.getQueueDepth());
+		assertEquals(4, listenerDispatcher.getDroppedEventCount());
+		release.countDown();
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("attached T0", "CARD_INSERTED T2", "TERMINAL_DETACHED T0"), events);
+	}
+
+	@Test
+	public void testReaddedListenerKeepsOrder() throws Exception {
+		// setup
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		ListenerDispatcher listenerDispatcher = new ListenerDispatcher(executorService, 10);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> events = new ArrayList<>();
+		Object listener = new Object();
+
+		// operate
+		listenerDispatcher.dispatch(listener, "first", new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				synchronized (events) {
+					events.add("first");
+				}
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		listenerDispatcher.removeListener(listener);
+		listenerDispatcher.dispatch(listener, "second", new Runnable() {
+			@Override
+			public void run() {
+				synchronized (events) {
+					events.add("second");
+				}
+			}
+		});
+		Thread.sleep(100);
+
+		// verify: the second event waits for the first one
+		synchronized (events) {
+			assertTrue(events.isEmpty());
+		}
+		release.countDown();
+		listenerDispatcher.removeListener(listener);
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("first", "second"), events);
+		assertEquals(0, listenerDispatcher.getQueueDepth());
+	}
+
+	private static void dispatch(final ListenerDispatcher listenerDispatcher, final Object listener,
+			final EventType eventType, final String terminal, final List<String> events) {
+		listenerDispatcher.dispatch(listener, eventType.name(), eventType, terminal, new Runnable() {
+			@Override
+			public void run() {
+				events.add(eventType + " " + terminal);
+			}
+		});
+	}
+}
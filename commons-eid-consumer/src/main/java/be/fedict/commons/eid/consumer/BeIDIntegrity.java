@@ -34,7 +34,16 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -52,6 +61,11 @@ import be.fedict.commons.eid.consumer.tlv.TlvParser;
 
 /**
  * Utility class for various eID related integrity checks.
+ * <p>
+ * The cryptographic engines are kept per thread, so a single instance can be
+ * shared between threads, as is done by the batch verification methods.
+ * Parsed RRN certificates, together with their public keys and signature
+ * verifiers, are kept in a {@link RRNCertificateCache}.
  * 
  * @author Frank Cornelis
  * 
@@ -60,19 +74,71 @@ public class BeIDIntegrity {
 
 	private final static Logger LOGGER = LoggerFactory.getLogger(BeIDIntegrity.class);
 
-	private final CertificateFactory certificateFactory;
-	private final KeyFactory keyFactory;
+	private final ThreadLocal<CertificateFactory> certificateFactory;
+	private final ThreadLocal<KeyFactory> keyFactory;
+	private final ThreadLocal<Map<String, Signature>> signatures;
+	private final ThreadLocal<Map<String, MessageDigest>> messageDigests;
+	private final RRNCertificateCache rrnCertificateCache;
 
 	/**
 	 * Default constructor.
 	 */
 	public BeIDIntegrity() {
-		try {
-			this.certificateFactory = CertificateFactory.getInstance("X.509");
-			this.keyFactory = KeyFactory.getInstance("EC");
-		} catch (final CertificateException | NoSuchAlgorithmException cex) {
-			throw new RuntimeException("algo", cex);
-		}
+		this(new RRNCertificateCache());
+	}
+
+	/**
+	 * Constructor using the given RRN certificate cache. This allows for sharing
+	 * a single cache between multiple instances.
+	 * 
+	 * @param rrnCertificateCache
+	 */
+	public BeIDIntegrity(final RRNCertificateCache rrnCertificateCache) {
+		this.rrnCertificateCache = rrnCertificateCache;
+		this.certificateFactory = new ThreadLocal<CertificateFactory>() {
+			@Override
+			protected CertificateFactory initialValue() {
+				try {
+					return CertificateFactory.getInstance("X.509");
+				} catch (final CertificateException cex) {
+					throw new RuntimeException("algo", cex);
+				}
+			}
+		};
+		this.keyFactory = new ThreadLocal<KeyFactory>() {
+			@Override
+			protected KeyFactory initialValue() {
+				try {
+					return KeyFactory.getInstance("EC");
+				} catch (final NoSuchAlgorithmException nsaex) {
+					throw new RuntimeException("algo", nsaex);
+				}
+			}
+		};
+		this.signatures = new ThreadLocal<Map<String, Signature>>() {
+			@Override
+			protected Map<String, Signature> initialValue() {
+				return new HashMap<>();
+			}
+		};
+		this.messageDigests = new ThreadLocal<Map<String, MessageDigest>>() {
+			@Override
+			protected Map<String, MessageDigest> initialValue() {
+				return new HashMap<>();
+			}
+		};
+		// fail early on missing algorithms
+		this.certificateFactory.get();
+		this.keyFactory.get();
+	}
+
+	/**
+	 * Gives back the RRN certificate cache used by this instance.
+	 * 
+	 * @return
+	 */
+	public RRNCertificateCache getRRNCertificateCache() {
+		return this.rrnCertificateCache;
 	}
 
 	/**
@@ -84,7 +150,7 @@ public class BeIDIntegrity {
 	public X509Certificate loadCertificate(final byte[] encodedCertificate) {
 		X509Certificate certificate;
 		try {
-			certificate = (X509Certificate) this.certificateFactory
+			certificate = (X509Certificate) this.certificateFactory.get()
 					.generateCertificate(new ByteArrayInputStream(encodedCertificate));
 		} catch (final CertificateException cex) {
 			throw new RuntimeException("X509 decoding error: " + cex.getMessage(), cex);
@@ -117,10 +183,10 @@ public class BeIDIntegrity {
 	 */
 	public Identity getVerifiedIdentity(final byte[] identityFile, final byte[] identitySignatureFile,
 			final byte[] photo, final X509Certificate rrnCertificate) {
-		final PublicKey publicKey = rrnCertificate.getPublicKey();
+		final RRNCertificateCache.Entry entry = this.rrnCertificateCache.get(rrnCertificate);
 		boolean result;
 		try {
-			result = verifySignature(rrnCertificate.getSigAlgName(), identitySignatureFile, publicKey, identityFile);
+			result = verifySignature(entry, identitySignatureFile, identityFile);
 		} catch (final InvalidKeyException | NoSuchAlgorithmException | SignatureException ex) {
 			throw new SecurityException("identity signature verification error: " + ex.getMessage(), ex);
 		}
@@ -160,8 +226,8 @@ public class BeIDIntegrity {
 		boolean result;
 		try {
 			EncodedKeySpec publicKeySpec = new X509EncodedKeySpec(basicPublicKeyFile);
-			PublicKey basicPublicKey = this.keyFactory.generatePublic(publicKeySpec);
-			Signature signature = Signature.getInstance("SHA384withECDSA");
+			PublicKey basicPublicKey = this.keyFactory.get().generatePublic(publicKeySpec);
+			Signature signature = getSignature("SHA384withECDSA");
 			signature.initVerify(basicPublicKey);
 			signature.update(challenge);
 			result = signature.verify(cardSignatureValue);
@@ -196,11 +262,10 @@ public class BeIDIntegrity {
 	public Address getVerifiedAddress(final byte[] addressFile, final byte[] identitySignatureFile,
 			final byte[] addressSignatureFile, final X509Certificate rrnCertificate) {
 		final byte[] trimmedAddressFile = trimRight(addressFile);
-		final PublicKey publicKey = rrnCertificate.getPublicKey();
+		final RRNCertificateCache.Entry entry = this.rrnCertificateCache.get(rrnCertificate);
 		boolean result;
 		try {
-			result = verifySignature(rrnCertificate.getSigAlgName(), addressSignatureFile, publicKey,
-					trimmedAddressFile, identitySignatureFile);
+			result = verifySignature(entry, addressSignatureFile, trimmedAddressFile, identitySignatureFile);
 		} catch (final InvalidKeyException | NoSuchAlgorithmException | SignatureException ex) {
 			throw new SecurityException("address signature verification error: " + ex.getMessage(), ex);
 		}
@@ -211,6 +276,79 @@ public class BeIDIntegrity {
 
 	}
 
+	/**
+	 * Verifies the identity (and optionally the photo and address) files of the
+	 * given request. Integrity errors are reported via the result instead of being
+	 * thrown.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	public BeIDIntegrityResult verify(final BeIDIntegrityRequest request) {
+		try {
+			final Identity identity = getVerifiedIdentity(request.getIdentityFile(),
+					request.getIdentitySignatureFile(), request.getPhoto(), request.getRrnCertificate());
+			Address address = null;
+			if (null != request.getAddressFile()) {
+				address = getVerifiedAddress(request.getAddressFile(), request.getIdentitySignatureFile(),
+						request.getAddressSignatureFile(), request.getRrnCertificate());
+			}
+			return new BeIDIntegrityResult(request, identity, address);
+		} catch (final RuntimeException ex) {
+			LOGGER.debug("integrity error: {}", ex.getMessage());
+			return new BeIDIntegrityResult(request, ex);
+		}
+	}
+
+	/**
+	 * Verifies the given requests one after the other on the calling thread.
+	 * 
+	 * @param requests
+	 * @return the results, in the iteration order of the requests.
+	 */
+	public List<BeIDIntegrityResult> verify(final Collection<BeIDIntegrityRequest> requests) {
+		final List<BeIDIntegrityResult> results = new ArrayList<>(requests.size());
+		for (BeIDIntegrityRequest request : requests) {
+			results.add(verify(request));
+		}
+		return results;
+	}
+
+	/**
+	 * Verifies the given requests in parallel on the given executor service. A
+	 * failing request does not influence the verification of the other requests.
+	 * 
+	 * @param requests
+	 * @param executorService
+	 * @return the results, in the iteration order of the requests.
+	 * @throws InterruptedException
+	 */
+	public List<BeIDIntegrityResult> verify(final Collection<BeIDIntegrityRequest> requests,
+			final ExecutorService executorService) throws InterruptedException {
+		final List<Future<BeIDIntegrityResult>> futures = new ArrayList<>(requests.size());
+		for (final BeIDIntegrityRequest request : requests) {
+			futures.add(executorService.submit(new Callable<BeIDIntegrityResult>() {
+				@Override
+				public BeIDIntegrityResult call() {
+					return verify(request);
+				}
+			}));
+		}
+		final List<BeIDIntegrityResult> results = new ArrayList<>(futures.size());
+		try {
+			for (Future<BeIDIntegrityResult> future : futures) {
+				results.add(future.get());
+			}
+		} catch (final ExecutionException eex) {
+			throw new RuntimeException("batch verification error: " + eex.getCause().getMessage(), eex.getCause());
+		} finally {
+			for (Future<BeIDIntegrityResult> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * Verifies a SHA1withRSA or SHA256withECDSA signature.
 	 * 
@@ -249,7 +387,7 @@ public class BeIDIntegrity {
 	public boolean verifySignature(final String signatureAlgo, byte[] signatureData, final PublicKey publicKey,
 			final byte[]... data) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
 		Signature signature;
-		signature = Signature.getInstance(signatureAlgo);
+		signature = getSignature(signatureAlgo);
 		signature.initVerify(publicKey);
 		for (byte[] dataItem : data) {
 			signature.update(dataItem);
@@ -264,6 +402,25 @@ public class BeIDIntegrity {
 		return signature.verify(signatureData);
 	}
 
+	private boolean verifySignature(final RRNCertificateCache.Entry entry, byte[] signatureData,
+			final byte[]... data) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+		if (null == signatureData) {
+			throw new SignatureException("missing signature data");
+		}
+		if (entry.getSignatureAlgorithm().contains("ECDSA")) {
+			// fix for RRN signatures
+			signatureData = fixECDSASignature(signatureData);
+		}
+		final Signature signature = entry.borrowVerifier();
+		for (byte[] dataItem : data) {
+			signature.update(dataItem);
+		}
+		final boolean result = signature.verify(signatureData);
+		// only a verifier that completed its verification is reset
+		entry.release(signature);
+		return result;
+	}
+
 	private byte[] fixECDSASignature(byte[] signature) {
 		int derSize = signature[1];
 		if (signature.length > derSize + 2) {
@@ -275,12 +432,26 @@ public class BeIDIntegrity {
 		return signature;
 	}
 
+	private Signature getSignature(final String signatureAlgo) throws NoSuchAlgorithmException {
+		final Map<String, Signature> signatures = this.signatures.get();
+		Signature signature = signatures.get(signatureAlgo);
+		if (null == signature) {
+			signature = Signature.getInstance(signatureAlgo);
+			signatures.put(signatureAlgo, signature);
+		}
+		return signature;
+	}
+
 	private byte[] digest(final String algoName, final byte[] data) {
-		MessageDigest messageDigest;
-		try {
-			messageDigest = MessageDigest.getInstance(algoName);
-		} catch (final NoSuchAlgorithmException nsaex) {
-			throw new RuntimeException(algoName);
+		final Map<String, MessageDigest> messageDigests = this.messageDigests.get();
+		MessageDigest messageDigest = messageDigests.get(algoName);
+		if (null == messageDigest) {
+			try {
+				messageDigest = MessageDigest.getInstance(algoName);
+			} catch (final NoSuchAlgorithmException nsaex) {
+				throw new RuntimeException(algoName);
+			}
+			messageDigests.put(algoName, messageDigest);
 		}
 		return messageDigest.digest(data);
 	}
@@ -0,0 +1,102 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.consumer;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Holds the eID files of a single citizen that are to be verified as part of a
+ * batch integrity verification.
+ * 
+ * @see BeIDIntegrity#verify(java.util.Collection,
+ *      java.util.concurrent.ExecutorService)
+ */
+public class BeIDIntegrityRequest {
+
+	private final byte[] identityFile;
+
+	private final byte[] identitySignatureFile;
+
+	private final byte[] photo;
+
+	private final byte[] addressFile;
+
+	private final byte[] addressSignatureFile;
+
+	private final X509Certificate rrnCertificate;
+
+	/**
+	 * Main constructor.
+	 * 
+	 * @param identityFile          the identity file.
+	 * @param identitySignatureFile the identity signature file.
+	 * @param photo                 the optional photo.
+	 * @param addressFile           the optional address file.
+	 * @param addressSignatureFile  the address signature file, required when an
+	 *                              address file is given.
+	 * @param rrnCertificate        the national registration certificate.
+	 */
+	public BeIDIntegrityRequest(final byte[] identityFile, final byte[] identitySignatureFile, final byte[] photo,
+			final byte[] addressFile, final byte[] addressSignatureFile, final X509Certificate rrnCertificate) {
+		this.identityFile = identityFile;
+		this.identitySignatureFile = identitySignatureFile;
+		this.photo = photo;
+		this.addressFile = addressFile;
+		this.addressSignatureFile = addressSignatureFile;
+		this.rrnCertificate = rrnCertificate;
+	}
+
+	/**
+	 * Constructor for identity and address verification without photo.
+	 * 
+	 * @param identityFile
+	 * @param identitySignatureFile
+	 * @param addressFile
+	 * @param addressSignatureFile
+	 * @param rrnCertificate
+	 */
+	public BeIDIntegrityRequest(final byte[] identityFile, final byte[] identitySignatureFile,
+			final byte[] addressFile, final byte[] addressSignatureFile, final X509Certificate rrnCertificate) {
+		this(identityFile, identitySignatureFile, null, addressFile, addressSignatureFile, rrnCertificate);
+	}
+
+	public byte[] getIdentityFile() {
+		return this.identityFile;
+	}
+
+	public byte[] getIdentitySignatureFile() {
+		return this.identitySignatureFile;
+	}
+
+	public byte[] getPhoto() {
+		return this.photo;
+	}
+
+	public byte[] getAddressFile() {
+		return this.addressFile;
+	}
+
+	public byte[] getAddressSignatureFile() {
+		return this.addressSignatureFile;
+	}
+
+	public X509Certificate getRrnCertificate() {
+		return this.rrnCertificate;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.consumer;
+
+/**
+ * The outcome of the integrity verification of a single
+ * {@link BeIDIntegrityRequest}.
+ * 
+ * @see BeIDIntegrity#verify(BeIDIntegrityRequest)
+ */
+public class BeIDIntegrityResult {
+
+	private final BeIDIntegrityRequest request;
+
+	private final Identity identity;
+
+	private final Address address;
+
+	private final RuntimeException error;
+
+	BeIDIntegrityResult(final BeIDIntegrityRequest request, final Identity identity, final Address address) {
+		this.request = request;
+		this.identity = identity;
+		this.address = address;
+		this.error = null;
+	}
+
+	BeIDIntegrityResult(final BeIDIntegrityRequest request, final RuntimeException error) {
+		this.request = request;
+		this.identity = null;
+		this.address = null;
+		this.error = error;
+	}
+
+	public BeIDIntegrityRequest getRequest() {
+		return this.request;
+	}
+
+	/**
+	 * Returns <code>true</code> if all files of the request passed the integrity
+	 * verification.
+	 * 
+	 * @return
+	 */
+	public boolean isValid() {
+		return null == this.error;
+	}
+
+	/**
+	 * Gives back the verified identity, or <code>null</code> in case of an
+	 * integrity error.
+	 * 
+	 * @return
+	 */
+	public Identity getIdentity() {
+		return this.identity;
+	}
+
+	/**
+	 * Gives back the verified address, or <code>null</code> in case of an
+	 * integrity error or when no address was part of the request.
+	 * 
+	 * @return
+	 */
+	public Address getAddress() {
+		return this.address;
+	}
+
+	/**
+	 * Gives back the reason of the integrity error, or <code>null</code>.
+	 * 
+	 * @return
+	 */
+	public RuntimeException getError() {
+		return this.error;
+	}
+}
@@ -157,11 +157,11 @@ public enum DocumentType implements Serializable {
 		return key;
 	}
 
-	private static int toKey(final byte[] value) {
-		int key = value[0] - '0';
-		if (2 == value.length) {
+	private static int toKey(final byte[] buffer, final int offset, final int length) {
+		int key = buffer[offset] - '0';
+		if (2 == length) {
 			key *= 10;
-			key += value[1] - '0';
+			key += buffer[offset + 1] - '0';
 		}
 		return key;
 	}
@@ -182,7 +182,11 @@ public enum DocumentType implements Serializable {
 	}
 
 	public static DocumentType toDocumentType(final byte[] value) {
-		final int key = DocumentType.toKey(value);
+		return toDocumentType(value, 0, value.length);
+	}
+
+	public static DocumentType toDocumentType(final byte[] buffer, final int offset, final int length) {
+		final int key = DocumentType.toKey(buffer, offset, length);
 		/*
 		 * If the key is unknown, we simply return null.
 		 */
@@ -190,6 +194,10 @@ public enum DocumentType implements Serializable {
 	}
 
 	public static String toString(final byte[] documentTypeValue) {
-		return Integer.toString(DocumentType.toKey(documentTypeValue));
+		return toString(documentTypeValue, 0, documentTypeValue.length);
+	}
+
+	public static String toString(final byte[] buffer, final int offset, final int length) {
+		return Integer.toString(DocumentType.toKey(buffer, offset, length));
 	}
 }
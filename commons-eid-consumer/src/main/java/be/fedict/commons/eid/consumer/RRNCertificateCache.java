@@ -0,0 +1,296 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see 
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.consumer;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Bounded, thread-safe cache of RRN certificates. Entries are keyed by the
+ * SHA-256 fingerprint of the DER-encoded certificate and hold the parsed
+ * certificate, its decoded public key and a pool of signature verifiers that
+ * are already initialised with that public key. Certificate instances that were
+ * looked up before are found again without computing their fingerprint.
+ * <p>
+ * Only a handful of distinct RRN certificates exist, so a small cache is
+ * sufficient to avoid re-parsing and re-initialising for every verification.
+ */
+public class RRNCertificateCache {
+
+	/**
+	 * The default maximum number of cached certificates.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 16;
+
+	private static final int MAXIMUM_POOLED_VERIFIERS = 8;
+
+	private final int maximumSize;
+
+	private final Map<String, Entry> entries;
+
+	/*
+	 * Certificate instances already looked up, guarded by entries.
+	 */
+	private final Map<X509Certificate, Entry> instances;
+
+	private final ThreadLocal<MessageDigest> messageDigest;
+
+	private final AtomicLong hits;
+
+	private final AtomicLong misses;
+
+	/**
+	 * Default constructor.
+	 */
+	public RRNCertificateCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Main constructor.
+	 * 
+	 * @param maximumSize the maximum number of cached certificates. The least
+	 *                    recently used certificate is evicted when exceeded.
+	 */
+	public RRNCertificateCache(final int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximum size should be positive");
+		}
+		this.maximumSize = maximumSize;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+				if (size() > RRNCertificateCache.this.maximumSize) {
+					RRNCertificateCache.this.instances.remove(eldest.getValue().getCertificate());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.instances = new WeakHashMap<>();
+		this.messageDigest = new ThreadLocal<MessageDigest>() {
+			@Override
+			protected MessageDigest initialValue() {
+				try {
+					return MessageDigest.getInstance("SHA-256");
+				} catch (final NoSuchAlgorithmException nsaex) {
+					throw new RuntimeException("algo", nsaex);
+				}
+			}
+		};
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	/**
+	 * Gives back the cache entry for the given certificate, adding it when not
+	 * yet cached.
+	 * 
+	 * @param certificate
+	 * @return
+	 */
+	Entry get(final X509Certificate certificate) {
+		synchronized (this.entries) {
+			final Entry entry = this.instances.get(certificate);
+			if (null != entry) {
+				// keeps the access order of the entries up to date
+				this.entries.get(entry.fingerprint);
+				this.hits.incrementAndGet();
+				return entry;
+			}
+		}
+		final byte[] encodedCertificate;
+		try {
+			encodedCertificate = certificate.getEncoded();
+		} catch (final CertificateEncodingException cex) {
+			throw new RuntimeException("X509 encoding error: " + cex.getMessage(), cex);
+		}
+		final String fingerprint = fingerprint(encodedCertificate);
+		final Entry entry = lookup(fingerprint);
+		if (null != entry) {
+			synchronized (this.entries) {
+				if (this.entries.containsKey(fingerprint)) {
+					this.instances.put(certificate, entry);
+				}
+			}
+			return entry;
+		}
+		return put(fingerprint, certificate);
+	}
+
+	/**
+	 * Gives back the number of lookups that were served from the cache.
+	 * 
+	 * @return
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Gives back the number of lookups that were not served from the cache.
+	 * 
+	 * @return
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Gives back the number of cached certificates.
+	 * 
+	 * @return
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * Removes all cached certificates and resets the counters.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.instances.clear();
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	private Entry lookup(final String fingerprint) {
+		final Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(fingerprint);
+		}
+		if (null == entry) {
+			this.misses.incrementAndGet();
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	private Entry put(final String fingerprint, final X509Certificate certificate) {
+		final Entry entry = new Entry(fingerprint, certificate);
+		synchronized (this.entries) {
+			final Entry existingEntry = this.entries.get(fingerprint);
+			if (null != existingEntry) {
+				return existingEntry;
+			}
+			this.entries.put(fingerprint, entry);
+			this.instances.put(certificate, entry);
+		}
+		return entry;
+	}
+
+	private String fingerprint(final byte[] encodedCertificate) {
+		return Hex.encodeHexString(this.messageDigest.get().digest(encodedCertificate));
+	}
+
+	/**
+	 * A cached RRN certificate.
+	 */
+	static final class Entry {
+
+		private final String fingerprint;
+
+		private final X509Certificate certificate;
+
+		private final PublicKey publicKey;
+
+		private final String signatureAlgorithm;
+
+		private final Queue<Signature> verifiers;
+
+		private final AtomicInteger pooledVerifiers;
+
+		Entry(final String fingerprint, final X509Certificate certificate) {
+			this.fingerprint = fingerprint;
+			this.certificate = certificate;
+			this.publicKey = certificate.getPublicKey();
+			this.signatureAlgorithm = certificate.getSigAlgName();
+			this.verifiers = new ConcurrentLinkedQueue<>();
+			this.pooledVerifiers = new AtomicInteger();
+		}
+
+		X509Certificate getCertificate() {
+			return this.certificate;
+		}
+
+		PublicKey getPublicKey() {
+			return this.publicKey;
+		}
+
+		String getSignatureAlgorithm() {
+			return this.signatureAlgorithm;
+		}
+
+		/**
+		 * Gives back a verifier initialised with the public key of this entry.
+		 * Should be handed back via {@link #release(Signature)} once the
+		 * verification completed successfully.
+		 * 
+		 * @return
+		 * @throws NoSuchAlgorithmException
+		 * @throws InvalidKeyException
+		 */
+		Signature borrowVerifier() throws NoSuchAlgorithmException, InvalidKeyException {
+			final Signature verifier = this.verifiers.poll();
+			if (null != verifier) {
+				this.pooledVerifiers.decrementAndGet();
+				return verifier;
+			}
+			final Signature signature = Signature.getInstance(this.signatureAlgorithm);
+			signature.initVerify(this.publicKey);
+			return signature;
+		}
+
+		/**
+		 * Hands back a verifier. A completed verification resets the verifier to
+		 * the state right after initialisation, so it can be reused as-is.
+		 * 
+		 * @param verifier
+		 */
+		void release(final Signature verifier) {
+			if (this.pooledVerifiers.incrementAndGet() > MAXIMUM_POOLED_VERIFIERS) {
+				this.pooledVerifiers.decrementAndGet();
+				return;
+			}
+			this.verifiers.offer(verifier);
+		}
+	}
+}
@@ -30,6 +30,11 @@ public class ChipNumberDataConvertor implements DataConvertor<String> {
 
 	@Override
 	public String convert(final byte[] value) throws DataConvertorException {
-		return new String(Hex.encodeHex(value)).toUpperCase();
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public String convert(final byte[] buffer, final int offset, final int length) throws DataConvertorException {
+		return new String(Hex.encodeHex(buffer, offset, length, false));
 	}
 }
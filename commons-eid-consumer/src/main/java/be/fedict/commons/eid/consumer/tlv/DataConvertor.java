@@ -18,6 +18,8 @@
 
 package be.fedict.commons.eid.consumer.tlv;
 
+import java.util.Arrays;
+
 /**
  * Interface for a data convertor component.
  * 
@@ -34,4 +36,19 @@ public interface DataConvertor<T> {
 	 * @throws DataConvertorException in case the conversion failed.
 	 */
 	T convert(byte[] value) throws DataConvertorException;
-}
\ No newline at end of file
+
+	/**
+	 * Convert a slice of the given byte array to the data convertor data type. The
+	 * buffer should not be retained nor modified by the data convertor. The default
+	 * implementation copies the slice and converts the copy.
+	 * 
+	 * @param buffer the buffer holding the value to convert.
+	 * @param offset the offset of the value within the buffer.
+	 * @param length the length of the value.
+	 * @return an object of the data convertor data type.
+	 * @throws DataConvertorException in case the conversion failed.
+	 */
+	default T convert(final byte[] buffer, final int offset, final int length) throws DataConvertorException {
+		return convert(Arrays.copyOfRange(buffer, offset, offset + length));
+	}
+}
@@ -38,8 +38,14 @@ public class DateOfBirthDataConvertor implements DataConvertor<GregorianCalendar
 
 	@Override
 	public GregorianCalendar convert(final byte[] value) throws DataConvertorException {
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public GregorianCalendar convert(final byte[] buffer, final int offset, final int length)
+			throws DataConvertorException {
 		String dateOfBirthStr;
-		dateOfBirthStr = new String(value, StandardCharsets.UTF_8).trim();
+		dateOfBirthStr = new String(buffer, offset, length, StandardCharsets.UTF_8).trim();
 		LOGGER.debug("\"{}\"", dateOfBirthStr);
 		/*
 		 * First try to detect the German format as there are cases in which a German
@@ -39,8 +39,13 @@ public class DateOfBirthMaskDataConvertor implements DataConvertor<DateMask> {
 
 	@Override
 	public DateMask convert(final byte[] value) throws DataConvertorException {
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public DateMask convert(final byte[] buffer, final int offset, final int length) throws DataConvertorException {
 		String dateOfBirthStr;
-		dateOfBirthStr = new String(value, StandardCharsets.UTF_8).trim();
+		dateOfBirthStr = new String(buffer, offset, length, StandardCharsets.UTF_8).trim();
 		LOGGER.debug("\"{}\"", dateOfBirthStr);
 
 		if (dateOfBirthStr.length() == 4) {
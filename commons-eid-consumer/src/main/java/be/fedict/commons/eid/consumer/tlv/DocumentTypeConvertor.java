@@ -36,13 +36,19 @@ public class DocumentTypeConvertor implements DataConvertor<DocumentType> {
 
 	@Override
 	public DocumentType convert(final byte[] value) throws DataConvertorException {
-		LOGGER.debug("# bytes for document type field: {}", value.length);
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public DocumentType convert(final byte[] buffer, final int offset, final int length)
+			throws DataConvertorException {
+		LOGGER.debug("# bytes for document type field: {}", length);
 		/*
 		 * More recent eID cards use 2 bytes per default for the document type field.
 		 */
-		final DocumentType documentType = DocumentType.toDocumentType(value);
+		final DocumentType documentType = DocumentType.toDocumentType(buffer, offset, length);
 		if (null == documentType) {
-			LOGGER.warn("unknown document type: {}", DocumentType.toString(value));
+			LOGGER.warn("unknown document type: {}", DocumentType.toString(buffer, offset, length));
 		}
 		return documentType;
 	}
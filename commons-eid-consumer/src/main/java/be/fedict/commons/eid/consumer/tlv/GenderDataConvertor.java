@@ -30,22 +30,26 @@ public class GenderDataConvertor implements DataConvertor<Gender> {
 
 	@Override
 	public Gender convert(final byte[] value) throws DataConvertorException {
-		final String genderStr = new String(value);
-		if ("M".equals(genderStr)) {
-			return Gender.MALE;
-		}
-		if ("F".equals(genderStr)) {
-			return Gender.FEMALE;
-		}
-		if ("V".equals(genderStr)) {
-			return Gender.FEMALE;
-		}
-		if ("W".equals(genderStr)) {
-			return Gender.FEMALE;
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public Gender convert(final byte[] buffer, final int offset, final int length) throws DataConvertorException {
+		if (1 == length) {
+			switch (buffer[offset]) {
+			case 'M':
+				return Gender.MALE;
+			case 'F':
+			case 'V':
+			case 'W':
+				return Gender.FEMALE;
+			default:
+				break;
+			}
 		}
 		/*
 		 * A painful moment here.
 		 */
-		throw new DataConvertorException("unknown gender: " + genderStr);
+		throw new DataConvertorException("unknown gender: " + new String(buffer, offset, length));
 	}
 }
@@ -41,8 +41,14 @@ public class SpecialOrganisationConvertor implements DataConvertor<SpecialOrgani
 		if (null == value) {
 			return SpecialOrganisation.UNSPECIFIED;
 		}
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public SpecialOrganisation convert(final byte[] buffer, final int offset, final int length)
+			throws DataConvertorException {
 		String key;
-		key = new String(value, StandardCharsets.UTF_8);
+		key = new String(buffer, offset, length, StandardCharsets.UTF_8);
 		LOGGER.debug("key: \"{}\"", key);
 		return SpecialOrganisation.toSpecialOrganisation(key);
 	}
@@ -31,7 +31,13 @@ public class SpecialStatusConvertor implements DataConvertor<SpecialStatus> {
 	@Override
 	public SpecialStatus convert(final byte[] value)
 			throws DataConvertorException {
-		final String strValue = new String(value);
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public SpecialStatus convert(final byte[] buffer, final int offset, final int length)
+			throws DataConvertorException {
+		final String strValue = new String(buffer, offset, length);
 		return SpecialStatus.toSpecialStatus(strValue);
 	}
 }
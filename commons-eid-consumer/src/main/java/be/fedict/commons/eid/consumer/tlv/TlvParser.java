@@ -20,6 +20,10 @@
 package be.fedict.commons.eid.consumer.tlv;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -33,6 +37,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Tag-Length-Value parser. The TLV-format is used in the eID card for encoding
  * of the identity and address files.
+ * <p>
+ * The annotations of a TLV class are only inspected once. The resulting binding
+ * (tag index, field accessors and data convertor instances) is cached per class
+ * and reused by all subsequent parse operations. Hence data convertors should be
+ * stateless. Values are decoded in place from the file; only byte array fields
+ * receive a copy of their TLV value.
  * 
  * @author Frank Cornelis
  * 
@@ -41,6 +51,17 @@ public class TlvParser {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(TlvParser.class);
 
+	private static final ClassValue<TlvBinding> BINDINGS = new ClassValue<TlvBinding>() {
+		@Override
+		protected TlvBinding computeValue(final Class<?> type) {
+			try {
+				return new TlvBinding(type);
+			} catch (final ReflectiveOperationException ex) {
+				throw new TlvBindingException(ex);
+			}
+		}
+	};
+
 	private TlvParser() {
 		super();
 	}
@@ -58,8 +79,7 @@ public class TlvParser {
 		T t;
 		try {
 			t = parseThrowing(file, tlvClass);
-		} catch (final DataConvertorException | UnsupportedEncodingException | IllegalAccessException
-				| InstantiationException ex) {
+		} catch (final DataConvertorException | UnsupportedEncodingException | ReflectiveOperationException ex) {
 			throw new RuntimeException("error parsing file: " + tlvClass.getName(), ex);
 		}
 		return t;
@@ -71,27 +91,17 @@ public class TlvParser {
 		return result;
 	}
 
-	private static <T> T parseThrowing(final byte[] file, final Class<T> tlvClass) throws InstantiationException,
-			IllegalAccessException, DataConvertorException, UnsupportedEncodingException {
-		final Field[] fields = tlvClass.getDeclaredFields();
-		final Map<Integer, List<Field>> tlvFields = new HashMap<>();
-		final T tlvObject = tlvClass.newInstance();
-		for (Field field : fields) {
-			final TlvField tlvFieldAnnotation = field.getAnnotation(TlvField.class);
-			if (null != tlvFieldAnnotation) {
-				final int tagId = tlvFieldAnnotation.value();
-				List<Field> fieldList = tlvFields.get(tagId);
-				if (fieldList == null) {
-					fieldList = new ArrayList<>();
-					tlvFields.put(tagId, fieldList);
-				}
-				fieldList.add(field);
-			}
-			final OriginalData originalDataAnnotation = field.getAnnotation(OriginalData.class);
-			if (null != originalDataAnnotation) {
-				field.setAccessible(true);
-				field.set(tlvObject, file);
-			}
+	private static <T> T parseThrowing(final byte[] file, final Class<T> tlvClass)
+			throws ReflectiveOperationException, DataConvertorException, UnsupportedEncodingException {
+		final TlvBinding binding;
+		try {
+			binding = BINDINGS.get(tlvClass);
+		} catch (final TlvBindingException ex) {
+			throw ex.getCause();
+		}
+		final T tlvObject = tlvClass.cast(binding.newInstance());
+		for (FieldBinding originalDataField : binding.originalDataFields) {
+			originalDataField.set(tlvObject, file);
 		}
 
 		int idx = 0;
@@ -110,31 +120,14 @@ public class TlvParser {
 				idx += length;
 				continue;
 			}
-			final List<Field> fieldList = tlvFields.get(new Integer(tag));
-			if (fieldList != null) {
-				for (Field tlvField : fieldList) {
-					final Class<?> tlvType = tlvField.getType();
-					final ConvertData convertDataAnnotation = tlvField.getAnnotation(ConvertData.class);
-					final byte[] tlvValue = copy(file, idx, length);
-					Object fieldValue;
-					if (null != convertDataAnnotation) {
-						final Class<? extends DataConvertor<?>> dataConvertorClass = convertDataAnnotation.value();
-						final DataConvertor<?> dataConvertor = dataConvertorClass.newInstance();
-						fieldValue = dataConvertor.convert(tlvValue);
-					} else if (String.class == tlvType) {
-						fieldValue = new String(tlvValue, StandardCharsets.UTF_8).trim();
-					} else if (Boolean.TYPE == tlvType) {
-						fieldValue = true;
-					} else if (tlvType.isArray() && Byte.TYPE == tlvType.getComponentType()) {
-						fieldValue = tlvValue;
-					} else {
-						throw new IllegalArgumentException("unsupported field type: " + tlvType.getName());
+			final FieldBinding[] fieldBindings = binding.tagFields[tag & 0xff];
+			if (fieldBindings != null) {
+				for (FieldBinding fieldBinding : fieldBindings) {
+					final Object fieldValue = fieldBinding.decode(file, idx, length);
+					if (!fieldBinding.primitive && null != fieldBinding.get(tlvObject)) {
+						throw new RuntimeException("field was already set: " + fieldBinding.name);
 					}
-					if (null != tlvField.get(tlvObject) && !tlvField.getType().isPrimitive()) {
-						throw new RuntimeException("field was already set: " + tlvField.getName());
-					}
-					tlvField.setAccessible(true);
-					tlvField.set(tlvObject, fieldValue);
+					fieldBinding.set(tlvObject, fieldValue);
 				}
 			} else {
 				LOGGER.warn("unknown tag: {}, length {}", (tag & 0xff), length);
@@ -143,4 +136,167 @@ public class TlvParser {
 		}
 		return tlvObject;
 	}
+
+	/*
+	 * Carries a reflection failure out of ClassValue.computeValue.
+	 */
+	private static final class TlvBindingException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		TlvBindingException(final ReflectiveOperationException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized ReflectiveOperationException getCause() {
+			return (ReflectiveOperationException) super.getCause();
+		}
+	}
+
+	/*
+	 * The precompiled binding of a TLV class. Tags are indexed on their unsigned
+	 * byte value.
+	 */
+	private static final class TlvBinding {
+
+		private final MethodHandle constructor;
+
+		private final FieldBinding[][] tagFields;
+
+		private final FieldBinding[] originalDataFields;
+
+		TlvBinding(final Class<?> tlvClass) throws ReflectiveOperationException {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			final Constructor<?> tlvConstructor = tlvClass.getDeclaredConstructor();
+			this.constructor = lookup.unreflectConstructor(tlvConstructor).asType(MethodType.methodType(Object.class));
+
+			final Map<Integer, List<FieldBinding>> tlvFields = new HashMap<>();
+			final List<FieldBinding> originalDataFields = new ArrayList<>();
+			for (Field field : tlvClass.getDeclaredFields()) {
+				final TlvField tlvFieldAnnotation = field.getAnnotation(TlvField.class);
+				if (null != tlvFieldAnnotation) {
+					final int tagId = tlvFieldAnnotation.value();
+					if (tagId != (byte) tagId) {
+						LOGGER.warn("unreachable TLV tag {} for field {}", tagId, field.getName());
+						continue;
+					}
+					List<FieldBinding> fieldList = tlvFields.get(tagId & 0xff);
+					if (fieldList == null) {
+						fieldList = new ArrayList<>();
+						tlvFields.put(tagId & 0xff, fieldList);
+					}
+					fieldList.add(new FieldBinding(lookup, field));
+				}
+				if (null != field.getAnnotation(OriginalData.class)) {
+					originalDataFields.add(new FieldBinding(lookup, field));
+				}
+			}
+			this.tagFields = new FieldBinding[0x100][];
+			for (Map.Entry<Integer, List<FieldBinding>> tlvField : tlvFields.entrySet()) {
+				this.tagFields[tlvField.getKey()] = tlvField.getValue().toArray(new FieldBinding[0]);
+			}
+			this.originalDataFields = originalDataFields.toArray(new FieldBinding[0]);
+		}
+
+		Object newInstance() throws InstantiationException {
+			try {
+				return this.constructor.invokeExact();
+			} catch (final RuntimeException | Error ex) {
+				throw ex;
+			} catch (final Throwable ex) {
+				final InstantiationException instantiationException = new InstantiationException(ex.getMessage());
+				instantiationException.initCause(ex);
+				throw instantiationException;
+			}
+		}
+	}
+
+	private enum ValueType {
+		CONVERTED, STRING, BOOLEAN, BYTE_ARRAY, UNSUPPORTED
+	}
+
+	/*
+	 * The precompiled binding of a single TLV class field.
+	 */
+	private static final class FieldBinding {
+
+		private final String name;
+
+		private final Class<?> type;
+
+		private final boolean primitive;
+
+		private final ValueType valueType;
+
+		private final DataConvertor<?> dataConvertor;
+
+		private final MethodHandle getter;
+
+		private final MethodHandle setter;
+
+		FieldBinding(final MethodHandles.Lookup lookup, final Field field) throws ReflectiveOperationException {
+			this.name = field.getName();
+			this.type = field.getType();
+			this.primitive = this.type.isPrimitive();
+			final ConvertData convertDataAnnotation = field.getAnnotation(ConvertData.class);
+			if (null != convertDataAnnotation) {
+				this.valueType = ValueType.CONVERTED;
+				this.dataConvertor = convertDataAnnotation.value().getDeclaredConstructor().newInstance();
+			} else {
+				this.dataConvertor = null;
+				if (String.class == this.type) {
+					this.valueType = ValueType.STRING;
+				} else if (Boolean.TYPE == this.type) {
+					this.valueType = ValueType.BOOLEAN;
+				} else if (this.type.isArray() && Byte.TYPE == this.type.getComponentType()) {
+					this.valueType = ValueType.BYTE_ARRAY;
+				} else {
+					this.valueType = ValueType.UNSUPPORTED;
+				}
+			}
+			field.setAccessible(true);
+			this.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+			this.setter = lookup.unreflectSetter(field)
+					.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		}
+
+		Object decode(final byte[] file, final int idx, final int length) throws DataConvertorException {
+			switch (this.valueType) {
+			case CONVERTED:
+				return this.dataConvertor.convert(file, idx, length);
+			case STRING:
+				return new String(file, idx, length, StandardCharsets.UTF_8).trim();
+			case BOOLEAN:
+				return true;
+			case BYTE_ARRAY:
+				/*
+				 * Only byte array fields retain (a copy of) the TLV value.
+				 */
+				return copy(file, idx, length);
+			default:
+				throw new IllegalArgumentException("unsupported field type: " + this.type.getName());
+			}
+		}
+
+		Object get(final Object tlvObject) {
+			try {
+				return this.getter.invokeExact(tlvObject);
+			} catch (final RuntimeException | Error ex) {
+				throw ex;
+			} catch (final Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+		void set(final Object tlvObject, final Object value) {
+			try {
+				this.setter.invokeExact(tlvObject, value);
+			} catch (final RuntimeException | Error ex) {
+				throw ex;
+			} catch (final Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
 }
@@ -0,0 +1,292 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.consumer.tlv;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull-style Tag-Length-Value reader. Unlike {@link TlvParser}, this reader
+ * does not require a target class nor a fully materialised file. Each call to
+ * {@link #next()} moves to the next TLV entry, after which its tag, length and
+ * value are available. Padding entries (tag 0) are skipped.
+ *
+ * <pre>
+ * try (TlvReader tlvReader = new TlvReader(inputStream)) {
+ * 	while (tlvReader.next()) {
+ * 		if (6 == tlvReader.getTag()) {
+ * 			String nationalNumber = tlvReader.getStringValue();
+ * 			break;
+ * 		}
+ * 	}
+ * }
+ * </pre>
+ *
+ * The value of the current entry is only valid until the next call to
+ * {@link #next()}.
+ *
+ * @see TlvParser
+ */
+public class TlvReader implements Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 0x100;
+
+	/*
+	 * Upper bound for values read from a channel, well above the size of any eID
+	 * TLV file.
+	 */
+	private static final int MAX_CHANNEL_VALUE_LENGTH = 0x10000;
+
+	private final ReadableByteChannel channel;
+
+	private ByteBuffer buffer;
+
+	private boolean endOfStream;
+
+	private int tag;
+
+	private int length;
+
+	private int valuePosition;
+
+	/**
+	 * Reads the TLV entries of the given file.
+	 *
+	 * @param file
+	 */
+	public TlvReader(final byte[] file) {
+		this(ByteBuffer.wrap(file));
+	}
+
+	/**
+	 * Reads the TLV entries between the position and the limit of the given
+	 * buffer. Values are exposed as slices of this buffer, without copying.
+	 *
+	 * @param buffer
+	 */
+	public TlvReader(final ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+		this.channel = null;
+		this.endOfStream = true;
+		this.tag = -1;
+	}
+
+	/**
+	 * Reads the TLV entries from the given input stream.
+	 *
+	 * @param inputStream
+	 */
+	public TlvReader(final InputStream inputStream) {
+		this(Channels.newChannel(inputStream));
+	}
+
+	/**
+	 * Reads the TLV entries from the given channel.
+	 *
+	 * @param channel
+	 */
+	public TlvReader(final ReadableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+		((Buffer) this.buffer).flip();
+		this.endOfStream = false;
+		this.tag = -1;
+	}
+
+	/**
+	 * Moves to the next TLV entry.
+	 *
+	 * @return <code>false</code> if there are no more TLV entries.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		if (this.tag != -1) {
+			((Buffer) this.buffer).position(this.valuePosition + this.length);
+		}
+		while (true) {
+			if (!fill(2)) {
+				this.tag = -1;
+				return false;
+			}
+			final int mark = this.buffer.position();
+			final byte tag = this.buffer.get();
+			byte lengthByte = this.buffer.get();
+			final int maxLength = null == this.channel ? this.buffer.remaining() : MAX_CHANNEL_VALUE_LENGTH;
+			int length = lengthByte & 0x7f;
+			while ((lengthByte & 0x80) == 0x80) {
+				if (length > maxLength >> 7) {
+					throw valueTooLong(tag);
+				}
+				if (!fill(1)) {
+					throw new EOFException("truncated TLV length at offset " + mark);
+				}
+				lengthByte = this.buffer.get();
+				length = (length << 7) + (lengthByte & 0x7f);
+			}
+			if (length > maxLength) {
+				throw valueTooLong(tag);
+			}
+			if (!fill(length)) {
+				throw new EOFException("truncated TLV value for tag " + (tag & 0xff));
+			}
+			if (0 == tag) {
+				((Buffer) this.buffer).position(this.buffer.position() + length);
+				continue;
+			}
+			this.tag = tag & 0xff;
+			this.length = length;
+			this.valuePosition = this.buffer.position();
+			return true;
+		}
+	}
+
+	/**
+	 * Gives back the tag of the current TLV entry.
+	 *
+	 * @return
+	 */
+	public int getTag() {
+		checkCurrent();
+		return this.tag;
+	}
+
+	/**
+	 * Gives back the length of the value of the current TLV entry.
+	 *
+	 * @return
+	 */
+	public int getLength() {
+		checkCurrent();
+		return this.length;
+	}
+
+	/**
+	 * Gives back a read-only slice holding the value of the current TLV entry.
+	 *
+	 * @return
+	 */
+	public ByteBuffer getValue() {
+		checkCurrent();
+		final ByteBuffer value = this.buffer.asReadOnlyBuffer();
+		((Buffer) value).limit(this.valuePosition + this.length);
+		((Buffer) value).position(this.valuePosition);
+		return value.slice();
+	}
+
+	/**
+	 * Gives back a copy of the value of the current TLV entry.
+	 *
+	 * @return
+	 */
+	public byte[] getBytesValue() {
+		checkCurrent();
+		final byte[] value = new byte[this.length];
+		final ByteBuffer source = this.buffer.duplicate();
+		((Buffer) source).position(this.valuePosition);
+		source.get(value);
+		return value;
+	}
+
+	/**
+	 * Gives back the value of the current TLV entry as string, decoded the same
+	 * way as {@link TlvParser} decodes string fields.
+	 *
+	 * @return
+	 */
+	public String getStringValue() {
+		checkCurrent();
+		if (this.buffer.hasArray()) {
+			return new String(this.buffer.array(), this.buffer.arrayOffset() + this.valuePosition, this.length,
+					StandardCharsets.UTF_8).trim();
+		}
+		return new String(getBytesValue(), StandardCharsets.UTF_8).trim();
+	}
+
+	/**
+	 * Converts the value of the current TLV entry using the given data convertor.
+	 *
+	 * @param <T>
+	 * @param dataConvertor
+	 * @return
+	 * @throws DataConvertorException
+	 */
+	public <T> T getValue(final DataConvertor<T> dataConvertor) throws DataConvertorException {
+		checkCurrent();
+		if (this.buffer.hasArray()) {
+			return dataConvertor.convert(this.buffer.array(), this.buffer.arrayOffset() + this.valuePosition,
+					this.length);
+		}
+		return dataConvertor.convert(getBytesValue());
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (null != this.channel) {
+			this.channel.close();
+		}
+	}
+
+	private void checkCurrent() {
+		if (-1 == this.tag) {
+			throw new IllegalStateException("no current TLV entry");
+		}
+	}
+
+	private IOException valueTooLong(final byte tag) {
+		if (null == this.channel) {
+			return new EOFException("truncated TLV value for tag " + (tag & 0xff));
+		}
+		return new IOException("TLV value too long for tag " + (tag & 0xff));
+	}
+
+	/*
+	 * Makes sure that at least count bytes are available in the buffer, reading
+	 * from the channel if required.
+	 */
+	private boolean fill(final int count) throws IOException {
+		if (this.buffer.remaining() >= count) {
+			return true;
+		}
+		if (this.endOfStream) {
+			return false;
+		}
+		this.buffer.compact();
+		if (this.buffer.capacity() < count) {
+			final ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(count, this.buffer.capacity() * 2));
+			((Buffer) this.buffer).flip();
+			newBuffer.put(this.buffer);
+			this.buffer = newBuffer;
+		}
+		while (this.buffer.position() < count) {
+			if (-1 == this.channel.read(this.buffer)) {
+				this.endOfStream = true;
+				break;
+			}
+		}
+		((Buffer) this.buffer).flip();
+		return this.buffer.remaining() >= count;
+	}
+}
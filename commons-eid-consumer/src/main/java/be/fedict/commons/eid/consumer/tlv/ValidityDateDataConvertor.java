@@ -31,10 +31,16 @@ public class ValidityDateDataConvertor implements DataConvertor<GregorianCalenda
 
 	@Override
 	public GregorianCalendar convert(final byte[] value) throws DataConvertorException {
-		if (value.length == 0) {
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public GregorianCalendar convert(final byte[] buffer, final int offset, final int length)
+			throws DataConvertorException {
+		if (length == 0) {
 			return null;
 		}
-		final String dateStr = new String(value);
+		final String dateStr = new String(buffer, offset, length);
 		final int day = Integer.parseInt(dateStr.substring(0, 2));
 		final int month = Integer.parseInt(dateStr.substring(3, 5));
 		final int year = Integer.parseInt(dateStr.substring(6));
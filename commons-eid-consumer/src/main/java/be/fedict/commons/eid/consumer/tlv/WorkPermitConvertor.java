@@ -24,7 +24,12 @@ public class WorkPermitConvertor implements DataConvertor<WorkPermit> {
 
 	@Override
 	public WorkPermit convert(byte[] value) throws DataConvertorException {
-		final String key = new String(value);
+		return convert(value, 0, value.length);
+	}
+
+	@Override
+	public WorkPermit convert(byte[] buffer, int offset, int length) throws DataConvertorException {
+		final String key = new String(buffer, offset, length);
 		return WorkPermit.toWorkPermit(key);
 	}
 }
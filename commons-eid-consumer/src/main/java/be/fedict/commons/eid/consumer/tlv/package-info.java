@@ -17,8 +17,9 @@
  */
 
 /**
- * Package containing the TLV parser.
+ * Package containing the TLV parser and the streaming TLV reader.
  * 
  * @see be.fedict.commons.eid.consumer.tlv.TlvParser
+ * @see be.fedict.commons.eid.consumer.tlv.TlvReader
  */
 package be.fedict.commons.eid.consumer.tlv;
@@ -20,7 +20,10 @@
 package test.unit.be.fedict.commons.eid.consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -46,7 +49,11 @@ import java.security.spec.ECGenParameterSpec;
 import java.security.spec.RSAKeyGenParameterSpec;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.asn1.x500.X500Name;
@@ -72,6 +79,9 @@ import org.slf4j.LoggerFactory;
 
 import be.fedict.commons.eid.consumer.Address;
 import be.fedict.commons.eid.consumer.BeIDIntegrity;
+import be.fedict.commons.eid.consumer.BeIDIntegrityRequest;
+import be.fedict.commons.eid.consumer.BeIDIntegrityResult;
+import be.fedict.commons.eid.consumer.RRNCertificateCache;
 import be.fedict.commons.eid.consumer.Identity;
 
 public class BeIDIntegrityTest {
@@ -221,6 +231,103 @@ public class BeIDIntegrityTest {
 		}
 	}
 
+	@Test
+	public void testRRNCertificateCache() throws Exception {
+		// setup
+		byte[] identityFile = IOUtils.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-identity.tlv"));
+		byte[] identitySignatureFile = IOUtils
+				.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-identity-sign.der"));
+		byte[] rrnCertFile = IOUtils.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-rrn-cert.der"));
+		RRNCertificateCache rrnCertificateCache = new RRNCertificateCache();
+		BeIDIntegrity beIDIntegrity = new BeIDIntegrity(rrnCertificateCache);
+
+		// operate
+		X509Certificate rrnCert = beIDIntegrity.loadCertificate(rrnCertFile);
+		X509Certificate rrnCert2 = beIDIntegrity.loadCertificate(rrnCertFile);
+
+		// verify: loading a certificate does not cache it
+		assertEquals(0, rrnCertificateCache.size());
+
+		// operate
+		for (int idx = 0; idx < 3; idx++) {
+			Identity identity = beIDIntegrity.getVerifiedIdentity(identityFile, identitySignatureFile, rrnCert);
+			assertEquals("Alice Geldigekaart", identity.getFirstName());
+		}
+		beIDIntegrity.getVerifiedIdentity(identityFile, identitySignatureFile, rrnCert2);
+
+		// verify
+		assertEquals(1, rrnCertificateCache.size());
+		assertEquals(1, rrnCertificateCache.getMisses());
+		assertEquals(3, rrnCertificateCache.getHits());
+
+		// operate
+		identityFile[0] = 0x7f;
+		try {
+			beIDIntegrity.getVerifiedIdentity(identityFile, identitySignatureFile, rrnCert);
+			fail();
+		} catch (SecurityException e) {
+			// expected
+		}
+		rrnCertificateCache.clear();
+
+		// verify
+		assertEquals(0, rrnCertificateCache.size());
+		assertEquals(0, rrnCertificateCache.getHits());
+	}
+
+	@Test
+	public void testBatchIntegrity() throws Exception {
+		// setup
+		byte[] identityFile = IOUtils.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-identity.tlv"));
+		byte[] identitySignatureFile = IOUtils
+				.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-identity-sign.der"));
+		byte[] rrnCertFile = IOUtils.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-rrn-cert.der"));
+		byte[] addressFile = IOUtils.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-address.tlv"));
+		byte[] addressSignatureFile = IOUtils
+				.toByteArray(BeIDIntegrityTest.class.getResourceAsStream("/test-address-sign.der"));
+		byte[] corruptAddressFile = addressFile.clone();
+		corruptAddressFile[0] = 123;
+
+		BeIDIntegrity beIDIntegrity = new BeIDIntegrity();
+		X509Certificate rrnCert = beIDIntegrity.loadCertificate(rrnCertFile);
+
+		List<BeIDIntegrityRequest> requests = new ArrayList<>();
+		for (int idx = 0; idx < 20; idx++) {
+			if (idx % 5 == 3) {
+				requests.add(new BeIDIntegrityRequest(identityFile, identitySignatureFile, corruptAddressFile,
+						addressSignatureFile, rrnCert));
+			} else {
+				requests.add(new BeIDIntegrityRequest(identityFile, identitySignatureFile, addressFile,
+						addressSignatureFile, rrnCert));
+			}
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		// operate
+		List<BeIDIntegrityResult> results;
+		try {
+			results = beIDIntegrity.verify(requests, executorService);
+		} finally {
+			executorService.shutdown();
+		}
+
+		// verify
+		assertEquals(requests.size(), results.size());
+		for (int idx = 0; idx < results.size(); idx++) {
+			BeIDIntegrityResult result = results.get(idx);
+			assertSame(requests.get(idx), result.getRequest());
+			if (idx % 5 == 3) {
+				assertFalse(result.isValid());
+				assertTrue(result.getError() instanceof SecurityException);
+				assertNull(result.getIdentity());
+			} else {
+				assertTrue(result.isValid());
+				assertEquals("Alice Geldigekaart", result.getIdentity().getFirstName());
+				assertEquals("2000", result.getAddress().getZip());
+			}
+		}
+	}
+
 	@Test
 	public void testVerifyNonRepSignatureRSA() throws Exception {
 		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
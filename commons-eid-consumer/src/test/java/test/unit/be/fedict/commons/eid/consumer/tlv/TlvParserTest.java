@@ -23,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -50,8 +51,11 @@ import be.fedict.commons.eid.consumer.Identity;
 import be.fedict.commons.eid.consumer.SpecialOrganisation;
 import be.fedict.commons.eid.consumer.SpecialStatus;
 import be.fedict.commons.eid.consumer.WorkPermit;
+import be.fedict.commons.eid.consumer.tlv.DocumentTypeConvertor;
+import be.fedict.commons.eid.consumer.tlv.GenderDataConvertor;
 import be.fedict.commons.eid.consumer.tlv.TlvField;
 import be.fedict.commons.eid.consumer.tlv.TlvParser;
+import be.fedict.commons.eid.consumer.tlv.ValidityDateDataConvertor;
 
 public class TlvParserTest {
 
@@ -616,4 +620,55 @@ public class TlvParserTest {
 		byte[] identityFile = new byte[] { 31, 0 };
 		TlvParser.parse(identityFile, Identity.class);
 	}
+
+	@Test
+	public void testRepeatedParse() throws Exception {
+		// setup
+		final InputStream idInputStream = TlvParserTest.class.getResourceAsStream("/id-alice.tlv");
+		final byte[] idFile = IOUtils.toByteArray(idInputStream);
+
+		// operate
+		final Identity identity1 = TlvParser.parse(idFile, Identity.class);
+		final Identity identity2 = TlvParser.parse(idFile, Identity.class);
+
+		// verify
+		assertNotSame(identity1, identity2);
+		assertEquals(identity1.getNationalNumber(), identity2.getNationalNumber());
+		assertEquals(identity1.getDateOfBirth(), identity2.getDateOfBirth());
+		assertNotSame(identity1.getDateOfBirth(), identity2.getDateOfBirth());
+		assertArrayEquals(identity1.getPhotoDigest(), identity2.getPhotoDigest());
+		assertNotSame(identity1.getPhotoDigest(), identity2.getPhotoDigest());
+	}
+
+	@Test
+	public void testConvertSlice() throws Exception {
+		final byte[] buffer = "XX01.02.2003M32YY".getBytes();
+
+		assertEquals(new GregorianCalendar(2003, 1, 1), new ValidityDateDataConvertor().convert(buffer, 2, 10));
+		assertEquals(Gender.MALE, new GenderDataConvertor().convert(buffer, 12, 1));
+		assertEquals(DocumentType.FOREIGNER_EU_PLUS, new DocumentTypeConvertor().convert(buffer, 13, 2));
+	}
+
+	@Test
+	public void testUnboundTlvClass() throws Exception {
+		// operate
+		try {
+			TlvParser.parse(new byte[] { 0x01, 0x01, 0x41 }, NoDefaultConstructor.class);
+			fail();
+		} catch (final RuntimeException e) {
+			// verify
+			assertEquals("error parsing file: " + NoDefaultConstructor.class.getName(), e.getMessage());
+			assertTrue(e.getCause() instanceof NoSuchMethodException);
+		}
+	}
+
+	public static class NoDefaultConstructor {
+
+		@TlvField(1)
+		public String value;
+
+		public NoDefaultConstructor(final String value) {
+			this.value = value;
+		}
+	}
 }
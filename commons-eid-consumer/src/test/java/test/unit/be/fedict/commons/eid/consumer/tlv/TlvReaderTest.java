@@ -0,0 +1,168 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.consumer.tlv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.GregorianCalendar;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.consumer.Address;
+import be.fedict.commons.eid.consumer.Identity;
+import be.fedict.commons.eid.consumer.tlv.TlvParser;
+import be.fedict.commons.eid.consumer.tlv.TlvReader;
+import be.fedict.commons.eid.consumer.tlv.ValidityDateDataConvertor;
+
+public class TlvReaderTest {
+
+	@Test
+	public void testReadIdentityFromInputStream() throws Exception {
+		// setup
+		final InputStream idInputStream = TlvReaderTest.class.getResourceAsStream("/id-alice.tlv");
+
+		// operate
+		String cardNumber = null;
+		String nationalNumber = null;
+		GregorianCalendar cardValidityDateEnd = null;
+		try (TlvReader tlvReader = new TlvReader(idInputStream)) {
+			while (tlvReader.next()) {
+				switch (tlvReader.getTag()) {
+				case 1:
+					cardNumber = tlvReader.getStringValue();
+					break;
+				case 4:
+					cardValidityDateEnd = tlvReader.getValue(new ValidityDateDataConvertor());
+					break;
+				case 6:
+					nationalNumber = tlvReader.getStringValue();
+					break;
+				default:
+					break;
+				}
+			}
+		}
+
+		// verify
+		assertEquals("000000226635", cardNumber);
+		assertEquals("71715100070", nationalNumber);
+		assertEquals(new GregorianCalendar(2010, 7, 8), cardValidityDateEnd);
+	}
+
+	@Test
+	public void testReadAddressFromByteBuffer() throws Exception {
+		// setup
+		final byte[] addressFile = IOUtils.toByteArray(TlvReaderTest.class.getResourceAsStream("/address-alice.tlv"));
+		final Address address = TlvParser.parse(addressFile, Address.class);
+
+		// operate & verify
+		final TlvReader tlvReader = new TlvReader(ByteBuffer.wrap(addressFile));
+		assertTrue(tlvReader.next());
+		assertEquals(1, tlvReader.getTag());
+		assertEquals(address.getStreetAndNumber(), tlvReader.getStringValue());
+		assertTrue(tlvReader.next());
+		assertEquals(2, tlvReader.getTag());
+		assertEquals(address.getZip(), tlvReader.getStringValue());
+		assertTrue(tlvReader.next());
+		assertEquals(3, tlvReader.getTag());
+		assertEquals(address.getMunicipality(), tlvReader.getStringValue());
+		assertEquals(address.getMunicipality().length(), tlvReader.getValue().remaining());
+		assertFalse(tlvReader.next());
+	}
+
+	@Test
+	public void testReadSameEntriesAsParser() throws Exception {
+		// setup
+		final byte[] idFile = IOUtils.toByteArray(TlvReaderTest.class.getResourceAsStream("/id-alice.tlv"));
+		final Identity identity = TlvParser.parse(idFile, Identity.class);
+
+		// operate & verify
+		final TlvReader tlvReader = new TlvReader(new ByteArrayInputStream(idFile));
+		int count = 0;
+		while (tlvReader.next()) {
+			if (7 == tlvReader.getTag()) {
+				assertEquals(identity.getName(), tlvReader.getStringValue());
+			}
+			count++;
+		}
+		assertTrue(count > 10);
+	}
+
+	@Test
+	public void testLargeField() throws Exception {
+		// setup
+		final byte[] value = new byte[1024 * 2];
+		final byte[] file = new byte[2 + value.length + 3];
+		file[0] = 100;
+		file[1] = (byte) (0x80 | (value.length >> 7));
+		file[2] = (byte) (value.length & 0x7f);
+		file[file.length - 2] = 1;
+		file[file.length - 1] = 0;
+
+		// operate & verify
+		final TlvReader tlvReader = new TlvReader(new ByteArrayInputStream(file, 0, 100));
+		try {
+			tlvReader.next();
+			fail();
+		} catch (EOFException e) {
+			// expected
+		}
+
+		final TlvReader tlvReader2 = new TlvReader(new ByteArrayInputStream(file));
+		assertTrue(tlvReader2.next());
+		assertEquals(100, tlvReader2.getTag());
+		assertEquals(value.length, tlvReader2.getLength());
+		assertTrue(tlvReader2.next());
+		assertEquals(1, tlvReader2.getTag());
+		assertEquals(0, tlvReader2.getLength());
+		assertFalse(tlvReader2.next());
+	}
+
+	@Test
+	public void testDeclaredLengthIsCapped() throws Exception {
+		// setup: a declared length of 0x0FFFFFFF
+		final byte[] file = new byte[] { 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f, 0x41 };
+
+		// operate & verify
+		final TlvReader tlvReader = new TlvReader(new ByteArrayInputStream(file));
+		try {
+			tlvReader.next();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+
+		final TlvReader tlvReader2 = new TlvReader(file);
+		try {
+			tlvReader2.next();
+			fail();
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+}
@@ -22,8 +22,12 @@ package be.fedict.commons.eid.jca;
 import java.io.IOException;
 import java.security.PrivateKey;
 import java.security.SignatureException;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import javax.smartcardio.CardException;
 
@@ -64,6 +68,10 @@ public abstract class AbstractBeIDPrivateKey implements PrivateKey {
 
 	protected X509Certificate authenticationCertificate;
 
+	private String cardId;
+
+	private boolean prepareSigning;
+
 	/**
 	 * Main constructor.
 	 *
@@ -105,41 +113,40 @@ public abstract class AbstractBeIDPrivateKey implements PrivateKey {
 		return null;
 	}
 
+	void setPrepareSigning(final boolean prepareSigning) {
+		this.prepareSigning = prepareSigning;
+	}
+
+	/*
+	 * Starts preparing the eID card for signing in the background, if enabled. The
+	 * returned preparation belongs to the caller, which hands it to sign() or
+	 * cancels it.
+	 */
+	SigningPreparation prepareSigning(final BeIDDigest digestAlgo) {
+		if (!this.prepareSigning) {
+			return null;
+		}
+		final SigningPreparation preparation = new SigningPreparation(this.beIDCard, digestAlgo,
+				this.certificateFileType, this.applicationName);
+		final Thread thread = new Thread(preparation.signature, "BeIDSignature preparation");
+		thread.setDaemon(true);
+		thread.start();
+		return preparation;
+	}
+
 	byte[] sign(final byte[] digestValue, final BeIDDigest digestAlgo) throws SignatureException {
-		LOGGER.debug("auto recovery: {}", this.autoRecovery);
-		byte[] signatureValue;
+		return sign(digestValue, digestAlgo, null);
+	}
+
+	byte[] sign(final byte[] digestValue, final BeIDDigest digestAlgo, final SigningPreparation preparation)
+			throws SignatureException {
+		byte[] signatureValue = null;
 		try {
-			if (this.autoRecovery) {
-				/*
-				 * We keep a copy of the authentication certificate to make sure that the
-				 * automatic recovery only operates against the same eID card.
-				 */
-				if (null == this.authenticationCertificate) {
-					try {
-						this.authenticationCertificate = this.beIDCard.getAuthenticationCertificate();
-					} catch (IOException | InterruptedException | CertificateException | CardException e) {
-						// don't fail here
-					}
-				}
+			if (null != preparation) {
+				signatureValue = preparation.sign(digestValue);
 			}
-			try {
-				signatureValue = this.beIDCard.sign(digestValue, digestAlgo, this.certificateFileType, false,
-						this.applicationName);
-			} catch (UserCancelledException | IOException | InterruptedException | CardException e) {
-				if (this.autoRecovery) {
-					LOGGER.debug("trying to recover...");
-					this.beIDCard = this.beIDKeyStore.getBeIDCard(true);
-					if (null != this.authenticationCertificate) {
-						X509Certificate newAuthenticationCertificate = this.beIDCard.getAuthenticationCertificate();
-						if (!this.authenticationCertificate.equals(newAuthenticationCertificate)) {
-							throw new SignatureException("different eID card");
-						}
-					}
-					signatureValue = this.beIDCard.sign(digestValue, digestAlgo, this.certificateFileType, false,
-							this.applicationName);
-				} else {
-					throw e;
-				}
+			if (null == signatureValue) {
+				signatureValue = signWithRecovery(digestValue, digestAlgo);
 			}
 			if (this.logoff) {
 				try {
@@ -160,4 +167,92 @@ public abstract class AbstractBeIDPrivateKey implements PrivateKey {
 		}
 		return signatureValue;
 	}
+
+	private byte[] signWithRecovery(final byte[] digestValue, final BeIDDigest digestAlgo)
+			throws UserCancelledException, IOException, InterruptedException, CardException, SignatureException {
+		LOGGER.debug("auto recovery: {}", this.autoRecovery);
+		if (this.autoRecovery) {
+			/*
+			 * We keep the card identifier to make sure that the automatic recovery only
+			 * operates against the same eID card.
+			 */
+			if (null == this.cardId) {
+				try {
+					this.cardId = this.beIDCard.getCardId();
+				} catch (IOException | CardException e) {
+					// don't fail here
+				}
+			}
+		}
+		try {
+			return this.beIDCard.sign(digestValue, digestAlgo, this.certificateFileType, false,
+					this.applicationName);
+		} catch (UserCancelledException | IOException | InterruptedException | CardException e) {
+			if (this.autoRecovery) {
+				LOGGER.debug("trying to recover...");
+				this.beIDCard = this.beIDKeyStore.getBeIDCard(true);
+				if (null != this.cardId) {
+					if (!this.cardId.equals(this.beIDCard.getCardId())) {
+						throw new SignatureException("different eID card");
+					}
+				}
+				return this.beIDCard.sign(digestValue, digestAlgo, this.certificateFileType, false,
+						this.applicationName);
+			}
+			throw e;
+		}
+	}
+
+	/*
+	 * A signature prepared on a background thread. The thread obtains the PIN for
+	 * the non-repudiation key and then waits, without holding the card, until the
+	 * digest value is handed over, the preparation is cancelled, or
+	 * PREPARATION_TIMEOUT_SECONDS pass. Only then it takes a short exclusive
+	 * transaction to verify the PIN and compute the signature. It is owned by a
+	 * single BeIDSignature, so no other signature can use the PIN.
+	 */
+	static final class SigningPreparation {
+
+		private static final long PREPARATION_TIMEOUT_SECONDS = 60;
+
+		private final CompletableFuture<byte[]> digestValue;
+
+		private final FutureTask<byte[]> signature;
+
+		SigningPreparation(final BeIDCard beIDCard, final BeIDDigest digestAlgo, final FileType certificateFileType,
+				final String applicationName) {
+			this.digestValue = new CompletableFuture<>();
+			this.signature = new FutureTask<>(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws Exception {
+					return beIDCard.sign(SigningPreparation.this.digestValue, PREPARATION_TIMEOUT_SECONDS,
+							TimeUnit.SECONDS, digestAlgo, certificateFileType, false, applicationName);
+				}
+			});
+		}
+
+		/*
+		 * Gives back the signature value, or null if the preparation failed, in which
+		 * case the caller signs again from scratch.
+		 */
+		byte[] sign(final byte[] digestValue) throws InterruptedException, UserCancelledException {
+			this.digestValue.complete(digestValue);
+			try {
+				return this.signature.get();
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof UserCancelledException) {
+					throw (UserCancelledException) e.getCause();
+				}
+				LOGGER.debug("prepared signing failed: {}", e.getCause().getMessage());
+				return null;
+			}
+		}
+
+		/*
+		 * Abandons the preparation without signing, discarding an obtained PIN.
+		 */
+		void cancel() {
+			this.digestValue.cancel(false);
+		}
+	}
 }
@@ -139,35 +139,39 @@ public class BeIDKeyStore extends KeyStoreSpi {
 		boolean logoff;
 		boolean allowFailingLogoff;
 		boolean autoRecovery;
+		boolean prepareSigning;
 		String applicationName;
 		if (null == this.keyStoreParameter) {
 			logoff = false;
 			allowFailingLogoff = false;
 			autoRecovery = false;
+			prepareSigning = false;
 			applicationName = null;
 		} else {
 			logoff = this.keyStoreParameter.getLogoff();
 			allowFailingLogoff = this.keyStoreParameter.isAllowFailingLogoff();
 			autoRecovery = this.keyStoreParameter.getAutoRecovery();
+			prepareSigning = this.keyStoreParameter.getPrepareSigning();
 			applicationName = this.keyStoreParameter.getApplicationName();
 		}
+		final FileType certificateFileType;
 		if ("Authentication".equals(alias)) {
-			if (beIDCard.isEC()) {
-				return new BeIDECPrivateKey(FileType.AuthentificationCertificate, beIDCard, logoff, allowFailingLogoff,
-						autoRecovery, this, applicationName);
-			}
-			return new BeIDPrivateKey(FileType.AuthentificationCertificate, beIDCard, logoff, allowFailingLogoff,
-					autoRecovery, this, applicationName);
+			certificateFileType = FileType.AuthentificationCertificate;
+		} else if ("Signature".equals(alias)) {
+			certificateFileType = FileType.NonRepudiationCertificate;
+		} else {
+			return null;
 		}
-		if ("Signature".equals(alias)) {
-			if (beIDCard.isEC()) {
-				return new BeIDECPrivateKey(FileType.NonRepudiationCertificate, beIDCard, logoff, allowFailingLogoff,
-						autoRecovery, this, applicationName);
-			}
-			return new BeIDPrivateKey(FileType.NonRepudiationCertificate, beIDCard, logoff, allowFailingLogoff,
-					autoRecovery, this, applicationName);
+		final AbstractBeIDPrivateKey privateKey;
+		if (beIDCard.isEC()) {
+			privateKey = new BeIDECPrivateKey(certificateFileType, beIDCard, logoff, allowFailingLogoff, autoRecovery,
+					this, applicationName);
+		} else {
+			privateKey = new BeIDPrivateKey(certificateFileType, beIDCard, logoff, allowFailingLogoff, autoRecovery,
+					this, applicationName);
 		}
-		return null;
+		privateKey.setPrepareSigning(prepareSigning);
+		return privateKey;
 	}
 
 	@Override
@@ -501,7 +505,7 @@ public class BeIDKeyStore extends KeyStoreSpi {
 		}
 		final Messages messages = Messages.getInstance(locale);
 		final BeIDCardsUI ui = new DefaultBeIDCardsUI(parentComponent, messages);
-		final BeIDCards beIDCards = new BeIDCards(logger, ui);
+		final BeIDCards beIDCards = new BeIDCards(logger, ui, BeIDProvider.getCardDiscovery());
 		beIDCards.setLocale(locale);
 		try {
 			CardTerminal stickyCardTerminal;
@@ -519,10 +523,20 @@ public class BeIDKeyStore extends KeyStoreSpi {
 			this.beIDCard.setUI(userInterface);
 		} catch (final CancelledException cex) {
 			throw new SecurityException("user cancelled");
+		} finally {
+			closeBeIDCards(beIDCards);
 		}
 		if (null == this.beIDCard) {
 			throw new SecurityException("missing eID card");
 		}
 		return this.beIDCard;
 	}
+
+	static void closeBeIDCards(final BeIDCards beIDCards) {
+		try {
+			beIDCards.close();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 }
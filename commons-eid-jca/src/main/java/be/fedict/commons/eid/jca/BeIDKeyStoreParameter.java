@@ -26,6 +26,7 @@ import java.util.Locale;
 
 import be.fedict.commons.eid.client.BeIDCard;
 import be.fedict.commons.eid.client.impl.CCID;
+import be.fedict.commons.eid.client.impl.ReaderQuirks;
 import be.fedict.commons.eid.client.spi.Logger;
 
 /**
@@ -69,6 +70,8 @@ public class BeIDKeyStoreParameter implements KeyStore.LoadStoreParameter {
 
 	private String applicationName;
 
+	private boolean prepareSigning;
+
 	@Override
 	public ProtectionParameter getProtectionParameter() {
 		return null;
@@ -194,6 +197,18 @@ public class BeIDKeyStoreParameter implements KeyStore.LoadStoreParameter {
 		CCID.addPPDUName(ppduName);
 	}
 
+	/**
+	 * Adds a name of a card terminal that needs a delay after selecting a file.
+	 * Other card terminals get this delay only after a sharing violation has been
+	 * detected.
+	 * 
+	 * @param selectFileDelayName
+	 *            the card name terminal (or a fraction of it).
+	 */
+	public void addSelectFileDelayName(String selectFileDelayName) {
+		ReaderQuirks.addSelectFileDelayName(selectFileDelayName);
+	}
+
 	public String getApplicationName() {
 		return this.applicationName;
 	}
@@ -207,4 +222,25 @@ public class BeIDKeyStoreParameter implements KeyStore.LoadStoreParameter {
 	public void setApplicationName(String applicationName) {
 		this.applicationName = applicationName;
 	}
+
+	public boolean getPrepareSigning() {
+		return this.prepareSigning;
+	}
+
+	/**
+	 * Sets whether the private keys retrieved from the key store should prepare
+	 * the eID card as soon as a signature is initialized. For the non-repudiation
+	 * key, the PIN dialog then runs in the background while the data to be signed
+	 * is being hashed.
+	 * <p>
+	 * The preparation does not hold the eID card while the data is being hashed,
+	 * so other use of the eID card keeps working. The PIN verification and the
+	 * signature run within one exclusive transaction once the digest value is
+	 * available. A preparation that is not used within a minute is abandoned.
+	 * 
+	 * @param prepareSigning
+	 */
+	public void setPrepareSigning(boolean prepareSigning) {
+		this.prepareSigning = prepareSigning;
+	}
 }
@@ -31,6 +31,8 @@ import javax.net.ssl.KeyManagerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import be.fedict.commons.eid.client.BeIDCardDiscovery;
+import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.jca.ssl.BeIDKeyManagerFactory;
 
 /**
@@ -62,6 +64,8 @@ public class BeIDProvider extends Provider {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BeIDProvider.class);
 
+	private static BeIDCardDiscovery cardDiscovery;
+
 	public BeIDProvider() {
 		super(NAME, 1.0, "BeID Provider");
 
@@ -133,6 +137,23 @@ public class BeIDProvider extends Provider {
 		putService(new BeIDService(this, "KeyManagerFactory", "BeID", BeIDKeyManagerFactory.class.getName()));
 
 		putService(new BeIDService(this, "SecureRandom", "BeID", BeIDSecureRandom.class.getName()));
+		putService(new BeIDService(this, "SecureRandom", "BeIDPooled", BeIDSecureRandom.class.getName()));
+	}
+
+	/**
+	 * Gives the card discovery shared by the key stores and secure randoms of this
+	 * provider. It is started on first use, and keeps running for the lifetime of
+	 * the JVM, so that recovering a card does not require to detect all card
+	 * terminals and cards again.
+	 *
+	 * @return the shared card discovery.
+	 */
+	static synchronized BeIDCardDiscovery getCardDiscovery() {
+		if (null == cardDiscovery) {
+			LOGGER.debug("starting shared card discovery");
+			cardDiscovery = BeIDCardDiscovery.acquireShared(new VoidLogger());
+		}
+		return cardDiscovery;
 	}
 
 	/**
@@ -158,6 +179,9 @@ public class BeIDProvider extends Provider {
 			if (super.getType().equals("Signature")) {
 				return new BeIDSignature(this.getAlgorithm());
 			}
+			if (super.getType().equals("SecureRandom")) {
+				return new BeIDSecureRandom("BeIDPooled".equals(this.getAlgorithm()));
+			}
 			return super.newInstance(constructorParameter);
 		}
 
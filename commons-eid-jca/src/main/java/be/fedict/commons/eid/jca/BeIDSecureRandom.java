@@ -19,7 +19,13 @@
 
 package be.fedict.commons.eid.jca;
 
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.security.SecureRandomSpi;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.smartcardio.CardException;
 
@@ -29,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import be.fedict.commons.eid.client.BeIDCard;
 import be.fedict.commons.eid.client.BeIDCards;
 import be.fedict.commons.eid.client.CancelledException;
+import be.fedict.commons.eid.client.impl.VoidLogger;
 
 /**
  * eID based implementation of a secure random generator. Can be used to seed
@@ -40,6 +47,20 @@ import be.fedict.commons.eid.client.CancelledException;
  * <pre>
  * SecureRandom secureRandom = SecureRandom.getInstance(&quot;BeID&quot;);
  * </pre>
+ * <p/>
+ * The "BeID" algorithm sends a GET CHALLENGE command to the eID card for every
+ * request. The "BeIDPooled" algorithm instead serves requests from a DRBG that
+ * is regularly reseeded with random data from the eID card. The random data is
+ * retrieved ahead of time in larger blocks by a background thread.
+ * 
+ * <pre>
+ * SecureRandom secureRandom = SecureRandom.getInstance(&quot;BeIDPooled&quot;);
+ * </pre>
+ * <p/>
+ * Every GET CHALLENGE command runs within an exclusive transaction on the eID
+ * card. When another thread holds the card, e.g. to sign via the
+ * {@link BeIDKeyStore}, {@link BeIDCard#beginExclusive()} blocks until that
+ * transaction ends.
  * 
  * @author Frank Cornelis
  * 
@@ -50,42 +71,264 @@ public class BeIDSecureRandom extends SecureRandomSpi {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BeIDSecureRandom.class);
 
+	/*
+	 * Size of the GET CHALLENGE blocks used to fill the entropy pool.
+	 */
+	private static final int CHALLENGE_BLOCK_SIZE = 0x80;
+
+	private static final int ENTROPY_POOL_SIZE = 8 * CHALLENGE_BLOCK_SIZE;
+
+	/*
+	 * The entropy pool is refilled in the background once it holds less than
+	 * this number of bytes.
+	 */
+	private static final int ENTROPY_POOL_LOW_WATERMARK = 2 * CHALLENGE_BLOCK_SIZE;
+
+	/*
+	 * Number of bytes of card entropy used per DRBG reseed.
+	 */
+	private static final int RESEED_SIZE = 32;
+
+	/*
+	 * Number of bytes the DRBG generates before it gets reseeded.
+	 */
+	private static final int RESEED_INTERVAL = 1024;
+
+	/*
+	 * Runs the entropy pool refills of all instances. Idle threads end after a
+	 * minute.
+	 */
+	private static final ExecutorService REFILL_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "BeIDSecureRandom refill");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	private BeIDCard beIDCard;
 
+	private final boolean autoDiscovery;
+
+	private final Object cardLock = new Object();
+
+	private final boolean pooled;
+
+	private SecureRandom drbg;
+
+	private long bytesSinceReseed;
+
+	private final byte[] entropyPool;
+
+	private int entropyPoolSize;
+
+	private boolean refilling;
+
+	private RuntimeException refillFailure;
+
+	public BeIDSecureRandom() {
+		this(false);
+	}
+
+	/**
+	 * @param pooled <code>true</code> to serve random data from a DRBG reseeded
+	 *               with pooled eID card random data, <code>false</code> to send a
+	 *               GET CHALLENGE command per request.
+	 */
+	public BeIDSecureRandom(final boolean pooled) {
+		this(null, pooled);
+	}
+
+	/**
+	 * @param beIDCard the eID card to retrieve the random data from. When
+	 *                 <code>null</code>, the eID card is discovered on first use.
+	 * @param pooled   <code>true</code> to serve random data from a DRBG reseeded
+	 *                 with pooled eID card random data, <code>false</code> to send
+	 *                 a GET CHALLENGE command per request.
+	 */
+	public BeIDSecureRandom(final BeIDCard beIDCard, final boolean pooled) {
+		this.beIDCard = beIDCard;
+		this.autoDiscovery = null == beIDCard;
+		this.pooled = pooled;
+		this.entropyPool = pooled ? new byte[ENTROPY_POOL_SIZE] : null;
+	}
+
 	@Override
 	protected void engineSetSeed(final byte[] seed) {
 		LOGGER.debug("engineSetSeed");
+		if (!this.pooled) {
+			return;
+		}
+		synchronized (this) {
+			if (null != this.drbg) {
+				this.drbg.setSeed(seed);
+			}
+		}
 	}
 
 	@Override
 	protected void engineNextBytes(final byte[] bytes) {
 		LOGGER.debug("engineNextBytes: {} bytes", bytes.length);
-		BeIDCard beIDCard = getBeIDCard();
-		byte[] randomData;
-		try {
-			try {
-				randomData = beIDCard.getChallenge(bytes.length);
-			} catch (CardException e) {
-				beIDCard = getBeIDCard(true);
-				randomData = beIDCard.getChallenge(bytes.length);
-			}
-		} catch (final CardException e) {
-			throw new RuntimeException(e);
+		if (this.pooled) {
+			nextPooledBytes(bytes);
+			return;
 		}
+		final byte[] randomData = getChallenge(bytes.length);
 		System.arraycopy(randomData, 0, bytes, 0, bytes.length);
 	}
 
 	@Override
 	protected byte[] engineGenerateSeed(final int numBytes) {
 		LOGGER.debug("engineGenerateSeed: {} bytes", numBytes);
-		final BeIDCard beIDCard = getBeIDCard();
-		byte[] randomData;
+		final BeIDCard beIDCard;
+		synchronized (this.cardLock) {
+			beIDCard = getBeIDCard();
+		}
 		try {
-			randomData = beIDCard.getChallenge(numBytes);
+			return getChallengeExclusive(beIDCard, numBytes);
 		} catch (final CardException e) {
 			throw new RuntimeException(e);
 		}
-		return randomData;
+	}
+
+	private synchronized void nextPooledBytes(final byte[] bytes) {
+		if (null == this.drbg || this.bytesSinceReseed >= RESEED_INTERVAL) {
+			final byte[] seed = takeEntropy(RESEED_SIZE);
+			if (null == this.drbg) {
+				// DRBG mixes the seed into its own seed, SHA1PRNG takes it as its seed
+				this.drbg = newDRBG();
+			}
+			this.drbg.setSeed(seed);
+			Arrays.fill(seed, (byte) 0);
+			this.bytesSinceReseed = 0;
+		}
+		this.drbg.nextBytes(bytes);
+		this.bytesSinceReseed += bytes.length;
+	}
+
+	/*
+	 * Takes random data from the entropy pool, waiting for the refill if the pool
+	 * runs dry. Called while holding the lock on this.
+	 */
+	private byte[] takeEntropy(final int size) {
+		while (this.entropyPoolSize < size) {
+			if (null != this.refillFailure) {
+				final RuntimeException failure = this.refillFailure;
+				this.refillFailure = null;
+				throw failure;
+			}
+			startRefill();
+			try {
+				wait();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+		this.entropyPoolSize -= size;
+		final byte[] entropy = Arrays.copyOfRange(this.entropyPool, this.entropyPoolSize,
+				this.entropyPoolSize + size);
+		Arrays.fill(this.entropyPool, this.entropyPoolSize, this.entropyPoolSize + size, (byte) 0);
+		if (this.entropyPoolSize < ENTROPY_POOL_LOW_WATERMARK) {
+			startRefill();
+		}
+		return entropy;
+	}
+
+	/*
+	 * Called while holding the lock on this.
+	 */
+	private void startRefill() {
+		if (this.refilling) {
+			return;
+		}
+		this.refilling = true;
+		REFILL_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				refill();
+			}
+		});
+	}
+
+	private void refill() {
+		LOGGER.debug("refilling entropy pool");
+		while (true) {
+			synchronized (this) {
+				if (this.entropyPoolSize + CHALLENGE_BLOCK_SIZE > ENTROPY_POOL_SIZE) {
+					this.refilling = false;
+					return;
+				}
+			}
+			final byte[] randomData;
+			try {
+				randomData = getChallenge(CHALLENGE_BLOCK_SIZE);
+			} catch (final RuntimeException e) {
+				LOGGER.error("entropy pool refill failed: {}", e.getMessage());
+				synchronized (this) {
+					this.refillFailure = e;
+					this.refilling = false;
+					notifyAll();
+				}
+				return;
+			}
+			synchronized (this) {
+				System.arraycopy(randomData, 0, this.entropyPool, this.entropyPoolSize, CHALLENGE_BLOCK_SIZE);
+				this.entropyPoolSize += CHALLENGE_BLOCK_SIZE;
+				notifyAll();
+			}
+			Arrays.fill(randomData, (byte) 0);
+		}
+	}
+
+	private static SecureRandom newDRBG() {
+		try {
+			return SecureRandom.getInstance("DRBG");
+		} catch (final NoSuchAlgorithmException e) {
+			// Java 8
+			try {
+				return SecureRandom.getInstance("SHA1PRNG");
+			} catch (final NoSuchAlgorithmException e2) {
+				throw new RuntimeException(e2);
+			}
+		}
+	}
+
+	/*
+	 * Retrieves random data from the eID card, recovering a discovered card once
+	 * on failure.
+	 */
+	private byte[] getChallenge(final int size) {
+		synchronized (this.cardLock) {
+			BeIDCard beIDCard = getBeIDCard();
+			try {
+				try {
+					return getChallengeExclusive(beIDCard, size);
+				} catch (CardException e) {
+					if (!this.autoDiscovery) {
+						throw e;
+					}
+					beIDCard = getBeIDCard(true);
+					return getChallengeExclusive(beIDCard, size);
+				}
+			} catch (final CardException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/*
+	 * The eID card is shared with the key store, so the GET CHALLENGE command may
+	 * not interleave with the commands of a signature on another thread.
+	 */
+	private static byte[] getChallengeExclusive(final BeIDCard beIDCard, final int size) throws CardException {
+		beIDCard.beginExclusive();
+		try {
+			return beIDCard.getChallenge(size);
+		} finally {
+			beIDCard.endExclusive();
+		}
 	}
 
 	private BeIDCard getBeIDCard(boolean autoRecover) {
@@ -99,11 +342,13 @@ public class BeIDSecureRandom extends SecureRandomSpi {
 		if (null != this.beIDCard) {
 			return this.beIDCard;
 		}
-		final BeIDCards beIDCards = new BeIDCards();
+		final BeIDCards beIDCards = new BeIDCards(new VoidLogger(), null, BeIDProvider.getCardDiscovery());
 		try {
 			this.beIDCard = beIDCards.getOneBeIDCard();
 		} catch (final CancelledException e) {
 			throw new RuntimeException(e);
+		} finally {
+			BeIDKeyStore.closeBeIDCards(beIDCards);
 		}
 		return this.beIDCard;
 	}
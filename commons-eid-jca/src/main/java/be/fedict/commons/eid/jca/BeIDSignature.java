@@ -99,6 +99,8 @@ public class BeIDSignature extends SignatureSpi {
 
 	private final ByteArrayOutputStream precomputedDigestOutputStream;
 
+	private AbstractBeIDPrivateKey.SigningPreparation signingPreparation;
+
 	static {
 		digestAlgos = new HashMap<>();
 		digestAlgos.put("SHA1withRSA", BeIDDigest.SHA_1);
@@ -152,6 +154,7 @@ public class BeIDSignature extends SignatureSpi {
 	@Override
 	protected void engineInitVerify(final PublicKey publicKey) throws InvalidKeyException {
 		LOGGER.debug("engineInitVerify: {}", publicKey.getClass().getName());
+		cancelSigningPreparation();
 		if (null == this.verifySignature) {
 			try {
 				this.verifySignature = Signature.getInstance(this.signatureAlgorithm);
@@ -168,10 +171,19 @@ public class BeIDSignature extends SignatureSpi {
 		if (!(privateKey instanceof AbstractBeIDPrivateKey)) {
 			throw new InvalidKeyException();
 		}
+		cancelSigningPreparation();
 		this.privateKey = (AbstractBeIDPrivateKey) privateKey;
 		if (null != this.messageDigest) {
 			this.messageDigest.reset();
 		}
+		this.signingPreparation = this.privateKey.prepareSigning(digestAlgos.get(this.signatureAlgorithm));
+	}
+
+	private void cancelSigningPreparation() {
+		if (null != this.signingPreparation) {
+			this.signingPreparation.cancel();
+			this.signingPreparation = null;
+		}
 	}
 
 	@Override
@@ -207,7 +219,10 @@ public class BeIDSignature extends SignatureSpi {
 			throw new SignatureException();
 		}
 		BeIDDigest beidDigest = digestAlgos.get(this.signatureAlgorithm);
-		return this.privateKey.sign(digestValue, beidDigest);
+		// the preparation is used for this signature only
+		final AbstractBeIDPrivateKey.SigningPreparation preparation = this.signingPreparation;
+		this.signingPreparation = null;
+		return this.privateKey.sign(digestValue, beidDigest, preparation);
 	}
 
 	@Override
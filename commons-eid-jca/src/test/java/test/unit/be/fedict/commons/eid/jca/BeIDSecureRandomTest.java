@@ -0,0 +1,278 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.jca;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.jca.BeIDSecureRandom;
+
+public class BeIDSecureRandomTest {
+
+	@Test
+	public void testReseedInterval() throws Exception {
+		// setup: the initial refill fills the entropy pool, 32 reseeds worth
+		ChallengeCard card = new ChallengeCard();
+		card.challengeLimit = 8;
+		SecureRandom secureRandom = newPooledSecureRandom(new BeIDCard(card));
+		byte[] bytes = new byte[512];
+
+		// operate: a reseed every other request
+		for (int idx = 0; idx < 64; idx++) {
+			secureRandom.nextBytes(bytes);
+		}
+		try {
+			secureRandom.nextBytes(bytes);
+			fail();
+		} catch (final RuntimeException e) {
+			// verify
+			assertTrue(e.getCause() instanceof CardException);
+		}
+		assertEquals(8, card.getChallenges());
+	}
+
+	@Test
+	public void testLowWatermarkRefill() throws Exception {
+		// setup
+		ChallengeCard card = new ChallengeCard();
+		SecureRandom secureRandom = newPooledSecureRandom(new BeIDCard(card));
+		byte[] bytes = new byte[1024];
+		secureRandom.nextBytes(new byte[16]);
+		card.waitForChallenges(8);
+		// let the refill thread store the last block
+		Thread.sleep(100);
+
+		// operate: every request reseeds, the 25th one drops the pool below the low
+		// watermark
+		for (int idx = 0; idx < 24; idx++) {
+			secureRandom.nextBytes(bytes);
+		}
+		Thread.sleep(100);
+		assertEquals(8, card.getChallenges());
+		secureRandom.nextBytes(bytes);
+
+		// verify
+		card.waitForChallenges(14);
+		Thread.sleep(100);
+		assertEquals(14, card.getChallenges());
+		assertEquals(0, card.getNonExclusiveChallenges());
+	}
+
+	@Test
+	public void testRefillFailure() throws Exception {
+		// setup
+		ChallengeCard card = new ChallengeCard();
+		card.challengeLimit = 0;
+		SecureRandom secureRandom = newPooledSecureRandom(new BeIDCard(card));
+		byte[] bytes = new byte[16];
+
+		// operate
+		try {
+			secureRandom.nextBytes(bytes);
+			fail();
+		} catch (final RuntimeException e) {
+			// verify
+			assertTrue(e.getCause() instanceof CardException);
+		}
+
+		// operate: the next request refills again
+		card.challengeLimit = Integer.MAX_VALUE;
+		secureRandom.nextBytes(bytes);
+
+		// verify
+		assertTrue(card.getChallenges() > 0);
+	}
+
+	@Test
+	public void testRefillWaitsForExclusiveTransaction() throws Exception {
+		// setup
+		ChallengeCard card = new ChallengeCard();
+		BeIDCard beIDCard = new BeIDCard(card);
+		final SecureRandom secureRandom = newPooledSecureRandom(beIDCard);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					secureRandom.nextBytes(new byte[16]);
+				} catch (final Throwable e) {
+					failure.set(e);
+				}
+			}
+		});
+
+		// operate: e.g. a signature in progress on the same eID card
+		beIDCard.beginExclusive();
+		thread.start();
+		Thread.sleep(200);
+		assertEquals(0, card.getChallenges());
+		beIDCard.endExclusive();
+		thread.join(5000);
+
+		// verify
+		assertNull(failure.get());
+		assertTrue(card.getChallenges() > 0);
+		assertEquals(0, card.getNonExclusiveChallenges());
+	}
+
+	private static SecureRandom newPooledSecureRandom(final BeIDCard beIDCard) {
+		return new SecureRandom(new BeIDSecureRandom(beIDCard, true), null) {
+
+			private static final long serialVersionUID = 1L;
+		};
+	}
+
+	/*
+	 * Answers GET CHALLENGE commands, up to a limit, after which the card appears
+	 * to be removed.
+	 */
+	private static final class ChallengeCard extends Card {
+
+		private final CardChannel cardChannel = new ChallengeCardChannel();
+
+		private volatile int challengeLimit = Integer.MAX_VALUE;
+
+		private int challenges;
+
+		private int nonExclusiveChallenges;
+
+		private boolean exclusive;
+
+		synchronized int getChallenges() {
+			return this.challenges;
+		}
+
+		synchronized int getNonExclusiveChallenges() {
+			return this.nonExclusiveChallenges;
+		}
+
+		synchronized void waitForChallenges(final int count) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + 5000;
+			while (this.challenges < count) {
+				final long timeout = deadline - System.currentTimeMillis();
+				if (timeout <= 0) {
+					fail("expected " + count + " GET CHALLENGE commands, got " + this.challenges);
+				}
+				wait(timeout);
+			}
+		}
+
+		@Override
+		public ATR getATR() {
+			return new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40, 0x0a, (byte) 0xa5, 0x03, 0x01, 0x01, 0x01,
+					(byte) 0xad, 0x13, 0x11 });
+		}
+
+		@Override
+		public String getProtocol() {
+			return "T=0";
+		}
+
+		@Override
+		public CardChannel getBasicChannel() {
+			return this.cardChannel;
+		}
+
+		@Override
+		public CardChannel openLogicalChannel() throws CardException {
+			throw new CardException("not supported");
+		}
+
+		@Override
+		public synchronized void beginExclusive() {
+			this.exclusive = true;
+		}
+
+		@Override
+		public synchronized void endExclusive() {
+			this.exclusive = false;
+		}
+
+		@Override
+		public byte[] transmitControlCommand(final int controlCode, final byte[] command) throws CardException {
+			throw new CardException("not supported");
+		}
+
+		@Override
+		public void disconnect(final boolean reset) {
+		}
+
+		private synchronized ResponseAPDU challenge(final CommandAPDU command) throws CardException {
+			if (0x84 != command.getINS()) {
+				return new ResponseAPDU(new byte[] { 0x6d, 0x00 });
+			}
+			if (this.challenges >= this.challengeLimit) {
+				throw new CardException("card removed");
+			}
+			this.challenges++;
+			if (!this.exclusive) {
+				this.nonExclusiveChallenges++;
+			}
+			notifyAll();
+			final byte[] response = new byte[command.getNe() + 2];
+			Arrays.fill(response, 0, command.getNe(), (byte) this.challenges);
+			response[command.getNe()] = (byte) 0x90;
+			return new ResponseAPDU(response);
+		}
+
+		private final class ChallengeCardChannel extends CardChannel {
+
+			@Override
+			public Card getCard() {
+				return ChallengeCard.this;
+			}
+
+			@Override
+			public int getChannelNumber() {
+				return 0;
+			}
+
+			@Override
+			public ResponseAPDU transmit(final CommandAPDU command) throws CardException {
+				return challenge(command);
+			}
+
+			@Override
+			public int transmit(final ByteBuffer command, final ByteBuffer response) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.integ.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.smartcardio.ATR;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.BeIDCardDiscovery;
+import be.fedict.commons.eid.client.BeIDCards;
+import be.fedict.commons.eid.client.CancelledException;
+import be.fedict.commons.eid.client.spi.BeIDCardsUI;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCard;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCardTerminal;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCardTerminals;
+
+/**
+ * Measures the time between a card insertion in a simulated card terminal and
+ * the return of a BeIDCards.getOneBeIDCard caller that was waiting for it.
+ */
+public class BeIDCardsLatencyBenchmark {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeIDCardsLatencyBenchmark.class);
+
+	private static final int ROUNDS = 100;
+
+	@Test
+	public void insertionToReturnLatency() throws Exception {
+		final SimulatedCardTerminals simulatedCardTerminals = new SimulatedCardTerminals();
+		final SimulatedCardTerminal simulatedCardTerminal = new SimulatedCardTerminal("Fedix SCR 0");
+		simulatedCardTerminals.attachCardTerminal(simulatedCardTerminal);
+		final SimulatedCard simulatedCard = new SimulatedCard(new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40,
+				0x0a, (byte) 0xa5, 0x03, 0x01, 0x01, 0x01, (byte) 0xad, 0x13, 0x11 }));
+		final BeIDCardDiscovery discovery = new BeIDCardDiscovery(new TestLogger(), simulatedCardTerminals);
+		final BeIDCards beIDCards = new BeIDCards(new TestLogger(), new NoBeIDCardsUI(), discovery);
+		final long[] latencies = new long[ROUNDS];
+
+		for (int round = 0; round < ROUNDS; round++) {
+			final BlockingQueue<Long> returnTimes = new LinkedBlockingQueue<>();
+			final Thread caller = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						beIDCards.getOneBeIDCard(null, 10, TimeUnit.SECONDS);
+						returnTimes.add(System.nanoTime());
+					} catch (final Exception e) {
+						LOGGER.error("getOneBeIDCard failed: " + e.getMessage(), e);
+					}
+				}
+			});
+			caller.start();
+			// let the caller block on the card condition
+			Thread.sleep(20);
+
+			final long insertionTime = System.nanoTime();
+			simulatedCardTerminal.insertCard(simulatedCard);
+			final Long returnTime = returnTimes.poll(10, TimeUnit.SECONDS);
+			assertNotNull(returnTime);
+			latencies[round] = returnTime - insertionTime;
+
+			final BeIDCard beIDCard = beIDCards.getOneBeIDCard();
+			simulatedCardTerminal.removeCard();
+			beIDCards.waitUntilCardRemoved(beIDCard, 10, TimeUnit.SECONDS);
+			caller.join();
+		}
+
+		beIDCards.close();
+		discovery.release();
+
+		Arrays.sort(latencies);
+		LOGGER.info("insertion to return latency over {} rounds: median {} us, 90th percentile {} us, max {} us",
+				ROUNDS, latencies[ROUNDS / 2] / 1000, latencies[ROUNDS * 9 / 10] / 1000,
+				latencies[ROUNDS - 1] / 1000);
+	}
+
+	private static class NoBeIDCardsUI implements BeIDCardsUI {
+
+		@Override
+		public void setLocale(final Locale newLocale) {
+		}
+
+		@Override
+		public Locale getLocale() {
+			return Locale.getDefault();
+		}
+
+		@Override
+		public void adviseCardTerminalRequired() {
+		}
+
+		@Override
+		public void adviseBeIDCardRequired() {
+		}
+
+		@Override
+		public void adviseBeIDCardRemovalRequired() {
+		}
+
+		@Override
+		public void adviseEnd() {
+		}
+
+		@Override
+		public BeIDCard selectBeIDCard(final Collection<BeIDCard> availableCards) throws CancelledException {
+			throw new CancelledException();
+		}
+
+		@Override
+		public void eIDCardInsertedDuringSelection(final BeIDCard card) {
+		}
+
+		@Override
+		public void eIDCardRemovedDuringSelection(final BeIDCard card) {
+		}
+	}
+}
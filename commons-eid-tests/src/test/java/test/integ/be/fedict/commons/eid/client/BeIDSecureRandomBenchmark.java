@@ -0,0 +1,87 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.integ.be.fedict.commons.eid.client;
+
+import java.security.SecureRandom;
+import java.security.Security;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import be.fedict.commons.eid.jca.BeIDProvider;
+
+/**
+ * Compares the throughput of the "BeID" and "BeIDPooled" secure randoms for
+ * small requests, as used for nonces and IVs. Requires an eID card.
+ */
+public class BeIDSecureRandomBenchmark {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeIDSecureRandomBenchmark.class);
+
+	private static final int WARMUP_REQUESTS = 20;
+
+	private static final int REQUESTS = 500;
+
+	@BeforeAll
+	public static void setup() {
+		Security.addProvider(new BeIDProvider());
+	}
+
+	@Test
+	public void smallRequestThroughput() throws Exception {
+		for (final String algorithm : new String[] { "BeID", "BeIDPooled" }) {
+			final SecureRandom secureRandom = SecureRandom.getInstance(algorithm);
+			for (final int requestSize : new int[] { 8, 16, 32 }) {
+				final byte[] bytes = new byte[requestSize];
+				for (int idx = 0; idx < WARMUP_REQUESTS; idx++) {
+					secureRandom.nextBytes(bytes);
+				}
+				final long startTime = System.nanoTime();
+				for (int idx = 0; idx < REQUESTS; idx++) {
+					secureRandom.nextBytes(bytes);
+				}
+				final long duration = System.nanoTime() - startTime;
+				LOGGER.info("{} with {} byte requests: {} requests/s, {} bytes/s, {} us per request", algorithm,
+						requestSize, REQUESTS * 1000000000L / duration,
+						REQUESTS * (long) requestSize * 1000000000L / duration, duration / REQUESTS / 1000);
+			}
+		}
+	}
+
+	@Test
+	public void bulkThroughput() throws Exception {
+		for (final String algorithm : new String[] { "BeID", "BeIDPooled" }) {
+			final SecureRandom secureRandom = SecureRandom.getInstance(algorithm);
+			// GET CHALLENGE is limited to short length responses
+			final byte[] bytes = new byte[0xff];
+			secureRandom.nextBytes(bytes);
+			final long startTime = System.nanoTime();
+			long total = 0;
+			for (int idx = 0; idx < REQUESTS / 10; idx++) {
+				secureRandom.nextBytes(bytes);
+				total += bytes.length;
+			}
+			final long duration = System.nanoTime() - startTime;
+			LOGGER.info("{} with {} byte requests: {} bytes/s", algorithm, bytes.length,
+					total * 1000000000L / duration);
+		}
+	}
+}
@@ -53,17 +53,17 @@ public class SimulatedCard extends Card {
 
 	@Override
 	public void beginExclusive() throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+		// a simulated card is not shared
 	}
 
 	@Override
 	public void disconnect(final boolean arg0) throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+		// a simulated card is not shared
 	}
 
 	@Override
 	public void endExclusive() throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+		// a simulated card is not shared
 	}
 
 	@Override
@@ -0,0 +1,177 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.integ.be.fedict.commons.eid.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import be.fedict.commons.eid.consumer.Address;
+import be.fedict.commons.eid.consumer.Identity;
+import be.fedict.commons.eid.consumer.tlv.ConvertData;
+import be.fedict.commons.eid.consumer.tlv.DataConvertor;
+import be.fedict.commons.eid.consumer.tlv.OriginalData;
+import be.fedict.commons.eid.consumer.tlv.TlvField;
+import be.fedict.commons.eid.consumer.tlv.TlvParser;
+
+/**
+ * Compares the time per parse of the identity and address files between
+ * TlvParser, which inspects the annotations of a TLV class only once, and the
+ * previous algorithm, which inspected them on every parse.
+ */
+public class TlvParserBenchmark {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TlvParserBenchmark.class);
+
+	private static final int WARMUP_PARSES = 20000;
+
+	private static final int PARSES = 100000;
+
+	@Test
+	public void parseThroughput() throws Exception {
+		final byte[] identityFile = readResource("/Alice_Identity.tlv");
+		final byte[] addressFile = readResource("/Alice_Address.tlv");
+
+		// both algorithms give the same result
+		final Identity identity = TlvParser.parse(identityFile, Identity.class);
+		final Identity previousIdentity = parseUncached(identityFile, Identity.class);
+		assertEquals(identity.getNationalNumber(), previousIdentity.getNationalNumber());
+		assertEquals(identity.getDateOfBirth(), previousIdentity.getDateOfBirth());
+		assertEquals(TlvParser.parse(addressFile, Address.class).getZip(),
+				parseUncached(addressFile, Address.class).getZip());
+
+		for (final boolean cached : new boolean[] { false, true }) {
+			runParses(cached, identityFile, addressFile, WARMUP_PARSES);
+			final long startTime = System.nanoTime();
+			final int sink = runParses(cached, identityFile, addressFile, PARSES);
+			final long duration = System.nanoTime() - startTime;
+			LOGGER.info("{} parser: {} ns per identity and address parse ({})", cached ? "cached" : "previous",
+					duration / PARSES, sink);
+		}
+	}
+
+	private static int runParses(final boolean cached, final byte[] identityFile, final byte[] addressFile,
+			final int parses) throws Exception {
+		int sink = 0;
+		for (int idx = 0; idx < parses; idx++) {
+			final Identity identity;
+			final Address address;
+			if (cached) {
+				identity = TlvParser.parse(identityFile, Identity.class);
+				address = TlvParser.parse(addressFile, Address.class);
+			} else {
+				identity = parseUncached(identityFile, Identity.class);
+				address = parseUncached(addressFile, Address.class);
+			}
+			sink += identity.getNationalNumber().length() + address.getZip().length();
+		}
+		return sink;
+	}
+
+	private static byte[] readResource(final String name) throws Exception {
+		try (InputStream inputStream = TlvParserBenchmark.class.getResourceAsStream(name)) {
+			return IOUtils.toByteArray(inputStream);
+		}
+	}
+
+	/*
+	 * The TlvParser algorithm before the per-class bindings were cached: the
+	 * fields and annotations are looked up, and the data convertors created, on
+	 * every parse.
+	 */
+	private static <T> T parseUncached(final byte[] file, final Class<T> tlvClass) throws Exception {
+		final Field[] fields = tlvClass.getDeclaredFields();
+		final Map<Integer, List<Field>> tlvFields = new HashMap<>();
+		final T tlvObject = tlvClass.getDeclaredConstructor().newInstance();
+		for (Field field : fields) {
+			final TlvField tlvFieldAnnotation = field.getAnnotation(TlvField.class);
+			if (null != tlvFieldAnnotation) {
+				final int tagId = tlvFieldAnnotation.value();
+				List<Field> fieldList = tlvFields.get(tagId);
+				if (fieldList == null) {
+					fieldList = new ArrayList<>();
+					tlvFields.put(tagId, fieldList);
+				}
+				fieldList.add(field);
+			}
+			final OriginalData originalDataAnnotation = field.getAnnotation(OriginalData.class);
+			if (null != originalDataAnnotation) {
+				field.setAccessible(true);
+				field.set(tlvObject, file);
+			}
+		}
+
+		int idx = 0;
+		while (idx < file.length - 1) {
+			final byte tag = file[idx];
+			idx++;
+			byte lengthByte = file[idx];
+			int length = lengthByte & 0x7f;
+			while ((lengthByte & 0x80) == 0x80) {
+				idx++;
+				lengthByte = file[idx];
+				length = (length << 7) + (lengthByte & 0x7f);
+			}
+			idx++;
+			if (0 == tag) {
+				idx += length;
+				continue;
+			}
+			final List<Field> fieldList = tlvFields.get(Integer.valueOf(tag));
+			if (fieldList != null) {
+				for (Field tlvField : fieldList) {
+					final Class<?> tlvType = tlvField.getType();
+					final ConvertData convertDataAnnotation = tlvField.getAnnotation(ConvertData.class);
+					final byte[] tlvValue = new byte[length];
+					System.arraycopy(file, idx, tlvValue, 0, length);
+					Object fieldValue;
+					if (null != convertDataAnnotation) {
+						final Class<? extends DataConvertor<?>> dataConvertorClass = convertDataAnnotation.value();
+						final DataConvertor<?> dataConvertor = dataConvertorClass.getDeclaredConstructor()
+								.newInstance();
+						fieldValue = dataConvertor.convert(tlvValue);
+					} else if (String.class == tlvType) {
+						fieldValue = new String(tlvValue, StandardCharsets.UTF_8).trim();
+					} else if (Boolean.TYPE == tlvType) {
+						fieldValue = true;
+					} else if (tlvType.isArray() && Byte.TYPE == tlvType.getComponentType()) {
+						fieldValue = tlvValue;
+					} else {
+						throw new IllegalArgumentException("unsupported field type: " + tlvType.getName());
+					}
+					tlvField.setAccessible(true);
+					tlvField.set(tlvObject, fieldValue);
+				}
+			}
+			idx += length;
+		}
+		return tlvObject;
+	}
+}